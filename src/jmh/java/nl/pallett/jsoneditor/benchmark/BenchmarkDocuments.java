@@ -0,0 +1,50 @@
+package nl.pallett.jsoneditor.benchmark;
+
+import nl.pallett.jsoneditor.testdata.DocumentGenerator;
+
+/**
+ * The JSON and YAML documents the benchmarks run on. The same size always results in the same document,
+ * so results of different runs can be compared.
+ */
+public class BenchmarkDocuments {
+
+    private static final long SEED = 42;
+
+    private BenchmarkDocuments() {
+        /* This utility class should not be instantiated */
+    }
+
+    /**
+     * @param size size like "100KB" or "10MB"
+     * @return the size in chars
+     */
+    public static int parseSize(String size) {
+        String unit = size.substring(size.length() - 2).toUpperCase();
+        int amount = Integer.parseInt(size.substring(0, size.length() - 2));
+        return switch (unit) {
+            case "KB" -> amount * 1024;
+            case "MB" -> amount * 1024 * 1024;
+            default -> throw new IllegalArgumentException("Unknown size: " + size);
+        };
+    }
+
+    public static String json(int size) {
+        return generator(size).generate(DocumentGenerator.Format.JSON);
+    }
+
+    public static String yaml(int size) {
+        return generator(size).generate(DocumentGenerator.Format.YAML);
+    }
+
+    public static String yamlStream(int size) {
+        return generator(size).generate(DocumentGenerator.Format.YAML_STREAM);
+    }
+
+    private static DocumentGenerator generator(int size) {
+        return new DocumentGenerator()
+            .seed(SEED)
+            .size(size)
+            .comments(true)
+            .anchors(true);
+    }
+}
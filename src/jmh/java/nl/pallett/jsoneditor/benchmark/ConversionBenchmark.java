@@ -0,0 +1,71 @@
+package nl.pallett.jsoneditor.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import nl.pallett.jsoneditor.ast.AstConverter;
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import nl.pallett.jsoneditor.model.DocumentType;
+import nl.pallett.jsoneditor.util.ObjectMapperUtil;
+import nl.pallett.jsoneditor.util.StringUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx8g"})
+public class ConversionBenchmark {
+
+    @Param({"1KB", "100KB", "1MB", "10MB", "100MB"})
+    public String size;
+
+    private final AstConverter astConverter = new AstConverter();
+
+    private String json;
+
+    private String yaml;
+
+    private AstNode ast;
+
+    @Setup
+    public void generateDocuments() throws IOException {
+        json = BenchmarkDocuments.json(BenchmarkDocuments.parseSize(size));
+        yaml = BenchmarkDocuments.yaml(BenchmarkDocuments.parseSize(size));
+        ast = new JsonParserAdapter().parse(json);
+    }
+
+    @Benchmark
+    public String convertToYaml() throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = ObjectMapperUtil.createGenerator(writer, DocumentType.YAML)) {
+            astConverter.write(ast, DocumentType.JSON, DocumentType.YAML, generator);
+        }
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String formatJson() throws JsonProcessingException {
+        return StringUtil.formatJson(json);
+    }
+
+    @Benchmark
+    public String formatYaml() {
+        return StringUtil.formatYaml(yaml);
+    }
+}
@@ -0,0 +1,60 @@
+package nl.pallett.jsoneditor.benchmark;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import nl.pallett.jsoneditor.ast.parser.ParallelYamlParser;
+import nl.pallett.jsoneditor.ast.parser.YamlParserAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx8g"})
+public class ParserBenchmark {
+
+    @Param({"1KB", "100KB", "1MB", "10MB", "100MB"})
+    public String size;
+
+    private String json;
+
+    private String yaml;
+
+    private String yamlStream;
+
+    @Setup
+    public void generateDocuments() {
+        json = BenchmarkDocuments.json(BenchmarkDocuments.parseSize(size));
+        yaml = BenchmarkDocuments.yaml(BenchmarkDocuments.parseSize(size));
+        yamlStream = BenchmarkDocuments.yamlStream(BenchmarkDocuments.parseSize(size));
+    }
+
+    @Benchmark
+    public AstNode jsonParserAdapter() throws IOException {
+        return new JsonParserAdapter().parse(json);
+    }
+
+    @Benchmark
+    public AstNode yamlParserAdapter() {
+        return new YamlParserAdapter().parse(yaml);
+    }
+
+    @Benchmark
+    public AstNode parallelYamlParser() {
+        return new ParallelYamlParser().parse(yamlStream);
+    }
+}
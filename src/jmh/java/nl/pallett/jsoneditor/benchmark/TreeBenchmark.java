@@ -0,0 +1,121 @@
+package nl.pallett.jsoneditor.benchmark;
+
+import nl.pallett.jsoneditor.ast.AstIndex;
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import nl.pallett.jsoneditor.ui.editor.tree.AstTreeModel;
+import nl.pallett.jsoneditor.ui.editor.tree.AstTreeNode;
+import nl.pallett.jsoneditor.ui.editor.tree.SortState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx8g", "-Djava.awt.headless=true"})
+public class TreeBenchmark {
+
+    /**
+     * Number of caret offsets cycled through by the lookup benchmark, a power of two
+     */
+    private static final int OFFSETS = 1024;
+
+    @Param({"1KB", "100KB", "1MB", "10MB", "100MB"})
+    public String size;
+
+    private AstNode ast;
+
+    private AstIndex index;
+
+    /**
+     * Second parse of the same document, for the benchmark updating the tree
+     */
+    private AstNode reparsedAst;
+
+    private AstTreeModel expandedModel;
+
+    private boolean showsReparsedAst = false;
+
+    private final int[] offsets = new int[OFFSETS];
+
+    private int nextOffset = 0;
+
+    @Setup
+    public void buildIndex() throws IOException {
+        String json = BenchmarkDocuments.json(BenchmarkDocuments.parseSize(size));
+        ast = new JsonParserAdapter().parse(json);
+        index = new AstIndex(ast);
+        reparsedAst = new JsonParserAdapter().parse(json);
+
+        expandedModel = new AstTreeModel(ast, SortState.NONE);
+        countRows(expandedModel, expandedModel.getRoot());
+
+        Random random = new Random(42);
+        for (int i = 0; i < OFFSETS; i++) {
+            offsets[i] = random.nextInt(json.length());
+        }
+    }
+
+    /**
+     * Visits every row of the tree, like expanding all nodes would
+     */
+    @Benchmark
+    public int walkTree() {
+        AstTreeModel model = new AstTreeModel(ast, SortState.NONE);
+        return countRows(model, model.getRoot());
+    }
+
+    @Benchmark
+    public int walkSortedTree() {
+        AstTreeModel model = new AstTreeModel(ast, SortState.ASCENDING);
+        return countRows(model, model.getRoot());
+    }
+
+    /**
+     * Shows a new parse of the document in a tree of which every row was visited
+     */
+    @Benchmark
+    public AstTreeModel updateTree() {
+        showsReparsedAst = !showsReparsedAst;
+        expandedModel.setAst(showsReparsedAst ? reparsedAst : ast);
+        return expandedModel;
+    }
+
+    private int countRows(AstTreeModel model, AstTreeNode node) {
+        if (model.isLeaf(node)) {
+            return 1;
+        }
+        int rows = 1;
+        for (int i = 0; i < model.getChildCount(node); i++) {
+            rows += countRows(model, model.getChild(node, i));
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public AstIndex buildAstIndex() {
+        return new AstIndex(ast);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public AstNode findNode() {
+        int offset = offsets[nextOffset++ & (OFFSETS - 1)];
+        return index.findNode(offset);
+    }
+}
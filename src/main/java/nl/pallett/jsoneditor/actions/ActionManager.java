@@ -1,6 +1,8 @@
 package nl.pallett.jsoneditor.actions;
 
 import nl.pallett.jsoneditor.actions.edit.FormatAction;
+import nl.pallett.jsoneditor.actions.edit.FormatSelectionAction;
+import nl.pallett.jsoneditor.actions.edit.MinifyAction;
 import nl.pallett.jsoneditor.actions.edit.RedoAction;
 import nl.pallett.jsoneditor.actions.edit.UndoAction;
 import nl.pallett.jsoneditor.actions.file.SaveAction;
@@ -31,6 +33,8 @@ public class ActionManager {
         actions.put(Action.SAVE, new SaveAction(editorManager));
         actions.put(Action.SAVE_AS, new SaveAsAction(editorManager));
         actions.put(Action.FORMAT, new FormatAction(editorManager));
+        actions.put(Action.FORMAT_SELECTION, new FormatSelectionAction(editorManager));
+        actions.put(Action.MINIFY, new MinifyAction(editorManager));
         actions.put(Action.UNDO, new UndoAction(editorManager));
         actions.put(Action.REDO, new RedoAction(editorManager));
         actions.put(Action.FIND, new ShowFindDialogAction(editorManager));
@@ -61,6 +65,8 @@ public class ActionManager {
         SAVE,
         SAVE_AS,
         FORMAT,
+        FORMAT_SELECTION,
+        MINIFY,
         UNDO,
         REDO,
         FIND,
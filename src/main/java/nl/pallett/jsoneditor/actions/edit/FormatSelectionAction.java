@@ -0,0 +1,42 @@
+package nl.pallett.jsoneditor.actions.edit;
+
+import nl.pallett.jsoneditor.actions.AbstractActionWithState;
+import nl.pallett.jsoneditor.controller.EditorManager;
+import nl.pallett.jsoneditor.view.editor.CodePanelView;
+import nl.pallett.jsoneditor.view.editor.EditorPanelView;
+import org.jspecify.annotations.Nullable;
+
+import java.awt.event.ActionEvent;
+
+/**
+ * Formats the object or array around the selection, or around the caret when nothing is selected. Only enabled while
+ * the AST matches the contents of a valid JSON or YAML document.
+ */
+public class FormatSelectionAction extends AbstractActionWithState {
+
+    private final EditorManager editorManager;
+
+    public FormatSelectionAction(EditorManager editorManager) {
+        this.editorManager = editorManager;
+
+        putValue(NAME, "Format selection");
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        EditorPanelView editorPanel = editorManager.getActiveEditorPanel();
+        if (editorPanel != null && editorPanel.getEditorDocument() != null) {
+            CodePanelView codePanel = editorPanel.getCodePanel();
+            editorPanel.getEditorDocument().formatRange(codePanel.getSelectionStart(), codePanel.getSelectionEnd());
+        }
+    }
+
+    @Override
+    public void updateState(@Nullable EditorPanelView editorPanel) {
+        setEnabled(
+            editorPanel != null
+                && editorPanel.getEditorDocument() != null
+                && editorPanel.getEditorDocument().canFormatRange()
+        );
+    }
+}
@@ -0,0 +1,41 @@
+package nl.pallett.jsoneditor.actions.edit;
+
+import nl.pallett.jsoneditor.actions.AbstractActionWithState;
+import nl.pallett.jsoneditor.controller.EditorManager;
+import nl.pallett.jsoneditor.model.EditorDocument;
+import nl.pallett.jsoneditor.view.editor.EditorPanelView;
+import org.jspecify.annotations.Nullable;
+
+import java.awt.event.ActionEvent;
+
+/**
+ * Removes the layout of the document, on a background thread so huge documents don't block the UI. Only enabled for
+ * valid documents.
+ */
+public class MinifyAction extends AbstractActionWithState {
+
+    private final EditorManager editorManager;
+
+    public MinifyAction(EditorManager editorManager) {
+        this.editorManager = editorManager;
+
+        putValue(NAME, "Minify");
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        EditorDocument editorDocument = editorManager.getActiveDocument();
+        if (editorDocument != null) {
+            editorDocument.minifyContents();
+        }
+    }
+
+    @Override
+    public void updateState(@Nullable EditorPanelView editorPanel) {
+        setEnabled(
+            editorPanel != null
+                && editorPanel.getEditorDocument() != null
+                && editorPanel.getEditorDocument().canBeMinified()
+        );
+    }
+}
@@ -1,92 +1,256 @@
 package nl.pallett.jsoneditor.ast;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import nl.pallett.jsoneditor.model.DocumentType;
 import org.jspecify.annotations.Nullable;
 
-import java.util.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
 
+/**
+ * Writes an AST straight to a generator of the target document type, in a single walk over the tree. Keys keep the
+ * order of the document and numbers are written as they are written in the document.
+ */
 public class AstConverter {
 
-    public @Nullable Object toObjectTree(AstNode astTree) {
-        if (astTree == null) {
-            return null;
+    private static final Pattern JSON_NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+
+    /**
+     * YAML floats can leave out the digits before the point (.5) or after it (1.), JSON needs a digit on both sides
+     */
+    private static final Pattern LEADING_POINT = Pattern.compile("^(-?)\\.(?=[0-9])");
+
+    private static final Pattern TRAILING_POINT = Pattern.compile("(?<=[0-9])\\.(?![0-9])");
+
+    /**
+     * A JSON Lines document is written as an array of its records. For JSON Lines output the items of a top-level
+     * array are written as separate records.
+     *
+     * @param sourceType type of the document the AST was parsed from
+     * @param targetType type of the document the generator writes
+     * @return false when the AST holds nothing to write
+     */
+    public boolean write(AstNode astTree, DocumentType sourceType, DocumentType targetType, JsonGenerator generator)
+        throws IOException {
+
+        List<AstNode> values = new ArrayList<>();
+        if (sourceType == DocumentType.JSON_LINES) {
+            // each record is a child of the root
+            for (AstNode child : astTree.getChildren()) {
+                if (isValue(child)) {
+                    values.add(child);
+                }
+            }
+        } else {
+            AstNode value = rootValueOf(astTree);
+            if (value == null) {
+                return false;
+            }
+            values.add(value);
+        }
+
+        if (targetType == DocumentType.JSON_LINES) {
+            if (sourceType != DocumentType.JSON_LINES && values.getFirst().getType() == AstNode.Type.ARRAY) {
+                values = values.getFirst().getChildren();
+            }
+            boolean written = false;
+            for (AstNode value : values) {
+                written |= writeItem(value, generator);
+            }
+            return written;
+        }
+
+        if (sourceType == DocumentType.JSON_LINES) {
+            generator.writeStartArray();
+            for (AstNode value : values) {
+                writeItem(value, generator);
+            }
+            generator.writeEndArray();
+        } else {
+            writeNode(values.getFirst(), generator);
+        }
+        return true;
+    }
+
+    /**
+     * @see #write(AstNode, DocumentType, DocumentType, JsonGenerator)
+     */
+    public boolean write(CompactAst ast, DocumentType sourceType, DocumentType targetType, JsonGenerator generator)
+        throws IOException {
+
+        List<Integer> values = new ArrayList<>();
+        for (int child = ast.getFirstChild(ast.root()); child != CompactAst.NONE; child = ast.getNextSibling(child)) {
+            AstNode.Type type = ast.getType(child);
+            if (sourceType == DocumentType.JSON_LINES) {
+                values.add(child);
+            } else if (type == AstNode.Type.OBJECT || type == AstNode.Type.ARRAY) {
+                values.add(child);
+                break;
+            }
+        }
+        if (values.isEmpty() && sourceType != DocumentType.JSON_LINES) {
+            return false;
+        }
+
+        if (targetType == DocumentType.JSON_LINES) {
+            int first = values.isEmpty() ? CompactAst.NONE : values.getFirst();
+            if (sourceType != DocumentType.JSON_LINES && ast.getType(first) == AstNode.Type.ARRAY) {
+                values.clear();
+                for (int item = ast.getFirstChild(first); item != CompactAst.NONE; item = ast.getNextSibling(item)) {
+                    values.add(item);
+                }
+            }
+            for (int value : values) {
+                writeNode(ast, value, generator);
+            }
+            return !values.isEmpty();
         }
 
-        return buildNode(astTree);
+        if (sourceType == DocumentType.JSON_LINES) {
+            generator.writeStartArray();
+            for (int value : values) {
+                writeNode(ast, value, generator);
+            }
+            generator.writeEndArray();
+        } else {
+            writeNode(ast, values.getFirst(), generator);
+        }
+        return true;
     }
 
-    private @Nullable Object buildNode(@Nullable AstNode astNode) {
-        if (astNode == null) {
+    /**
+     * @return the first object or array, or the value of the first YAML document, null when there is none
+     */
+    private @Nullable AstNode rootValueOf(AstNode astNode) {
+        for (AstNode child : astNode.getChildren()) {
+            switch (child.getType()) {
+                case OBJECT, ARRAY -> {
+                    return child;
+                }
+                case DOCUMENT -> {
+                    // the first value of the document, after any comments
+                    AstNode value = child.getChildren().stream()
+                        .filter(documentChild -> documentChild.getType() != AstNode.Type.COMMENT)
+                        .findFirst()
+                        .orElse(null);
+                    return (value != null && isValue(value)) ? value : null;
+                }
+                default -> { }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return value of a property or an item, null for comments and aliases
+     */
+    private @Nullable AstNode valueOf(AstNode astNode) {
+        if (astNode.getType() == AstNode.Type.PROPERTY) {
+            for (AstNode child : astNode.getChildren()) {
+                if (child.getType() != AstNode.Type.COMMENT) {
+                    return isValue(child) ? child : null;
+                }
+            }
             return null;
         }
+        return isValue(astNode) ? astNode : null;
+    }
+
+    private boolean isValue(AstNode astNode) {
+        return switch (astNode.getType()) {
+            case OBJECT, ARRAY, VALUE, PROPERTY -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Writes the value of an item, aliases and comments are left out
+     *
+     * @return false when nothing was written
+     */
+    private boolean writeItem(AstNode item, JsonGenerator generator) throws IOException {
+        AstNode value = valueOf(item);
+        if (value == null) {
+            return false;
+        }
+        writeNode(value, generator);
+        return true;
+    }
 
-        Object result = null;
+    private void writeNode(AstNode astNode, JsonGenerator generator) throws IOException {
         switch (astNode.getType()) {
-            case DUMMY_ROOT:
-                result = buildNode(
-                    astNode.getChildren().stream()
-                    .filter(n -> n.getType() == AstNode.Type.OBJECT
-                        || n.getType() == AstNode.Type.ARRAY
-                        || n.getType() == AstNode.Type.DOCUMENT)
-                    .findFirst()
-                    .orElse(null)
-                );
-                break;
-            case OBJECT: {
-                Map<String, Object> map = new HashMap<>();
-                astNode.getChildren().stream()
-                    .map(childNode -> MapEntry.of(childNode.getKey(), buildNode(childNode)))
-                    .filter(entry -> entry.value() != null)
-                    .forEach(entry -> map.put(entry.key(), entry.value));
-                result = map;
-                break;
+            case OBJECT -> {
+                generator.writeStartObject();
+                for (AstNode child : astNode.getChildren()) {
+                    AstNode value = valueOf(child);
+                    if (value != null) {
+                        generator.writeFieldName(String.valueOf(child.getKey()));
+                        writeNode(value, generator);
+                    }
+                }
+                generator.writeEndObject();
             }
-            case ARRAY: {
-                List<Object> list = new ArrayList<>();
-                astNode.getChildren().stream()
-                    .map(this::buildNode)
-                    .filter(Objects::nonNull)
-                    .forEach(list::add);
-                result = list;
-                break;
+            case ARRAY -> {
+                generator.writeStartArray();
+                for (AstNode child : astNode.getChildren()) {
+                    writeItem(child, generator);
+                }
+                generator.writeEndArray();
             }
-            case PROPERTY: {
-                result = buildNode(astNode.getChildren().getFirst());
-                break;
+            case PROPERTY -> writeItem(astNode, generator);
+            case VALUE -> writeScalar(astNode.getValueType(), astNode.getValue(), generator);
+            default -> generator.writeNull();
+        }
+    }
+
+    private void writeNode(CompactAst ast, int node, JsonGenerator generator) throws IOException {
+        switch (ast.getType(node)) {
+            case OBJECT -> {
+                generator.writeStartObject();
+                for (int child = ast.getFirstChild(node); child != CompactAst.NONE; child = ast.getNextSibling(child)) {
+                    generator.writeFieldName(String.valueOf(ast.getKey(child)));
+                    writeNode(ast, child, generator);
+                }
+                generator.writeEndObject();
             }
-            case VALUE: {
-                try {
-                    result = switch (astNode.getValueType()) {
-                        case STRING -> astNode.getValue();
-                        case INTEGER -> Integer.valueOf(astNode.getValue());
-                        case FLOAT -> Float.valueOf(astNode.getValue());
-                        case BOOLEAN -> Boolean.valueOf(astNode.getValue());
-                        case NULL -> null;
-                        case BLOCK -> astNode.getValue();
-                        case TIMESTAMP -> astNode.getValue();
-                    };
-                } catch (NumberFormatException _) {
-                    result = astNode.getValue();
+            case ARRAY -> {
+                generator.writeStartArray();
+                for (int child = ast.getFirstChild(node); child != CompactAst.NONE; child = ast.getNextSibling(child)) {
+                    writeNode(ast, child, generator);
                 }
-                break;
+                generator.writeEndArray();
             }
-            case DOCUMENT:
-                AstNode firstChildNode = astNode.getChildren().stream()
-                    .filter(childNode -> childNode.getType() != AstNode.Type.COMMENT)
-                    .findFirst()
-                    .orElse(null);
-                result = firstChildNode != null ? buildNode(firstChildNode) : null;
-                break;
-            case COMMENT, ALIAS:
-                result = null;
-                break;
+            case VALUE -> writeScalar(ast.getValueType(node), ast.getValue(node), generator);
+            default -> generator.writeNull();
         }
-
-        return result;
     }
 
-    private record MapEntry (String key, Object value) {
-        public static MapEntry of (String key, Object value) {
-            return new MapEntry(key, value);
+    private void writeScalar(AstNode.@Nullable ValueType valueType, @Nullable String value, JsonGenerator generator)
+        throws IOException {
+
+        if (value == null || valueType == AstNode.ValueType.NULL) {
+            generator.writeNull();
+            return;
+        }
+
+        switch (valueType) {
+            case INTEGER, FLOAT -> {
+                // YAML numbers like 0x1F or .inf aren't JSON numbers, those are written as strings
+                String number = value.startsWith("+") ? value.substring(1) : value;
+                if (!JSON_NUMBER.matcher(number).matches()) {
+                    number = TRAILING_POINT.matcher(LEADING_POINT.matcher(number).replaceFirst("$10."))
+                        .replaceFirst(".0");
+                }
+                if (JSON_NUMBER.matcher(number).matches()) {
+                    generator.writeNumber(number);
+                } else {
+                    generator.writeString(value);
+                }
+            }
+            case BOOLEAN -> generator.writeBoolean(Boolean.parseBoolean(value));
+            case null, default -> generator.writeString(value);
         }
     }
 }
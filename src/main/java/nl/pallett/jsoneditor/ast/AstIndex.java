@@ -1,40 +1,280 @@
 package nl.pallett.jsoneditor.ast;
 
-import java.util.ArrayList;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.List;
+import java.util.function.Predicate;
 
+/**
+ * Offset index of an AST, used to find the node at the caret. Node spans are nested, so a lookup descends
+ * from the root through the children containing the offset (found with a binary search), which takes
+ * O(log n + depth) instead of visiting every node.
+ * <p>
+ * The span of a property covers its key and its value. Sibling spans may touch, so an offset on the boundary
+ * can be contained by two siblings: then both are searched.
+ * <p>
+ * The parsers fill a {@link Builder} while they create the nodes, so the index is ready together with the AST.
+ */
 public class AstIndex {
 
-    private final List<AstNode> nodes = new ArrayList<>();
+    private static final int NONE = -1;
+
+    /**
+     * Nodes in pre-order, the root has id 0
+     */
+    private final AstNode[] nodes;
+
+    private final int[] starts;
+
+    private final int[] ends;
+
+    /**
+     * Span of a node including all its descendants, children don't always lie within the span of their parent
+     */
+    private final int[] subtreeStarts;
+
+    private final int[] subtreeEnds;
+
+    /**
+     * Children of node i are children[childOffsets[i]] up to children[childOffsets[i + 1]], ordered by subtree start
+     */
+    private final int[] childOffsets;
+
+    private final int[] children;
+
+    /**
+     * Largest subtree end of the children up to and including this one, to know when to stop searching backwards
+     */
+    private final int[] maxSubtreeEnds;
 
-    public void index(AstNode root) {
-        walk(root);
-        nodes.sort(Comparator.comparingInt(AstNode::getStartOffset));
+    /**
+     * Indexes an existing tree, for trees that weren't created by a parser filling a {@link Builder}
+     */
+    public AstIndex(AstNode root) {
+        this(new Builder().addTree(root));
     }
 
-    private void walk(AstNode node) {
-        nodes.add(node);
-        node.getChildren().forEach(this::walk);
+    private AstIndex(Builder builder) {
+        int size = builder.size;
+        int[] parents = builder.parents;
+
+        nodes = Arrays.copyOf(builder.nodes, size);
+        starts = new int[size];
+        ends = new int[size];
+        childOffsets = new int[size + 1];
+        children = new int[Math.max(0, size - 1)];
+        maxSubtreeEnds = new int[children.length];
+
+        for (int id = 0; id < size; id++) {
+            starts[id] = nodes[id].startOffset;
+            ends[id] = nodes[id].endOffset;
+        }
+
+        // children follow their parent in pre-order, so their ranges are in the same order as the ids
+        for (int id = 1; id < size; id++) {
+            childOffsets[parents[id] + 1]++;
+        }
+        for (int id = 0; id < size; id++) {
+            childOffsets[id + 1] += childOffsets[id];
+        }
+        int[] nextChild = Arrays.copyOf(childOffsets, size);
+        for (int id = 1; id < size; id++) {
+            children[nextChild[parents[id]]++] = id;
+        }
+
+        // descendants have larger ids, so walking backwards completes a subtree before it reaches the parent
+        subtreeStarts = Arrays.copyOf(starts, size);
+        subtreeEnds = Arrays.copyOf(ends, size);
+        for (int id = size - 1; id > 0; id--) {
+            int parent = parents[id];
+            subtreeStarts[parent] = Math.min(subtreeStarts[parent], subtreeStarts[id]);
+            subtreeEnds[parent] = Math.max(subtreeEnds[parent], subtreeEnds[id]);
+        }
+
+        for (int id = 0; id < size; id++) {
+            if (nodes[id].getType() == AstNode.Type.PROPERTY) {
+                ends[id] = subtreeEnds[id];
+            }
+
+            int first = childOffsets[id];
+            int last = childOffsets[id + 1];
+            sortChildren(first, last);
+
+            int maxEnd = Integer.MIN_VALUE;
+            for (int i = first; i < last; i++) {
+                maxEnd = Math.max(maxEnd, subtreeEnds[children[i]]);
+                maxSubtreeEnds[i] = maxEnd;
+            }
+        }
     }
 
-    public AstNode findNode(int offset) {
+    public int size() {
+        return nodes.length;
+    }
 
-        AstNode best = null;
+    /**
+     * @return smallest node containing the offset
+     */
+    public @Nullable AstNode findNode(int offset) {
+        return findNode(offset, node -> true);
+    }
 
-        for (AstNode node : nodes) {
+    /**
+     * @return smallest node containing the offset which matches the filter, used to skip nodes that aren't shown
+     */
+    public @Nullable AstNode findNode(int offset, Predicate<AstNode> filter) {
+        if (nodes.length == 0 || offset < subtreeStarts[0] || offset > subtreeEnds[0]) {
+            return null;
+        }
 
-            if (node.contains(offset)) {
+        int found = find(0, offset, filter, NONE);
+        return (found == NONE) ? null : nodes[found];
+    }
+
+    private int find(int id, int offset, Predicate<AstNode> filter, int best) {
+        // deeper nodes win from ancestors with the same span
+        if (starts[id] <= offset && offset <= ends[id] && filter.test(nodes[id])
+            && (best == NONE || ends[id] - starts[id] <= ends[best] - starts[best])) {
+            best = id;
+        }
 
-                if (best == null ||
-                        (node.getEndOffset() - node.getStartOffset()) <
-                                (best.getEndOffset() - best.getStartOffset())) {
+        int first = childOffsets[id];
+        int last = lastChildStartingAtOrBefore(first, childOffsets[id + 1], offset);
 
-                    best = node;
-                }
+        for (int i = last; i >= first && maxSubtreeEnds[i] >= offset; i--) {
+            int child = children[i];
+            if (subtreeEnds[child] >= offset) {
+                best = find(child, offset, filter, best);
             }
         }
 
         return best;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return position in the children array, or from - 1 when no child starts at or before the offset
+     */
+    private int lastChildStartingAtOrBefore(int from, int to, int offset) {
+        int low = from;
+        int high = to - 1;
+        int found = from - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (subtreeStarts[children[mid]] <= offset) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Children are in document order already, except for the odd out-of-order node
+     */
+    private void sortChildren(int first, int last) {
+        for (int i = first + 1; i < last; i++) {
+            if (subtreeStarts[children[i - 1]] > subtreeStarts[children[i]]) {
+                Integer[] sorted = new Integer[last - first];
+                for (int j = first; j < last; j++) {
+                    sorted[j - first] = children[j];
+                }
+                Arrays.sort(sorted, Comparator.comparingInt(child -> subtreeStarts[child]));
+                for (int j = first; j < last; j++) {
+                    children[j] = sorted[j - first];
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Collects the nodes of a tree in the order a parser creates them. Every node is added when it is attached
+     * to its parent, containers are entered when the parser descends into them and exited when they are done.
+     * The first node added is the root. Offsets are read when the index is built, so nodes may still be moved
+     * after they are added.
+     */
+    public static class Builder {
+
+        private AstNode[] nodes = new AstNode[1024];
+
+        private int[] parents = new int[1024];
+
+        private int size = 0;
+
+        /**
+         * Ids of the entered nodes, the last one is the parent of the next node added
+         */
+        private int[] path = new int[64];
+
+        private int depth = 0;
+
+        public void add(AstNode node) {
+            if (size == nodes.length) {
+                int capacity = size + (size >> 1);
+                nodes = Arrays.copyOf(nodes, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+            }
+
+            nodes[size] = node;
+            parents[size] = (depth == 0) ? NONE : path[depth - 1];
+            size++;
+        }
+
+        /**
+         * Makes the node added last the parent of the next nodes
+         */
+        public void enter() {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth++] = size - 1;
+        }
+
+        public void exit() {
+            depth--;
+        }
+
+        public Builder addTree(AstNode node) {
+            add(node);
+            if (!node.getChildren().isEmpty()) {
+                enter();
+                node.getChildren().forEach(this::addTree);
+                exit();
+            }
+            return this;
+        }
+
+        /**
+         * Adds the nodes of another builder, starting from the given id, used to combine the results of parsers
+         * that parsed parts of a document. Nodes whose parent comes before the id become children of the node
+         * entered last.
+         */
+        public void append(Builder other, int from) {
+            int base = size - from;
+            int parent = (depth == 0) ? NONE : path[depth - 1];
+
+            for (int id = from; id < other.size; id++) {
+                add(other.nodes[id]);
+                int otherParent = other.parents[id];
+                parents[size - 1] = (otherParent < from) ? parent : otherParent + base;
+            }
+        }
+
+        public void clear() {
+            Arrays.fill(nodes, 0, size, null);
+            size = 0;
+            depth = 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public AstIndex build() {
+            return new AstIndex(this);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package nl.pallett.jsoneditor.ast;
 
+import nl.pallett.jsoneditor.util.StringUtil;
 import org.jspecify.annotations.Nullable;
 
 import java.util.ArrayList;
@@ -48,7 +49,7 @@ public class AstNode {
 
     private String key;
     private String value;
-    private List<PointerType> pointer;
+    private @Nullable NodePointer pointer;
 
     public int startOffset;
     public int endOffset;
@@ -59,7 +60,7 @@ public class AstNode {
     public int endLine;
     public int endColumn;
 
-    private AstNode parent;
+    private @Nullable AstNode parent;
 
     private String anchor;
     private String alias;
@@ -72,6 +73,19 @@ public class AstNode {
 
     private @Nullable Integer arraySize = null;
 
+    /**
+     * When set, the value is only sliced from the source text when it is asked for
+     */
+    private @Nullable SourceText source = null;
+
+    /**
+     * Node to take the value from, for merged copies of a node with a lazy value
+     */
+    private @Nullable AstNode valueHolder = null;
+
+    /**
+     * Copies the node without its children, which stay attached to the original
+     */
     public static AstNode copyOf(AstNode original) {
         AstNode copy = new AstNode(original.getType(), original.getKey(), original.getValue());
         copy.setValueType(original.getValueType());
@@ -86,7 +100,6 @@ public class AstNode {
         copy.setPointer(original.getPointer());
         copy.setArrayIndex(original.getArrayIndex());
         copy.setArraySize(original.getArraySize());
-        original.getChildren().forEach(copy::addChild);
         return copy;
     }
 
@@ -105,15 +118,22 @@ public class AstNode {
         return children;
     }
 
+    /**
+     * @return node this node was last added to as a child, null for the root
+     */
+    public @Nullable AstNode getParent() {
+        return parent;
+    }
+
     public Type getType() {
         return type;
     }
 
-    public void setPointer(List<PointerType> pointerList) {
-        this.pointer = pointerList;
+    public void setPointer(@Nullable NodePointer pointer) {
+        this.pointer = pointer;
     }
 
-    public List<PointerType> getPointer() {
+    public @Nullable NodePointer getPointer() {
         return pointer;
     }
 
@@ -158,9 +178,47 @@ public class AstNode {
     }
 
     public String getValue() {
+        if (value == null) {
+            if (valueHolder != null) {
+                value = valueHolder.getValue();
+            } else if (source != null && type == Type.VALUE) {
+                value = decodeValue(source.getText());
+            }
+        }
         return value;
     }
 
+    public void setSource(@Nullable SourceText source) {
+        this.source = source;
+    }
+
+    public @Nullable SourceText getSource() {
+        return source;
+    }
+
+    /**
+     * Takes the value from the given node, without decoding it if it hasn't been yet
+     */
+    public void setValueFrom(AstNode other) {
+        if (other.value != null || (other.source == null && other.valueHolder == null)) {
+            this.value = other.value;
+        } else {
+            this.valueHolder = other;
+        }
+    }
+
+    private @Nullable String decodeValue(String text) {
+        if (valueType == null || valueType == ValueType.NULL) {
+            return null;
+        }
+
+        if (valueType == ValueType.STRING) {
+            return StringUtil.decodeJsonString(text, startOffset);
+        }
+
+        return text.substring(startOffset, endOffset);
+    }
+
     public void setArrayIndex (@Nullable Integer arrayIndex) {
         this.arrayIndex = arrayIndex;
     }
@@ -190,7 +248,7 @@ public class AstNode {
     }
 
     public boolean hasPointer() {
-        return this.pointer != null && !this.pointer.isEmpty();
+        return this.pointer != null;
     }
 
     public boolean hasChildren() {
@@ -206,24 +264,7 @@ public class AstNode {
             return null;
         }
 
-        List<PointerType> filtered = this.pointer.stream()
-            .filter(p -> !(p instanceof NullPointer))
-            .toList();
-
-        StringBuilder sb = new StringBuilder();
-        sb.append(((FieldPointer)filtered.getFirst()).fieldName()); // root node
-
-        for(int i=1; i < filtered.size(); i++) {
-            PointerType currPointer = filtered.get(i);
-
-            if (currPointer instanceof ArrayIndexPointer(int index)) {
-                sb.append("[").append(index).append("]");
-            } else if (currPointer instanceof FieldPointer(String fieldName)) {
-                sb.append(".").append(fieldName);
-            }
-        }
-
-        return sb.toString();
+        return this.pointer.toJsonPath();
     }
 
     @Override
@@ -0,0 +1,338 @@
+package nl.pallett.jsoneditor.ast;
+
+import nl.pallett.jsoneditor.util.StringUtil;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Memory-efficient AST for very large JSON documents. Instead of an {@link AstNode} object per node,
+ * all node data is stored in primitive columns indexed by node number. Nodes are stored in document
+ * order, so the start offsets are ascending. Keys and values are not stored but decoded from the
+ * source text when asked for.
+ * <p>
+ * Unlike the regular AST there are no PROPERTY nodes: the key is stored on the value node itself.
+ * Use {@link #toAstNode(int)} to get a (detached) {@link AstNode} for a single node.
+ */
+public class CompactAst {
+
+    public static final int NONE = -1;
+
+    private static final AstNode.Type[] TYPES = AstNode.Type.values();
+
+    private static final AstNode.ValueType[] VALUE_TYPES = AstNode.ValueType.values();
+
+    private final String text;
+
+    private int size = 0;
+
+    private byte[] types;
+
+    /**
+     * Ordinal of the value type + 1, 0 when not a value
+     */
+    private byte[] valueTypes;
+
+    /**
+     * Offset of the opening quote of the key, {@link #NONE} when the node has no key
+     */
+    private int[] keyOffsets;
+
+    private int[] startOffsets;
+
+    private int[] endOffsets;
+
+    private int[] parents;
+
+    private int[] firstChildren;
+
+    private int[] nextSiblings;
+
+    /**
+     * Position of the node between its siblings (array index for array items)
+     */
+    private int[] indexes;
+
+    private int[] childCounts;
+
+    /**
+     * Only used while building, to append children in constant time
+     */
+    private int @Nullable [] lastChildren;
+
+    private @Nullable LineIndex lineIndex = null;
+
+    public CompactAst(String text, int expectedSize) {
+        this.text = text;
+
+        int capacity = Math.max(16, expectedSize);
+        types = new byte[capacity];
+        valueTypes = new byte[capacity];
+        keyOffsets = new int[capacity];
+        startOffsets = new int[capacity];
+        endOffsets = new int[capacity];
+        parents = new int[capacity];
+        firstChildren = new int[capacity];
+        nextSiblings = new int[capacity];
+        indexes = new int[capacity];
+        childCounts = new int[capacity];
+        lastChildren = new int[capacity];
+
+        addNode(AstNode.Type.DUMMY_ROOT, NONE, NONE, 0);
+        endOffsets[0] = text.length();
+    }
+
+    public int root() {
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int addNode(AstNode.Type type, int parent, int keyOffset, int startOffset) {
+        if (size == types.length) {
+            grow();
+        }
+
+        int node = size++;
+        types[node] = (byte) type.ordinal();
+        keyOffsets[node] = keyOffset;
+        startOffsets[node] = startOffset;
+        endOffsets[node] = startOffset;
+        parents[node] = parent;
+        firstChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+        lastChildren[node] = NONE;
+
+        if (parent != NONE) {
+            int previous = lastChildren[parent];
+            if (previous == NONE) {
+                firstChildren[parent] = node;
+            } else {
+                nextSiblings[previous] = node;
+            }
+            lastChildren[parent] = node;
+            indexes[node] = childCounts[parent]++;
+        }
+
+        return node;
+    }
+
+    public void setValueType(int node, AstNode.ValueType valueType) {
+        valueTypes[node] = (byte) (valueType.ordinal() + 1);
+    }
+
+    public void setEndOffset(int node, int endOffset) {
+        endOffsets[node] = endOffset;
+    }
+
+    /**
+     * Releases unused capacity, to be called when building is finished
+     */
+    public void trim() {
+        types = Arrays.copyOf(types, size);
+        valueTypes = Arrays.copyOf(valueTypes, size);
+        keyOffsets = Arrays.copyOf(keyOffsets, size);
+        startOffsets = Arrays.copyOf(startOffsets, size);
+        endOffsets = Arrays.copyOf(endOffsets, size);
+        parents = Arrays.copyOf(parents, size);
+        firstChildren = Arrays.copyOf(firstChildren, size);
+        nextSiblings = Arrays.copyOf(nextSiblings, size);
+        indexes = Arrays.copyOf(indexes, size);
+        childCounts = Arrays.copyOf(childCounts, size);
+        lastChildren = null;
+    }
+
+    public AstNode.Type getType(int node) {
+        return TYPES[types[node]];
+    }
+
+    public AstNode.@Nullable ValueType getValueType(int node) {
+        return valueTypes[node] == 0 ? null : VALUE_TYPES[valueTypes[node] - 1];
+    }
+
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int getNextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    public int getChildCount(int node) {
+        return childCounts[node];
+    }
+
+    public int getIndex(int node) {
+        return indexes[node];
+    }
+
+    public boolean isArrayItem(int node) {
+        return parents[node] != NONE && getType(parents[node]) == AstNode.Type.ARRAY;
+    }
+
+    public boolean hasKey(int node) {
+        return keyOffsets[node] != NONE;
+    }
+
+    /**
+     * Start of the node including its key (if any)
+     */
+    public int getStartOffset(int node) {
+        return hasKey(node) ? keyOffsets[node] : startOffsets[node];
+    }
+
+    public int getValueStartOffset(int node) {
+        return startOffsets[node];
+    }
+
+    public int getEndOffset(int node) {
+        return endOffsets[node];
+    }
+
+    public @Nullable String getKey(int node) {
+        return hasKey(node) ? StringUtil.decodeJsonString(text, keyOffsets[node]) : null;
+    }
+
+    public @Nullable String getValue(int node) {
+        AstNode.ValueType valueType = getValueType(node);
+        if (valueType == null || valueType == AstNode.ValueType.NULL) {
+            return null;
+        }
+
+        if (valueType == AstNode.ValueType.STRING) {
+            return StringUtil.decodeJsonString(text, startOffsets[node]);
+        }
+
+        return text.substring(startOffsets[node], endOffsets[node]);
+    }
+
+    /**
+     * Builds the pointer from the root, every call creates a new chain. When walking down the tree extend the
+     * pointer of the parent with {@link #getSegment(int)} instead.
+     */
+    public @Nullable NodePointer getPointer(int node) {
+        int parent = parents[node];
+        if (parent == NONE) {
+            return null;
+        }
+
+        NodePointer parentPointer = (parent == root()) ? NodePointer.ROOT : getPointer(parent);
+        return parentPointer.child(getSegment(node));
+    }
+
+    /**
+     * @return the last segment of the pointer of the node
+     */
+    public PointerType getSegment(int node) {
+        if (isArrayItem(node)) {
+            return new ArrayIndexPointer(indexes[node]);
+        }
+        return PointerType.fieldOrNullPointer(getKey(node));
+    }
+
+    /**
+     * Finds the deepest node which contains the given offset
+     */
+    public int findDeepest(int offset) {
+        // nodes are in document order, so find the last node starting at or before the offset
+        int low = 1;
+        int high = size - 1;
+        int found = NONE;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (getStartOffset(mid) <= offset) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        // the containing node is that node or one of its ancestors
+        int node = found;
+        while (node != NONE && node != root()) {
+            if (getStartOffset(node) <= offset && offset <= endOffsets[node]) {
+                return node;
+            }
+            node = parents[node];
+        }
+
+        return NONE;
+    }
+
+    public int getLine(int offset) {
+        return getLineIndex().getLine(offset);
+    }
+
+    public int getColumn(int offset) {
+        return getLineIndex().getColumn(offset);
+    }
+
+    /**
+     * Creates a detached {@link AstNode} (without children) for a single node
+     */
+    public AstNode toAstNode(int node) {
+        return toAstNode(node, getPointer(node));
+    }
+
+    /**
+     * @param pointer pointer of the node, built from the pointer of its parent
+     */
+    public AstNode toAstNode(int node, @Nullable NodePointer pointer) {
+        AstNode astNode = new AstNode(getType(node), getKey(node), getValue(node));
+        astNode.setValueType(getValueType(node));
+        astNode.setPointer(pointer);
+
+        if (node != root()) {
+            astNode.startOffset = getStartOffset(node);
+            astNode.startLine = getLine(astNode.startOffset);
+            astNode.startColumn = getColumn(astNode.startOffset);
+            astNode.endOffset = endOffsets[node];
+            astNode.endLine = getLine(astNode.endOffset);
+            astNode.endColumn = getColumn(astNode.endOffset);
+        }
+
+        if (isArrayItem(node)) {
+            astNode.setArrayIndex(indexes[node]);
+        }
+        if (getType(node) == AstNode.Type.ARRAY) {
+            astNode.setArraySize(childCounts[node]);
+        }
+
+        return astNode;
+    }
+
+    private LineIndex getLineIndex() {
+        LineIndex index = lineIndex;
+        if (index == null) {
+            index = new LineIndex(text);
+            lineIndex = index;
+        }
+        return index;
+    }
+
+    private void grow() {
+        int capacity = types.length + (types.length >> 1);
+        types = Arrays.copyOf(types, capacity);
+        valueTypes = Arrays.copyOf(valueTypes, capacity);
+        keyOffsets = Arrays.copyOf(keyOffsets, capacity);
+        startOffsets = Arrays.copyOf(startOffsets, capacity);
+        endOffsets = Arrays.copyOf(endOffsets, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        indexes = Arrays.copyOf(indexes, capacity);
+        childCounts = Arrays.copyOf(childCounts, capacity);
+        lastChildren = Arrays.copyOf(lastChildren, capacity);
+    }
+}
@@ -0,0 +1,58 @@
+package nl.pallett.jsoneditor.ast;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Symbol table for property keys, so every occurrence of a key shares a single String instance.
+ * Can be shared between parsers running on different threads.
+ */
+public class KeyTable {
+
+    /**
+     * Once this many distinct keys are stored, new keys are no longer added
+     */
+    private static final int MAX_SIZE = 1 << 20;
+
+    private final ConcurrentHashMap<String, String> keys = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    public KeyTable() {
+        this(MAX_SIZE);
+    }
+
+    KeyTable(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public @Nullable String canonicalize(@Nullable String key) {
+        if (key == null) {
+            return null;
+        }
+
+        String existing = keys.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (keys.size() >= maxSize) {
+            return key;
+        }
+
+        existing = keys.putIfAbsent(key, key);
+        return existing != null ? existing : key;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Forgets all keys, nodes parsed before keep their instances
+     */
+    public void clear() {
+        keys.clear();
+    }
+}
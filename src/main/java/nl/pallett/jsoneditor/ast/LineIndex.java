@@ -0,0 +1,94 @@
+package nl.pallett.jsoneditor.ast;
+
+import java.util.Arrays;
+
+/**
+ * Start offsets of the lines of a text, so converting between offsets and line/column is a binary search.
+ * After an edit only the line starts in the edited range are replaced and the ones after it are shifted,
+ * instead of scanning the whole text again. Lines end with '\n', lines and columns are 1-based.
+ */
+public class LineIndex {
+
+    /**
+     * Start offsets of the lines, only the first lineCount are in use
+     */
+    private int[] starts;
+
+    private int lineCount;
+
+    public LineIndex(CharSequence text) {
+        starts = new int[Math.max(16, countLineBreaks(text, 0, text.length()) + 1)];
+        lineCount = 1;
+        lineCount += addLineStarts(text, 0, text.length(), 1);
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int getLine(int offset) {
+        int index = Arrays.binarySearch(starts, 0, lineCount, offset);
+        return (index >= 0 ? index : -index - 2) + 1;
+    }
+
+    public int getColumn(int offset) {
+        return offset - starts[getLine(offset) - 1] + 1;
+    }
+
+    public int getLineStart(int line) {
+        return starts[line - 1];
+    }
+
+    /**
+     * Patches the line starts after the text in [offset, offset + removedLength) was replaced by the text in
+     * [offset, offset + insertedLength) of the new text
+     */
+    public void update(CharSequence newText, int offset, int removedLength, int insertedLength) {
+        // lines starting in (offset, offset + removedLength] started after a removed line break
+        int first = firstLineStartingAfter(offset);
+        int last = firstLineStartingAfter(offset + removedLength);
+
+        int inserted = countLineBreaks(newText, offset, offset + insertedLength);
+        int newLineCount = lineCount - (last - first) + inserted;
+        if (newLineCount > starts.length) {
+            starts = Arrays.copyOf(starts, Math.max(newLineCount, starts.length + (starts.length >> 1)));
+        }
+
+        int delta = insertedLength - removedLength;
+        System.arraycopy(starts, last, starts, first + inserted, lineCount - last);
+        for (int i = first + inserted; i < newLineCount; i++) {
+            starts[i] += delta;
+        }
+
+        addLineStarts(newText, offset, offset + insertedLength, first);
+        lineCount = newLineCount;
+    }
+
+    private int firstLineStartingAfter(int offset) {
+        int index = Arrays.binarySearch(starts, 0, lineCount, offset);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Writes the starts of the lines following the line breaks in the range, from the given position on
+     *
+     * @return number of line starts written
+     */
+    private int addLineStarts(CharSequence text, int from, int to, int position) {
+        int written = 0;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') {
+                starts[position + written++] = i + 1;
+            }
+        }
+        return written;
+    }
+
+    private static int countLineBreaks(CharSequence text, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,64 @@
+package nl.pallett.jsoneditor.ast;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Pointer to a node in the AST. Every node only holds its own segment and links to the pointer of
+ * its parent, so pointers of siblings share the same parent chain. The rendered JSON path is cached.
+ */
+public final class NodePointer {
+
+    public static final NodePointer ROOT = new NodePointer(null, new FieldPointer("$"));
+
+    private final @Nullable NodePointer parent;
+
+    private final PointerType segment;
+
+    private @Nullable String jsonPath = null;
+
+    private NodePointer(@Nullable NodePointer parent, PointerType segment) {
+        this.parent = parent;
+        this.segment = segment;
+    }
+
+    public NodePointer child(PointerType segment) {
+        return new NodePointer(this, segment);
+    }
+
+    public @Nullable NodePointer getParent() {
+        return parent;
+    }
+
+    public PointerType getSegment() {
+        return segment;
+    }
+
+    public String toJsonPath() {
+        String result = jsonPath;
+        if (result == null) {
+            result = render();
+            jsonPath = result;
+        }
+        return result;
+    }
+
+    private String render() {
+        if (parent == null) {
+            return (segment instanceof FieldPointer(String fieldName)) ? fieldName : "";
+        }
+
+        String parentPath = parent.toJsonPath();
+
+        return switch (segment) {
+            case ArrayIndexPointer(int index) -> parentPath + "[" + index + "]";
+            case FieldPointer(String fieldName) -> parentPath + "." + fieldName;
+            // nameless segments (root objects, documents) don't show up in the path
+            case NullPointer _, DocumentPointer _ -> parentPath;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return toJsonPath();
+    }
+}
@@ -0,0 +1,22 @@
+package nl.pallett.jsoneditor.ast;
+
+/**
+ * Text an AST was parsed from, shared by all nodes of that AST which decode their value on demand.
+ * Updated together with the node offsets when the AST is updated incrementally.
+ */
+public final class SourceText {
+
+    private String text;
+
+    public SourceText(String text) {
+        this.text = text;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+}
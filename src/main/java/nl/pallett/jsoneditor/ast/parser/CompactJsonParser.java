@@ -0,0 +1,81 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.CompactAst;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Parses JSON into a {@link CompactAst}, for documents too large to hold as {@link AstNode} objects
+ */
+public class CompactJsonParser {
+
+    private final JsonFactory factory = new JsonFactory();
+
+    public CompactAst parse(String text) throws IOException {
+        // rough guess of the number of nodes, the columns grow when needed
+        CompactAst ast = new CompactAst(text, text.length() / 64);
+
+        int current = ast.root();
+        int keyOffset = CompactAst.NONE;
+
+        try (JsonParser parser = factory.createParser(text)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                checkCancelled();
+
+                int startOffset = (int) parser.currentTokenLocation().getCharOffset();
+
+                switch (token) {
+                    case FIELD_NAME -> keyOffset = startOffset;
+
+                    case START_OBJECT, START_ARRAY -> {
+                        AstNode.Type type = (token == JsonToken.START_OBJECT) ? AstNode.Type.OBJECT : AstNode.Type.ARRAY;
+                        current = ast.addNode(type, current, keyOffset, startOffset);
+                        keyOffset = CompactAst.NONE;
+                    }
+
+                    case END_OBJECT, END_ARRAY -> {
+                        ast.setEndOffset(current, (int) parser.currentLocation().getCharOffset());
+                        current = ast.getParent(current);
+                    }
+
+                    default -> { // scalar values
+                        // strings with escapes are only read up to the end once finished
+                        if (token == JsonToken.VALUE_STRING) {
+                            parser.finishToken();
+                        }
+
+                        int node = ast.addNode(AstNode.Type.VALUE, current, keyOffset, startOffset);
+                        ast.setValueType(node, toValueType(token));
+                        ast.setEndOffset(node, (int) parser.currentLocation().getCharOffset());
+                        keyOffset = CompactAst.NONE;
+                    }
+                }
+            }
+        }
+
+        ast.trim();
+        return ast;
+    }
+
+    private void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Parsing was cancelled");
+        }
+    }
+
+    private AstNode.ValueType toValueType(JsonToken token) {
+        return switch (token) {
+            case VALUE_NUMBER_INT -> AstNode.ValueType.INTEGER;
+            case VALUE_NUMBER_FLOAT -> AstNode.ValueType.FLOAT;
+            case VALUE_TRUE, VALUE_FALSE -> AstNode.ValueType.BOOLEAN;
+            case VALUE_NULL -> AstNode.ValueType.NULL;
+            default -> AstNode.ValueType.STRING;
+        };
+    }
+}
@@ -1,9 +1,15 @@
 package nl.pallett.jsoneditor.ast.parser;
 
+import nl.pallett.jsoneditor.ast.AstIndex;
 import nl.pallett.jsoneditor.ast.AstNode;
 
 import java.io.IOException;
 
 public interface FormatParser {
     AstNode parse(String text) throws IOException;
+
+    /**
+     * Parses the text and adds the nodes to the index builder while they are created
+     */
+    AstNode parse(String text, AstIndex.Builder indexBuilder) throws IOException;
 }
@@ -0,0 +1,175 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.KeyTable;
+import nl.pallett.jsoneditor.ast.LineIndex;
+import nl.pallett.jsoneditor.ast.NodePointer;
+import nl.pallett.jsoneditor.ast.SourceText;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Updates an existing JSON Lines AST after an edit by re-parsing only the lines touched by the edit.
+ * Records on the following lines are shifted and, when the number of records changed, renumbered. The touched
+ * lines are found through the line index of the document, so an edit doesn't scan the text before it.
+ */
+public class IncrementalJsonLinesParser {
+
+    private final KeyTable keyTable;
+
+    public IncrementalJsonLinesParser() {
+        this(new KeyTable());
+    }
+
+    public IncrementalJsonLinesParser(KeyTable keyTable) {
+        this.keyTable = keyTable;
+    }
+
+    /**
+     * Invalid lines are left out of the tree and kept in the error list, which is patched together with the tree.
+     *
+     * @param errors errors of the invalid lines of the old text, ordered by line
+     * @param lineIndex line starts of the new text
+     * @return true when the tree and errors were updated in-place, false when a full parse is needed instead
+     */
+    public boolean reparse(AstNode root, List<JsonLinesException.LineError> errors, LineIndex lineIndex,
+                           String oldText, String newText, int editOffset, int removedLength, int insertedLength) {
+        int delta = insertedLength - removedLength;
+
+        int firstLine = lineIndex.getLine(editOffset);
+        int lastLine = lineIndex.getLine(editOffset + insertedLength);
+        int start = lineIndex.getLineStart(firstLine);
+        int newEnd = (lastLine < lineIndex.getLineCount()) ? lineIndex.getLineStart(lastLine + 1) - 1 : newText.length();
+        int oldEnd = newEnd - delta;
+
+        // the touched lines are parsed on the EDT, like the container of a JSON edit
+        if (newEnd - start > IncrementalJsonParser.MAX_REPARSE_LENGTH) {
+            return false;
+        }
+
+        int lineDelta = (lastLine - firstLine) - countLineBreaks(oldText, start, oldEnd);
+        int oldLastLine = lastLine - lineDelta;
+
+        // every non-blank line is either a record or an error, so together they tell the index of the first line
+        List<AstNode> records = root.getChildren();
+        int first = firstRecordStartingAfter(records, start - 1);
+        int last = firstRecordStartingAfter(records, oldEnd);
+        int firstError = firstErrorAfter(errors, firstLine - 1);
+        int lastError = firstErrorAfter(errors, oldLastLine);
+
+        SourceText source = root.getSource();
+        JsonLinesParser parser = new JsonLinesParser(source != null, keyTable);
+
+        List<AstNode> reparsed = new ArrayList<>();
+        List<JsonLinesException.LineError> reparsedErrors = new ArrayList<>();
+        parser.parseChunk(newText, new JsonLinesParser.Chunk(start, newEnd, firstLine, first + firstError), source,
+            reparsed, reparsedErrors);
+
+        if (source != null) {
+            source.setText(newText);
+        }
+
+        int indexDelta = (reparsed.size() + reparsedErrors.size()) - ((last - first) + (lastError - firstError));
+
+        List<AstNode> following = new ArrayList<>(records.subList(last, records.size()));
+        for (AstNode record : following) {
+            shift(record, delta, lineDelta);
+
+            if (indexDelta != 0) {
+                int index = record.getArrayIndex() + indexDelta;
+                record.setArrayIndex(index);
+                rebasePointers(record, record.getPointer(), JsonLinesParser.pointerFor(index));
+            }
+        }
+
+        List<AstNode> updated = new ArrayList<>(records.subList(0, first));
+        updated.addAll(reparsed);
+        updated.addAll(following);
+
+        records.clear();
+        updated.forEach(root::addChild);
+
+        if (lineDelta != 0) {
+            for (int i = lastError; i < errors.size(); i++) {
+                JsonLinesException.LineError error = errors.get(i);
+                errors.set(i, new JsonLinesException.LineError(error.line() + lineDelta, error.column(), error.message()));
+            }
+        }
+        errors.subList(firstError, lastError).clear();
+        errors.addAll(firstError, reparsedErrors);
+
+        return true;
+    }
+
+    /**
+     * @return index of the first record starting after the offset
+     */
+    private static int firstRecordStartingAfter(List<AstNode> records, int offset) {
+        int low = 0;
+        int high = records.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (records.get(middle).startOffset <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the first error after the line
+     */
+    private static int firstErrorAfter(List<JsonLinesException.LineError> errors, int line) {
+        int low = 0;
+        int high = errors.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (errors.get(middle).line() <= line) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void shift(AstNode node, int offsetDelta, int lineDelta) {
+        node.startOffset += offsetDelta;
+        node.startLine += lineDelta;
+        node.endOffset += offsetDelta;
+        node.endLine += lineDelta;
+
+        for (AstNode child : node.getChildren()) {
+            shift(child, offsetDelta, lineDelta);
+        }
+    }
+
+    private void rebasePointers(AstNode record, NodePointer from, NodePointer to) {
+        IdentityHashMap<NodePointer, NodePointer> rebased = new IdentityHashMap<>();
+        rebasePointers(record, from, to, rebased);
+    }
+
+    private void rebasePointers(AstNode node, NodePointer from, NodePointer to, IdentityHashMap<NodePointer, NodePointer> rebased) {
+        if (node.hasPointer()) {
+            node.setPointer(JsonLinesParser.rebase(node.getPointer(), from, to, rebased));
+        }
+
+        for (AstNode child : node.getChildren()) {
+            rebasePointers(child, from, to, rebased);
+        }
+    }
+
+    private static int countLineBreaks(String text, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
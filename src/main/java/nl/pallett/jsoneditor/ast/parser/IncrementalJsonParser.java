@@ -0,0 +1,236 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.KeyTable;
+import nl.pallett.jsoneditor.ast.NodePointer;
+import nl.pallett.jsoneditor.ast.SourceText;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Updates an existing JSON AST after a small edit by re-parsing only the smallest OBJECT/ARRAY that
+ * encloses the edit and splicing the result into the tree. Nodes after the edit are shifted.
+ */
+public class IncrementalJsonParser {
+
+    /**
+     * Re-parsing runs on the EDT, spans larger than this are left to a full (background) parse. Parsing 32 KB into
+     * nodes takes around a millisecond, well below the time of a frame.
+     */
+    static final int MAX_REPARSE_LENGTH = 32 * 1024;
+
+    private final KeyTable keyTable;
+
+    public IncrementalJsonParser() {
+        this(new KeyTable());
+    }
+
+    public IncrementalJsonParser(KeyTable keyTable) {
+        this.keyTable = keyTable;
+    }
+
+    /**
+     * @return true when the tree was updated in-place, false when a full parse is needed instead
+     */
+    public boolean reparse(AstNode root, String text, int editOffset, int removedLength, int insertedLength) {
+        int editEnd = editOffset + removedLength;
+        int delta = insertedLength - removedLength;
+
+        AstNode container = findEnclosingContainer(root, editOffset, editEnd);
+        if (container == null) {
+            return false;
+        }
+
+        int start = container.startOffset;
+        int end = container.endOffset + delta;
+        if (end - start > MAX_REPARSE_LENGTH || end > text.length()) {
+            return false;
+        }
+
+        SourceText source = root.getSource();
+
+        AstNode reparsed = parseSlice(text.substring(start, end), container.getType(), source != null);
+        if (reparsed == null) {
+            // edit broke the structure of the container
+            return false;
+        }
+
+        // lazy values of the whole tree are sliced from the new text from now on
+        if (source != null) {
+            source.setText(text);
+        }
+
+        relocate(reparsed, container, source);
+        rebasePointers(reparsed, reparsed.getPointer(), container.getPointer(), new IdentityHashMap<>());
+
+        Shift shift = new Shift(
+            container.endOffset,
+            container.endLine,
+            delta,
+            reparsed.endLine - container.endLine,
+            reparsed.endColumn - container.endColumn
+        );
+        shiftFollowingNodes(root, container, shift);
+
+        // splice: the container keeps its identity (key, pointer, array index) but gets the new contents
+        container.getChildren().clear();
+        new ArrayList<>(reparsed.getChildren()).forEach(container::addChild);
+        container.setArraySize(reparsed.getArraySize());
+        container.endOffset = reparsed.endOffset;
+        container.endLine = reparsed.endLine;
+        container.endColumn = reparsed.endColumn;
+
+        return true;
+    }
+
+    private @Nullable AstNode findEnclosingContainer(AstNode root, int editStart, int editEnd) {
+        AstNode best = null;
+        AstNode current = childContaining(root, editStart, editEnd);
+
+        while (current != null) {
+            best = current;
+            current = childContaining(current, editStart, editEnd);
+        }
+
+        return best;
+    }
+
+    /**
+     * Finds the OBJECT/ARRAY child (or property value) that contains the edit without touching its brackets
+     */
+    private @Nullable AstNode childContaining(AstNode node, int editStart, int editEnd) {
+        List<AstNode> children = node.getChildren();
+
+        // children are ordered by offset, find the last one starting before the edit
+        int low = 0;
+        int high = children.size() - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (children.get(mid).startOffset < editStart) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        if (found == -1) {
+            return null;
+        }
+
+        AstNode child = children.get(found);
+        if (child.getType() == AstNode.Type.PROPERTY && child.hasChildren()) {
+            child = child.getChildren().getFirst();
+        }
+
+        boolean isContainer = child.getType() == AstNode.Type.OBJECT || child.getType() == AstNode.Type.ARRAY;
+        if (isContainer && child.startOffset < editStart && editEnd < child.endOffset) {
+            return child;
+        }
+
+        return null;
+    }
+
+    private @Nullable AstNode parseSlice(String slice, AstNode.Type expectedType, boolean lazyValues) {
+        AstNode sliceRoot;
+        try {
+            sliceRoot = new JsonParserAdapter(lazyValues, keyTable).parse(slice);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+
+        if (sliceRoot.getChildren().size() != 1) {
+            return null;
+        }
+
+        AstNode reparsed = sliceRoot.getChildren().getFirst();
+        if (reparsed.getType() != expectedType || reparsed.startOffset != 0 || reparsed.endOffset != slice.length()) {
+            return null;
+        }
+
+        return reparsed;
+    }
+
+    /**
+     * Moves positions of a freshly parsed slice to the location of the container in the document
+     */
+    private void relocate(AstNode node, AstNode container, @Nullable SourceText source) {
+        int lineOffset = container.startLine - 1;
+        int columnOffset = container.startColumn - 1;
+
+        if (node.startLine == 1) node.startColumn += columnOffset;
+        node.startLine += lineOffset;
+        node.startOffset += container.startOffset;
+
+        if (node.endLine == 1) node.endColumn += columnOffset;
+        node.endLine += lineOffset;
+        node.endOffset += container.startOffset;
+
+        if (node.getSource() != null) {
+            node.setSource(source);
+        }
+
+        node.getChildren().forEach(child -> relocate(child, container, source));
+    }
+
+    /**
+     * Pointers of the slice hang below the (nameless) slice root, re-link those to the pointer of the container
+     */
+    private void rebasePointers(AstNode node, NodePointer sliceRoot, NodePointer target, Map<NodePointer, NodePointer> rebased) {
+        if (node.hasPointer()) {
+            node.setPointer(rebase(node.getPointer(), sliceRoot, target, rebased));
+        }
+
+        node.getChildren().forEach(child -> rebasePointers(child, sliceRoot, target, rebased));
+    }
+
+    private NodePointer rebase(NodePointer pointer, NodePointer sliceRoot, NodePointer target, Map<NodePointer, NodePointer> rebased) {
+        if (pointer == sliceRoot) {
+            return target;
+        }
+
+        NodePointer result = rebased.get(pointer);
+        if (result == null) {
+            result = rebase(pointer.getParent(), sliceRoot, target, rebased).child(pointer.getSegment());
+            rebased.put(pointer, result);
+        }
+        return result;
+    }
+
+    private void shiftFollowingNodes(AstNode node, AstNode container, Shift shift) {
+        if (node == container) {
+            return;
+        }
+
+        // nothing after the edit in here; property nodes don't span their object/array value
+        if (node.getType() != AstNode.Type.PROPERTY
+            && node.getType() != AstNode.Type.DUMMY_ROOT
+            && node.endOffset < shift.oldEnd) {
+            return;
+        }
+
+        if (node.startOffset >= shift.oldEnd) {
+            if (node.startLine == shift.oldEndLine) node.startColumn += shift.columnDelta;
+            node.startLine += shift.lineDelta;
+            node.startOffset += shift.offsetDelta;
+        }
+
+        if (node.endOffset >= shift.oldEnd) {
+            if (node.endLine == shift.oldEndLine) node.endColumn += shift.columnDelta;
+            node.endLine += shift.lineDelta;
+            node.endOffset += shift.offsetDelta;
+        }
+
+        for (AstNode child : node.getChildren()) {
+            shiftFollowingNodes(child, container, shift);
+        }
+    }
+
+    private record Shift(int oldEnd, int oldEndLine, int offsetDelta, int lineDelta, int columnDelta) {}
+}
@@ -0,0 +1,128 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.KeyTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Updates an existing YAML AST after an edit by re-parsing only the document(s) between the document
+ * start markers around the edit. Nodes of the following documents are shifted.
+ * <p>
+ * Documents are the smallest unit that is re-parsed, so in a stream with a single document every edit re-parses the
+ * whole document. Like JSON containers, documents larger than {@link IncrementalJsonParser#MAX_REPARSE_LENGTH} are
+ * left to a full (background) parse.
+ */
+public class IncrementalYamlParser {
+
+    private final KeyTable keyTable;
+
+    /**
+     * Split points of the last reparse with their position in the stream, so the next edit only measures the text
+     * from there instead of from the start of the stream
+     */
+    private final List<Anchor> anchors = new ArrayList<>();
+
+    /**
+     * @param text contents the position was measured in, the anchor only applies to edits of these contents
+     */
+    private record Anchor(String text, int offset, YamlDocuments.Extent extent) {}
+
+    public IncrementalYamlParser() {
+        this(new KeyTable());
+    }
+
+    public IncrementalYamlParser(KeyTable keyTable) {
+        this.keyTable = keyTable;
+    }
+
+    /**
+     * @return true when the tree was updated in-place, false when a full parse is needed instead
+     */
+    public boolean reparse(AstNode root, String oldText, String newText, int editOffset, int removedLength, int insertedLength) {
+        int delta = insertedLength - removedLength;
+
+        // the markers are outside the edit, so they are at the same place in the old text. The documents are parsed
+        // on the EDT, so the search stops at the reparse limit
+        int limit = IncrementalJsonParser.MAX_REPARSE_LENGTH;
+        int start = YamlDocuments.findDocumentStartBefore(newText, editOffset, limit);
+        int newEnd = (start < 0) ? -1 : YamlDocuments.findDocumentStartAfter(newText, editOffset + insertedLength, limit);
+        if (newEnd < 0 || newEnd - start > limit) {
+            return false;
+        }
+        int oldEnd = newEnd - delta;
+
+        // directives apply to the document after them, the ones before the reparsed documents are found right above
+        // their start
+        if (YamlDocuments.containsDirective(newText, start, newEnd) || YamlDocuments.isPrecededByDirective(newText, start)) {
+            return false;
+        }
+
+        AstNode reparsed;
+        try {
+            reparsed = new YamlParserAdapter(keyTable).parse(newText.substring(start, newEnd));
+        } catch (RuntimeException e) {
+            return false;
+        }
+
+        YamlDocuments.Extent before = measureBefore(oldText, newText, start);
+        YamlDocuments.Extent oldDocuments = YamlDocuments.measure(oldText, start, oldEnd);
+        YamlDocuments.Extent newDocuments = YamlDocuments.measure(newText, start, newEnd);
+
+        anchors.clear();
+        anchors.add(new Anchor(newText, start, before));
+        anchors.add(new Anchor(newText, newEnd, new YamlDocuments.Extent(before.lines() + newDocuments.lines(),
+            before.codePoints() + newDocuments.codePoints())));
+
+        int oldStartOffset = before.codePoints();
+        int oldEndOffset = before.codePoints() + oldDocuments.codePoints();
+
+        List<AstNode> oldChildren = new ArrayList<>(root.getChildren());
+        root.getChildren().clear();
+
+        for (AstNode child : oldChildren) {
+            if (child.startOffset < oldStartOffset) {
+                root.addChild(child);
+            }
+        }
+
+        for (AstNode node : new ArrayList<>(reparsed.getChildren())) {
+            YamlDocuments.shift(node, before.codePoints(), before.lines());
+            root.addChild(node);
+        }
+
+        for (AstNode child : oldChildren) {
+            if (child.startOffset >= oldEndOffset) {
+                YamlDocuments.shift(child,
+                    newDocuments.codePoints() - oldDocuments.codePoints(),
+                    newDocuments.lines() - oldDocuments.lines());
+                root.addChild(child);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Measures the stream up to the offset, from the closest anchor before it. The text before the reparsed
+     * documents didn't change, so anchors in the old text up to the offset are still valid.
+     */
+    private YamlDocuments.Extent measureBefore(String oldText, String newText, int offset) {
+        Anchor closest = null;
+        for (Anchor anchor : anchors) {
+            if (anchor.text() == oldText && anchor.offset() <= offset
+                && (closest == null || anchor.offset() > closest.offset())) {
+                closest = anchor;
+            }
+        }
+
+        if (closest == null) {
+            return YamlDocuments.measure(newText, 0, offset);
+        }
+
+        YamlDocuments.Extent extent = YamlDocuments.measure(newText, closest.offset(), offset);
+        return new YamlDocuments.Extent(closest.extent().lines() + extent.lines(),
+            closest.extent().codePoints() + extent.codePoints());
+    }
+}
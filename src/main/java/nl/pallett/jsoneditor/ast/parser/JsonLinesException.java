@@ -0,0 +1,40 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Thrown when one or more lines of a JSON Lines document are not valid JSON
+ */
+public class JsonLinesException extends IOException {
+
+    /**
+     * @param line 1-based line in the document
+     * @param column 1-based column in the line
+     */
+    public record LineError(int line, int column, String message) {}
+
+    private final List<LineError> errors;
+
+    public JsonLinesException(List<LineError> errors) {
+        super(describe(errors));
+        this.errors = List.copyOf(errors);
+    }
+
+    public List<LineError> getErrors() {
+        return errors;
+    }
+
+    public LineError getFirstError() {
+        return errors.getFirst();
+    }
+
+    private static String describe(List<LineError> errors) {
+        LineError first = errors.getFirst();
+        String message = "Line " + first.line() + ": " + first.message();
+        if (errors.size() > 1) {
+            message += " (and " + (errors.size() - 1) + " more invalid lines)";
+        }
+        return message;
+    }
+}
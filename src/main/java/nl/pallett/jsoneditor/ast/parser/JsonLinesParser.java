@@ -0,0 +1,346 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import nl.pallett.jsoneditor.ast.ArrayIndexPointer;
+import nl.pallett.jsoneditor.ast.AstIndex;
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.KeyTable;
+import nl.pallett.jsoneditor.ast.NodePointer;
+import nl.pallett.jsoneditor.ast.SourceText;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parses JSON Lines (NDJSON) documents: every non-blank line holds a single JSON value, which becomes a
+ * child of the DUMMY_ROOT with the index of the record as array index. Lines are parsed independently,
+ * larger documents in parallel on a {@link ForkJoinPool}. Invalid lines don't stop the parse but are
+ * left out of the tree and reported together in a {@link JsonLinesException}.
+ */
+public class JsonLinesParser implements FormatParser {
+
+    /**
+     * Smaller documents are parsed on the calling thread
+     */
+    public static final int PARALLEL_THRESHOLD = 256 * 1024;
+
+    private static final int MIN_CHUNK_LENGTH = 64 * 1024;
+
+    public record Result(AstNode root, @Nullable JsonLinesException exception) {}
+
+    /**
+     * Range of whole lines, with the line number and record index of the first line
+     */
+    record Chunk(int start, int end, int firstLine, int firstIndex) {}
+
+    private final boolean lazyValues;
+
+    private final KeyTable keyTable;
+
+    private final ForkJoinPool pool;
+
+    private final int threshold;
+
+    private final int minChunkLength;
+
+    public JsonLinesParser() {
+        this(false, new KeyTable());
+    }
+
+    public JsonLinesParser(boolean lazyValues, KeyTable keyTable) {
+        this(lazyValues, keyTable, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD, MIN_CHUNK_LENGTH);
+    }
+
+    JsonLinesParser(boolean lazyValues, KeyTable keyTable, ForkJoinPool pool, int threshold, int minChunkLength) {
+        this.lazyValues = lazyValues;
+        this.keyTable = keyTable;
+        this.pool = pool;
+        this.threshold = threshold;
+        this.minChunkLength = minChunkLength;
+    }
+
+    @Override
+    public AstNode parse(String text) throws IOException {
+        return parse(text, null);
+    }
+
+    @Override
+    public AstNode parse(String text, AstIndex.@Nullable Builder indexBuilder) throws IOException {
+        Result result = parseLines(text, indexBuilder);
+        if (result.exception() != null) {
+            throw result.exception();
+        }
+        return result.root();
+    }
+
+    /**
+     * Parses all lines, also when some of them are invalid
+     */
+    public Result parseLines(String text) {
+        return parseLines(text, null);
+    }
+
+    /**
+     * Parses all lines, also when some of them are invalid, and adds the nodes of the valid lines to the index builder
+     */
+    public Result parseLines(String text, AstIndex.@Nullable Builder indexBuilder) {
+        SourceText source = lazyValues ? new SourceText(text) : null;
+
+        AstNode root = new AstNode(AstNode.Type.DUMMY_ROOT, null, null);
+        root.setSource(source);
+
+        List<AstNode> records = new ArrayList<>();
+        List<JsonLinesException.LineError> errors = new ArrayList<>();
+
+        List<Chunk> chunks = (text.length() >= threshold) ? splitIntoChunks(text) : List.of(new Chunk(0, text.length(), 1, 0));
+        List<AstIndex.Builder> chunkIndexes = new ArrayList<>();
+        if (chunks.size() == 1) {
+            AstIndex.Builder chunkIndex = (indexBuilder != null) ? new AstIndex.Builder() : null;
+            parseChunk(text, chunks.getFirst(), source, records, errors, chunkIndex, () -> false);
+            if (chunkIndex != null) {
+                chunkIndexes.add(chunkIndex);
+            }
+        } else {
+            parseChunksInParallel(text, chunks, source, records, errors, indexBuilder != null ? chunkIndexes : null);
+        }
+
+        records.forEach(root::addChild);
+
+        if (indexBuilder != null) {
+            indexBuilder.add(root);
+            indexBuilder.enter();
+            chunkIndexes.forEach(chunkIndex -> indexBuilder.append(chunkIndex, 0));
+            indexBuilder.exit();
+        }
+
+        return new Result(root, errors.isEmpty() ? null : new JsonLinesException(errors));
+    }
+
+    /**
+     * Splits the text at line starts, counting lines and records so every chunk knows where it starts
+     */
+    List<Chunk> splitIntoChunks(String text) {
+        int chunkLength = Math.max(minChunkLength, text.length() / (pool.getParallelism() * 4));
+
+        List<Chunk> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        int chunkLine = 1;
+        int chunkIndex = 0;
+
+        int line = 1;
+        int records = 0;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = lineEnd(text, lineStart);
+            if (!isBlank(text, lineStart, lineEnd)) {
+                records++;
+            }
+            line++;
+            lineStart = lineEnd + 1;
+
+            if (lineStart - chunkStart >= chunkLength && lineStart < text.length()) {
+                chunks.add(new Chunk(chunkStart, lineStart, chunkLine, chunkIndex));
+                chunkStart = lineStart;
+                chunkLine = line;
+                chunkIndex = records;
+            }
+        }
+        chunks.add(new Chunk(chunkStart, text.length(), chunkLine, chunkIndex));
+
+        return chunks;
+    }
+
+    /**
+     * @param chunkIndexes when not null, receives the index builder of every chunk
+     */
+    private void parseChunksInParallel(String text, List<Chunk> chunks, @Nullable SourceText source,
+                                       List<AstNode> records, List<JsonLinesException.LineError> errors,
+                                       @Nullable List<AstIndex.Builder> chunkIndexes) {
+        record ChunkResult(List<AstNode> records, List<JsonLinesException.LineError> errors,
+                           AstIndex.@Nullable Builder index) {}
+
+        // cancel(true) doesn't interrupt a pool thread, the chunks check this flag instead
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<ForkJoinTask<ChunkResult>> tasks = new ArrayList<>(chunks.size());
+        for (Chunk chunk : chunks) {
+            tasks.add(pool.submit(() -> {
+                ChunkResult result = new ChunkResult(new ArrayList<>(), new ArrayList<>(),
+                    chunkIndexes != null ? new AstIndex.Builder() : null);
+                parseChunk(text, chunk, source, result.records(), result.errors(), result.index(), cancelled::get);
+                return result;
+            }));
+        }
+
+        try {
+            for (ForkJoinTask<ChunkResult> task : tasks) {
+                ChunkResult result = task.get();
+                records.addAll(result.records());
+                errors.addAll(result.errors());
+                if (chunkIndexes != null) {
+                    chunkIndexes.add(result.index());
+                }
+            }
+        } catch (InterruptedException e) {
+            throw new CancellationException("Parsing was cancelled");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to parse JSON lines", e.getCause());
+        } finally {
+            // stops the chunks that are still parsing when the parse ends early, after a complete parse there are none
+            cancelled.set(true);
+            tasks.forEach(task -> task.cancel(false));
+        }
+    }
+
+    void parseChunk(String text, Chunk chunk, @Nullable SourceText source,
+                    List<AstNode> records, List<JsonLinesException.LineError> errors) {
+        parseChunk(text, chunk, source, records, errors, null, () -> false);
+    }
+
+    /**
+     * Parses the lines of a chunk, adding the valid ones to the records and the others to the errors
+     *
+     * @param chunkIndex when not null, receives the nodes of the valid lines
+     * @param cancelled checked between lines and tokens, a chunk parsed on a pool thread isn't interrupted
+     */
+    void parseChunk(String text, Chunk chunk, @Nullable SourceText source,
+                    List<AstNode> records, List<JsonLinesException.LineError> errors,
+                    AstIndex.@Nullable Builder chunkIndex, BooleanSupplier cancelled) {
+        JsonParserAdapter adapter = new JsonParserAdapter(lazyValues, keyTable, cancelled);
+        AstIndex.Builder lineIndex = (chunkIndex != null) ? new AstIndex.Builder() : null;
+
+        int line = chunk.firstLine();
+        int index = chunk.firstIndex();
+        int lineStart = chunk.start();
+        while (lineStart < chunk.end()) {
+            checkCancelled(cancelled);
+
+            int lineEnd = Math.min(lineEnd(text, lineStart), chunk.end());
+            int contentEnd = (lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r') ? lineEnd - 1 : lineEnd;
+
+            if (!isBlank(text, lineStart, contentEnd)) {
+                if (lineIndex != null) {
+                    lineIndex.clear();
+                }
+                AstNode record = parseLine(adapter, text, lineStart, contentEnd, line, index, source, errors, lineIndex);
+                if (record != null) {
+                    records.add(record);
+                    if (chunkIndex != null) {
+                        // skip the root of the line
+                        chunkIndex.append(lineIndex, 1);
+                    }
+                }
+                index++;
+            }
+
+            line++;
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private @Nullable AstNode parseLine(JsonParserAdapter adapter, String text, int lineStart, int lineEnd, int line,
+                                        int index, @Nullable SourceText source, List<JsonLinesException.LineError> errors,
+                                        AstIndex.@Nullable Builder lineIndex) {
+        AstNode lineRoot;
+        try {
+            lineRoot = adapter.parse(text.substring(lineStart, lineEnd), lineIndex);
+        } catch (JsonProcessingException e) {
+            // a \r inside the line counts as a line break for the parser, but the error stays on the line of the record
+            // so the errors of an edited line can be found by its line number
+            JsonLocation location = e.getLocation();
+            errors.add(location != null && location.getLineNr() == 1
+                ? new JsonLinesException.LineError(line, location.getColumnNr(), e.getOriginalMessage())
+                : new JsonLinesException.LineError(line, 1, e.getOriginalMessage()));
+            return null;
+        } catch (IOException e) {
+            errors.add(new JsonLinesException.LineError(line, 1, e.getMessage()));
+            return null;
+        }
+
+        if (lineRoot.getChildren().size() != 1) {
+            int column = lineRoot.getChildren().size() > 1 ? lineRoot.getChildren().get(1).startColumn : 1;
+            errors.add(new JsonLinesException.LineError(line, column, "Expected a single JSON value per line"));
+            return null;
+        }
+
+        AstNode record = lineRoot.getChildren().getFirst();
+        record.setArrayIndex(index);
+        relocate(record, lineStart, line, source, record.getPointer(), pointerFor(index), new IdentityHashMap<>());
+
+        return record;
+    }
+
+    static NodePointer pointerFor(int index) {
+        return NodePointer.ROOT.child(new ArrayIndexPointer(index));
+    }
+
+    /**
+     * Moves the nodes of a line to their position in the document and hangs their pointers below the record pointer
+     */
+    private void relocate(AstNode node, int lineStart, int line, @Nullable SourceText source,
+                          NodePointer linePointer, NodePointer recordPointer, Map<NodePointer, NodePointer> rebased) {
+        node.startOffset += lineStart;
+        node.startLine += line - 1;
+        node.endOffset += lineStart;
+        node.endLine += line - 1;
+
+        if (node.getSource() != null) {
+            node.setSource(source);
+        }
+
+        if (node.hasPointer()) {
+            node.setPointer(rebase(node.getPointer(), linePointer, recordPointer, rebased));
+        }
+
+        for (AstNode child : node.getChildren()) {
+            relocate(child, lineStart, line, source, linePointer, recordPointer, rebased);
+        }
+    }
+
+    static NodePointer rebase(NodePointer pointer, NodePointer from, NodePointer to, Map<NodePointer, NodePointer> rebased) {
+        if (pointer == from) {
+            return to;
+        }
+
+        NodePointer result = rebased.get(pointer);
+        if (result == null) {
+            result = rebase(pointer.getParent(), from, to, rebased).child(pointer.getSegment());
+            rebased.put(pointer, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return offset of the line break ending the line, or the length of the text for the last line
+     */
+    static int lineEnd(String text, int lineStart) {
+        int lineEnd = text.indexOf('\n', lineStart);
+        return lineEnd == -1 ? text.length() : lineEnd;
+    }
+
+    static boolean isBlank(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c != ' ' && c != '\t' && c != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkCancelled(BooleanSupplier cancelled) {
+        if (Thread.currentThread().isInterrupted() || cancelled.getAsBoolean()) {
+            throw new CancellationException("Parsing was cancelled");
+        }
+    }
+}
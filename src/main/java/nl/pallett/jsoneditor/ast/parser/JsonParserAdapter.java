@@ -2,43 +2,103 @@ package nl.pallett.jsoneditor.ast.parser;
 
 import com.fasterxml.jackson.core.*;
 import nl.pallett.jsoneditor.ast.ArrayIndexPointer;
+import nl.pallett.jsoneditor.ast.AstIndex;
 import nl.pallett.jsoneditor.ast.AstNode;
 import nl.pallett.jsoneditor.ast.FieldPointer;
+import nl.pallett.jsoneditor.ast.KeyTable;
+import nl.pallett.jsoneditor.ast.NodePointer;
 import nl.pallett.jsoneditor.ast.PointerType;
+import nl.pallett.jsoneditor.ast.SourceText;
+import org.jspecify.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 
 public class JsonParserAdapter implements FormatParser {
 
     private final JsonFactory factory = new JsonFactory();
 
     private final Deque<AstNode> stack = new ArrayDeque<>();
-    private final Deque<PointerType> pointerStack = new ArrayDeque<>();
+    private final Deque<NodePointer> pointerStack = new ArrayDeque<>();
     private final Deque<Integer> arrayIndexStack = new ArrayDeque<>();
     private final Deque<Boolean> inArrayStack = new ArrayDeque<>();
 
     private String currentField = null;
 
+    private AstIndex.@Nullable Builder indexBuilder = null;
+
+    /**
+     * When enabled, scalar values are not read into strings but decoded from the source text on demand
+     */
+    private final boolean lazyValues;
+
+    private final KeyTable keyTable;
+
+    /**
+     * Checked between tokens besides the interrupt flag, a pool thread parsing a chunk isn't interrupted when the
+     * parse it is part of is cancelled
+     */
+    private final BooleanSupplier cancelled;
+
     public JsonParserAdapter() {
+        this(false);
+    }
+
+    public JsonParserAdapter(boolean lazyValues) {
+        this(lazyValues, new KeyTable());
+    }
 
+    public JsonParserAdapter(boolean lazyValues, KeyTable keyTable) {
+        this(lazyValues, keyTable, () -> false);
+    }
+
+    public JsonParserAdapter(boolean lazyValues, KeyTable keyTable, BooleanSupplier cancelled) {
+        this.lazyValues = lazyValues;
+        this.keyTable = keyTable;
+        this.cancelled = cancelled;
     }
 
     @Override
     public AstNode parse(String text) throws IOException, JsonParseException {
+        return parse(text, null);
+    }
+
+    @Override
+    public AstNode parse(String text, AstIndex.@Nullable Builder indexBuilder) throws IOException, JsonParseException {
         JsonParser parser = factory.createParser(text);
+        this.indexBuilder = indexBuilder;
+
+        // the adapter can be reused for several texts
+        stack.clear();
+        pointerStack.clear();
+        arrayIndexStack.clear();
+        inArrayStack.clear();
+        currentField = null;
 
         AstNode root = new AstNode(AstNode.Type.DUMMY_ROOT, null, null);
-        stack.push(root);
+        attachToParent(root);
+        push(root);
+
+        SourceText source = lazyValues ? new SourceText(text) : null;
+        root.setSource(source);
 
-        pointerStack.push(new FieldPointer("$"));
+        pointerStack.push(NodePointer.ROOT);
 
         while (true) {
 
+            checkCancelled();
+
             JsonToken token = parser.nextToken();
             if (token == null) break;
 
+            // strings are read lazily, finish them so the end location is after the closing quote
+            if (token == JsonToken.VALUE_STRING) {
+                parser.finishToken();
+            }
+
             JsonLocation startLoc = parser.currentTokenLocation();
             JsonLocation endLoc = parser.currentLocation();
 
@@ -59,13 +119,13 @@ public class JsonParserAdapter implements FormatParser {
                     startArrayItem(obj);
 
                     // add current fieldname (property) or a dummy value
-                    pointerStack.push(PointerType.fieldOrNullPointer(currentField));
+                    pushPointer(PointerType.fieldOrNullPointer(currentField));
 
                     // add current pointer to node
                     setPointer(obj);
 
                     attachToParent(obj);
-                    stack.push(obj);
+                    push(obj);
 
                     if (root == null)
                         root = obj;
@@ -81,7 +141,7 @@ public class JsonParserAdapter implements FormatParser {
                 case END_OBJECT: {
                     inArrayStack.removeFirst();
 
-                    AstNode obj = stack.pop();
+                    AstNode obj = pop();
                     setEnd(obj, endLoc);
 
                     finishArrayItem();
@@ -91,7 +151,7 @@ public class JsonParserAdapter implements FormatParser {
 
                     if (!stack.isEmpty() &&
                         stack.peek().getType() == AstNode.Type.PROPERTY) {
-                        stack.pop();
+                        pop();
                     }
 
                     break;
@@ -107,12 +167,12 @@ public class JsonParserAdapter implements FormatParser {
                     setStart(arr, startLoc);
 
                     startArrayItem(arr);
-                    pointerStack.push(PointerType.fieldOrNullPointer(currentField));
+                    pushPointer(PointerType.fieldOrNullPointer(currentField));
 
                     setPointer(arr);
 
                     attachToParent(arr);
-                    stack.push(arr);
+                    push(arr);
 
                     arrayIndexStack.push(0);
 
@@ -125,7 +185,7 @@ public class JsonParserAdapter implements FormatParser {
 
                 case END_ARRAY: {
 
-                    AstNode arr = stack.pop();
+                    AstNode arr = pop();
                     setEnd(arr, endLoc);
 
                     arr.setArraySize(arrayIndexStack.peek());
@@ -141,7 +201,7 @@ public class JsonParserAdapter implements FormatParser {
 
                     if (!stack.isEmpty() &&
                         stack.peek().getType() == AstNode.Type.PROPERTY) {
-                        stack.pop();
+                        pop();
                     }
 
                     break;
@@ -149,7 +209,7 @@ public class JsonParserAdapter implements FormatParser {
 
                 case FIELD_NAME: {
 
-                    currentField = parser.currentName() ;
+                    currentField = keyTable.canonicalize(parser.currentName());
 
                     AstNode prop = new AstNode(
                         AstNode.Type.PROPERTY,
@@ -161,7 +221,7 @@ public class JsonParserAdapter implements FormatParser {
                     setEnd(prop, endLoc);
 
                     attachToParent(prop);
-                    stack.push(prop);
+                    push(prop);
 
                     break;
                 }
@@ -171,8 +231,9 @@ public class JsonParserAdapter implements FormatParser {
                     AstNode valueNode = new AstNode(
                         AstNode.Type.VALUE,
                         null,
-                        parser.getValueAsString()
+                        lazyValues ? null : parser.getValueAsString()
                     );
+                    valueNode.setSource(source);
 
                     setStart(valueNode, startLoc);
                     setEnd(valueNode, endLoc);
@@ -180,7 +241,7 @@ public class JsonParserAdapter implements FormatParser {
 
                     startArrayItem(valueNode);
 
-                    if (currentField != null) pointerStack.push(new FieldPointer(currentField));
+                    if (currentField != null) pushPointer(new FieldPointer(currentField));
 
                     setPointer(valueNode);
 
@@ -194,7 +255,7 @@ public class JsonParserAdapter implements FormatParser {
                     currentField = null;
 
                     if (!stack.isEmpty() && stack.peek().getType() == AstNode.Type.PROPERTY) {
-                        AstNode prop = stack.pop();
+                        AstNode prop = pop();
                         setEnd(prop, endLoc);
                     }
 
@@ -204,14 +265,21 @@ public class JsonParserAdapter implements FormatParser {
         }
 
         parser.close();
+        this.indexBuilder = null;
         return root;
     }
 
+    private void checkCancelled() {
+        if (Thread.currentThread().isInterrupted() || cancelled.getAsBoolean()) {
+            throw new CancellationException("Parsing was cancelled");
+        }
+    }
+
     private void startArrayItem(AstNode node) {
         if (!inArrayStack.isEmpty() && Boolean.TRUE.equals(inArrayStack.peek()) && !arrayIndexStack.isEmpty()) {
             setArrayIndex(node);
             int index = arrayIndexStack.peek();
-            pointerStack.push(new ArrayIndexPointer(index));
+            pushPointer(new ArrayIndexPointer(index));
         }
     }
 
@@ -226,6 +294,26 @@ public class JsonParserAdapter implements FormatParser {
         if (!stack.isEmpty()) {
             stack.peek().addChild(node);
         }
+        if (indexBuilder != null) {
+            indexBuilder.add(node);
+        }
+    }
+
+    /**
+     * Descends into the node attached last
+     */
+    private void push(AstNode node) {
+        stack.push(node);
+        if (indexBuilder != null) {
+            indexBuilder.enter();
+        }
+    }
+
+    private AstNode pop() {
+        if (indexBuilder != null) {
+            indexBuilder.exit();
+        }
+        return stack.pop();
     }
 
     private void setStart(AstNode node, JsonLocation loc) {
@@ -248,8 +336,12 @@ public class JsonParserAdapter implements FormatParser {
         }
     }
 
+    private void pushPointer(PointerType segment) {
+        pointerStack.push(pointerStack.peek().child(segment));
+    }
+
     private void setPointer(AstNode node) {
-        node.setPointer(pointerStack.stream().toList().reversed());
+        node.setPointer(pointerStack.peek());
     }
 
     private void incrementArrayIndex() {
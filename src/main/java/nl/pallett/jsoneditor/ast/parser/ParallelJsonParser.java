@@ -0,0 +1,347 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import nl.pallett.jsoneditor.ast.ArrayIndexPointer;
+import nl.pallett.jsoneditor.ast.AstIndex;
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.KeyTable;
+import nl.pallett.jsoneditor.ast.NodePointer;
+import nl.pallett.jsoneditor.ast.NullPointer;
+import nl.pallett.jsoneditor.ast.SourceText;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parses large JSON documents consisting of a single top-level array in parallel. A structural pre-scan
+ * finds the boundaries of the array items, groups of items are parsed on a {@link ForkJoinPool} and the
+ * results are stitched into a single tree that is identical to the one of {@link JsonParserAdapter}.
+ * Anything else (and any document the pre-scan isn't sure about) is parsed sequentially.
+ */
+public class ParallelJsonParser implements FormatParser {
+
+    /**
+     * Smaller documents are parsed sequentially
+     */
+    public static final int PARALLEL_THRESHOLD = 1024 * 1024;
+
+    private static final int MIN_CHUNK_LENGTH = 256 * 1024;
+
+    private final boolean lazyValues;
+
+    private final KeyTable keyTable;
+
+    private final ForkJoinPool pool;
+
+    private final int threshold;
+
+    private final int minChunkLength;
+
+    public ParallelJsonParser() {
+        this(false, new KeyTable());
+    }
+
+    public ParallelJsonParser(boolean lazyValues, KeyTable keyTable) {
+        this(lazyValues, keyTable, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD, MIN_CHUNK_LENGTH);
+    }
+
+    ParallelJsonParser(boolean lazyValues, KeyTable keyTable, ForkJoinPool pool, int threshold, int minChunkLength) {
+        this.lazyValues = lazyValues;
+        this.keyTable = keyTable;
+        this.pool = pool;
+        this.threshold = threshold;
+        this.minChunkLength = minChunkLength;
+    }
+
+    @Override
+    public AstNode parse(String text) throws IOException {
+        return parse(text, null);
+    }
+
+    @Override
+    public AstNode parse(String text, AstIndex.@Nullable Builder indexBuilder) throws IOException {
+        if (text.length() >= threshold) {
+            ArrayScan scan = scanTopLevelArray(text);
+            if (scan != null) {
+                AstNode root = parseChunks(text, scan, indexBuilder);
+                if (root != null) {
+                    return root;
+                }
+            }
+        }
+
+        // also used to get the proper error when a chunk fails to parse
+        return new JsonParserAdapter(lazyValues, keyTable).parse(text, indexBuilder);
+    }
+
+    /**
+     * Group of array items, from the first char after a '[' or ',' up to the next ',' or ']'.
+     * Line and column are those of the start offset.
+     */
+    record Chunk(int start, int end, int line, int column, int firstIndex, int itemCount) {}
+
+    /**
+     * Wrapping array of the items of a chunk, with the index of the slice when one is built
+     */
+    record ParsedChunk(AstNode array, AstIndex.@Nullable Builder indexBuilder) {}
+
+    record ArrayScan(int start, int startLine, int startColumn, int end, int endLine, int endColumn, int itemCount, List<Chunk> chunks) {}
+
+    /**
+     * Finds the items of the top-level array, with line and column counted the same way Jackson does
+     *
+     * @return null when the document is not a single top-level array with at least 2 chunks
+     */
+    @Nullable ArrayScan scanTopLevelArray(String text) {
+        int length = text.length();
+        int chunkLength = Math.max(minChunkLength, length / (pool.getParallelism() * 4));
+
+        int line = 1;
+        int lineStart = 0;
+
+        int i = skipWhitespace(text, 0);
+        if (i >= length || text.charAt(i) != '[') {
+            return null;
+        }
+        // skipWhitespace doesn't track lines, so count them up to the '['
+        for (int j = 0; j < i; j++) {
+            char c = text.charAt(j);
+            if (c == '\n' || (c == '\r' && (j + 1 >= length || text.charAt(j + 1) != '\n'))) {
+                line++;
+                lineStart = j + 1;
+            }
+        }
+
+        int arrayStart = i;
+        int arrayStartLine = line;
+        int arrayStartColumn = i - lineStart + 1;
+
+        List<Chunk> chunks = new ArrayList<>();
+        int chunkStart = i + 1;
+        int chunkLine = line;
+        int chunkColumn = chunkStart - lineStart + 1;
+        int chunkFirstIndex = 0;
+        int items = 0;
+
+        int depth = 1;
+        boolean inString = false;
+
+        for (i = i + 1; i < length; i++) {
+            char c = text.charAt(i);
+
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> inString = true;
+                case '{', '[' -> depth++;
+                case '}' -> depth--;
+                case ']' -> {
+                    depth--;
+                    if (depth == 0) {
+                        items++;
+                        chunks.add(new Chunk(chunkStart, i, chunkLine, chunkColumn, chunkFirstIndex, items - chunkFirstIndex));
+
+                        // only whitespace may follow the array
+                        if (skipWhitespace(text, i + 1) != length || chunks.size() < 2) {
+                            return null;
+                        }
+                        return new ArrayScan(arrayStart, arrayStartLine, arrayStartColumn,
+                            i + 1, line, i + 1 - lineStart + 1, items, chunks);
+                    }
+                }
+                case ',' -> {
+                    if (depth == 1) {
+                        items++;
+                        if (i + 1 - chunkStart >= chunkLength) {
+                            chunks.add(new Chunk(chunkStart, i, chunkLine, chunkColumn, chunkFirstIndex, items - chunkFirstIndex));
+                            chunkStart = i + 1;
+                            chunkLine = line;
+                            chunkColumn = chunkStart - lineStart + 1;
+                            chunkFirstIndex = items;
+                        }
+                    }
+                }
+                case '\n' -> {
+                    line++;
+                    lineStart = i + 1;
+                }
+                case '\r' -> {
+                    if (i + 1 >= length || text.charAt(i + 1) != '\n') {
+                        line++;
+                        lineStart = i + 1;
+                    }
+                }
+                default -> {}
+            }
+
+            if (depth < 1) {
+                return null;
+            }
+        }
+
+        // array never closed
+        return null;
+    }
+
+    private @Nullable AstNode parseChunks(String text, ArrayScan scan, AstIndex.@Nullable Builder indexBuilder) {
+        NodePointer arrayPointer = NodePointer.ROOT.child(new NullPointer());
+        SourceText source = lazyValues ? new SourceText(text) : null;
+        boolean indexed = indexBuilder != null;
+
+        // cancel(true) doesn't interrupt a pool thread, the chunks check this flag instead
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<ForkJoinTask<ParsedChunk>> tasks = new ArrayList<>(scan.chunks().size());
+        for (Chunk chunk : scan.chunks()) {
+            tasks.add(pool.submit(() -> parseChunk(text, chunk, arrayPointer, source, indexed, cancelled::get)));
+        }
+
+        AstNode array = new AstNode(AstNode.Type.ARRAY, null, null);
+        List<ParsedChunk> parsedChunks = new ArrayList<>(tasks.size());
+        try {
+            for (ForkJoinTask<ParsedChunk> task : tasks) {
+                ParsedChunk parsedChunk = task.get();
+                if (parsedChunk == null) {
+                    return null;
+                }
+                new ArrayList<>(parsedChunk.array().getChildren()).forEach(array::addChild);
+                parsedChunks.add(parsedChunk);
+            }
+        } catch (InterruptedException e) {
+            throw new CancellationException("Parsing was cancelled");
+        } catch (ExecutionException e) {
+            // syntax error somewhere, leave the error reporting to the sequential parser
+            return null;
+        } finally {
+            // stops the chunks that are still parsing when the parse ends early, after a complete parse there are none
+            cancelled.set(true);
+            tasks.forEach(task -> task.cancel(false));
+        }
+
+        array.startOffset = scan.start();
+        array.startLine = scan.startLine();
+        array.startColumn = scan.startColumn();
+        array.endOffset = scan.end();
+        array.endLine = scan.endLine();
+        array.endColumn = scan.endColumn();
+        array.setArraySize(scan.itemCount());
+        array.setPointer(arrayPointer);
+
+        AstNode root = new AstNode(AstNode.Type.DUMMY_ROOT, null, null);
+        root.setSource(source);
+        root.addChild(array);
+
+        if (indexBuilder != null) {
+            indexBuilder.add(root);
+            indexBuilder.enter();
+            indexBuilder.add(array);
+            indexBuilder.enter();
+            // skip the root and the wrapping array of the slices
+            parsedChunks.forEach(parsedChunk -> indexBuilder.append(parsedChunk.indexBuilder(), 2));
+            indexBuilder.exit();
+            indexBuilder.exit();
+        }
+
+        return root;
+    }
+
+    /**
+     * Parses the items of a chunk wrapped in brackets, and moves them to their place in the document
+     *
+     * @return the wrapping array, or null when the chunk doesn't contain the expected items
+     */
+    private @Nullable ParsedChunk parseChunk(String text, Chunk chunk, NodePointer arrayPointer,
+                                             @Nullable SourceText source, boolean indexed, BooleanSupplier cancelled)
+        throws IOException {
+        String slice = "[" + text.substring(chunk.start(), chunk.end()) + "]";
+        AstIndex.Builder sliceIndex = indexed ? new AstIndex.Builder() : null;
+        AstNode sliceRoot = new JsonParserAdapter(lazyValues, keyTable, cancelled).parse(slice, sliceIndex);
+
+        if (sliceRoot.getChildren().size() != 1) {
+            return null;
+        }
+
+        AstNode chunkArray = sliceRoot.getChildren().getFirst();
+        if (chunkArray.getType() != AstNode.Type.ARRAY || chunkArray.getChildren().size() != chunk.itemCount()) {
+            return null;
+        }
+
+        Map<NodePointer, NodePointer> rebased = new IdentityHashMap<>();
+        for (AstNode item : chunkArray.getChildren()) {
+            item.setArrayIndex(item.getArrayIndex() + chunk.firstIndex());
+            relocate(item, chunk, chunkArray.getPointer(), arrayPointer, source, rebased);
+        }
+
+        return new ParsedChunk(chunkArray, sliceIndex);
+    }
+
+    private void relocate(AstNode node, Chunk chunk, NodePointer chunkPointer, NodePointer arrayPointer,
+                          @Nullable SourceText source, Map<NodePointer, NodePointer> rebased) {
+        // the slice starts with the added '[', so its second char is the start of the chunk
+        int offsetDelta = chunk.start() - 1;
+        int columnDelta = chunk.column() - 2;
+        int lineDelta = chunk.line() - 1;
+
+        if (node.startLine == 1) node.startColumn += columnDelta;
+        node.startLine += lineDelta;
+        node.startOffset += offsetDelta;
+
+        if (node.endLine == 1) node.endColumn += columnDelta;
+        node.endLine += lineDelta;
+        node.endOffset += offsetDelta;
+
+        if (node.getSource() != null) {
+            node.setSource(source);
+        }
+
+        if (node.hasPointer()) {
+            node.setPointer(rebase(node.getPointer(), chunk, chunkPointer, arrayPointer, rebased));
+        }
+
+        for (AstNode child : node.getChildren()) {
+            relocate(child, chunk, chunkPointer, arrayPointer, source, rebased);
+        }
+    }
+
+    private NodePointer rebase(NodePointer pointer, Chunk chunk, NodePointer chunkPointer, NodePointer arrayPointer,
+                               Map<NodePointer, NodePointer> rebased) {
+        NodePointer result = rebased.get(pointer);
+        if (result == null) {
+            NodePointer parent = pointer.getParent();
+            if (parent == chunkPointer && pointer.getSegment() instanceof ArrayIndexPointer(int index)) {
+                result = arrayPointer.child(new ArrayIndexPointer(index + chunk.firstIndex()));
+            } else {
+                result = rebase(parent, chunk, chunkPointer, arrayPointer, rebased).child(pointer.getSegment());
+            }
+            rebased.put(pointer, result);
+        }
+        return result;
+    }
+
+    private static int skipWhitespace(String text, int from) {
+        int i = from;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+}
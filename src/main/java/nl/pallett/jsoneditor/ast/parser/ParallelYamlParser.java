@@ -0,0 +1,159 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import nl.pallett.jsoneditor.ast.AstIndex;
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.KeyTable;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parses large multi-document YAML streams in parallel. The stream is split at the document start
+ * markers, groups of documents are parsed on a {@link ForkJoinPool} and their nodes are moved to their
+ * position in the stream, resulting in the same tree as {@link YamlParserAdapter}.
+ */
+public class ParallelYamlParser implements FormatParser {
+
+    /**
+     * Smaller streams are parsed sequentially
+     */
+    public static final int PARALLEL_THRESHOLD = 256 * 1024;
+
+    private static final int MIN_CHUNK_LENGTH = 64 * 1024;
+
+    private final KeyTable keyTable;
+
+    private final ForkJoinPool pool;
+
+    private final int threshold;
+
+    private final int minChunkLength;
+
+    public ParallelYamlParser() {
+        this(new KeyTable());
+    }
+
+    public ParallelYamlParser(KeyTable keyTable) {
+        this(keyTable, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD, MIN_CHUNK_LENGTH);
+    }
+
+    ParallelYamlParser(KeyTable keyTable, ForkJoinPool pool, int threshold, int minChunkLength) {
+        this.keyTable = keyTable;
+        this.pool = pool;
+        this.threshold = threshold;
+        this.minChunkLength = minChunkLength;
+    }
+
+    @Override
+    public AstNode parse(String text) {
+        return parse(text, null);
+    }
+
+    @Override
+    public AstNode parse(String text, AstIndex.@Nullable Builder indexBuilder) {
+        if (text.length() >= threshold) {
+            List<Integer> chunkStarts = findChunkStarts(text);
+            if (chunkStarts != null && chunkStarts.size() >= 2) {
+                AstNode root = parseChunks(text, chunkStarts, indexBuilder);
+                if (root != null) {
+                    return root;
+                }
+            }
+        }
+
+        // also used to get the proper error when a chunk fails to parse
+        return new YamlParserAdapter(keyTable).parse(text, indexBuilder);
+    }
+
+    /**
+     * Root of the documents of a chunk, with their index when one is built
+     */
+    private record ParsedChunk(AstNode root, AstIndex.@Nullable Builder indexBuilder) {}
+
+    /**
+     * Groups the documents into chunks of at least the minimal chunk length
+     */
+    @Nullable List<Integer> findChunkStarts(String text) {
+        List<Integer> documentStarts = YamlDocuments.findDocumentStarts(text);
+        if (documentStarts == null) {
+            return null;
+        }
+
+        int chunkLength = Math.max(minChunkLength, text.length() / (pool.getParallelism() * 4));
+
+        List<Integer> chunkStarts = new ArrayList<>();
+        chunkStarts.add(0);
+        for (int start : documentStarts) {
+            if (start - chunkStarts.getLast() >= chunkLength) {
+                chunkStarts.add(start);
+            }
+        }
+        return chunkStarts;
+    }
+
+    private @Nullable AstNode parseChunks(String text, List<Integer> chunkStarts, AstIndex.@Nullable Builder indexBuilder) {
+        List<ForkJoinTask<ParsedChunk>> tasks = new ArrayList<>(chunkStarts.size());
+        boolean indexed = indexBuilder != null;
+        // cancel(true) doesn't interrupt a pool thread, the chunks check this flag instead
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        YamlDocuments.Extent before = new YamlDocuments.Extent(0, 0);
+        for (int i = 0; i < chunkStarts.size(); i++) {
+            int start = chunkStarts.get(i);
+            int end = (i + 1 < chunkStarts.size()) ? chunkStarts.get(i + 1) : text.length();
+
+            YamlDocuments.Extent chunkBefore = before;
+            tasks.add(pool.submit(
+                () -> parseChunk(text.substring(start, end), chunkBefore, indexed, cancelled::get)));
+
+            YamlDocuments.Extent chunk = YamlDocuments.measure(text, start, end);
+            before = new YamlDocuments.Extent(before.lines() + chunk.lines(), before.codePoints() + chunk.codePoints());
+        }
+
+        AstNode root = new AstNode(AstNode.Type.DUMMY_ROOT, null, null);
+        List<ParsedChunk> parsedChunks = new ArrayList<>(tasks.size());
+        try {
+            for (ForkJoinTask<ParsedChunk> task : tasks) {
+                ParsedChunk parsedChunk = task.get();
+                new ArrayList<>(parsedChunk.root().getChildren()).forEach(root::addChild);
+                parsedChunks.add(parsedChunk);
+            }
+        } catch (InterruptedException e) {
+            throw new CancellationException("Parsing was cancelled");
+        } catch (ExecutionException e) {
+            // syntax error somewhere, leave the error reporting to the sequential parser
+            return null;
+        } finally {
+            // stops the chunks that are still parsing when the parse ends early, after a complete parse there are none
+            cancelled.set(true);
+            tasks.forEach(task -> task.cancel(false));
+        }
+
+        if (indexBuilder != null) {
+            indexBuilder.add(root);
+            indexBuilder.enter();
+            // skip the roots of the chunks
+            parsedChunks.forEach(parsedChunk -> indexBuilder.append(parsedChunk.indexBuilder(), 1));
+            indexBuilder.exit();
+        }
+
+        return root;
+    }
+
+    private ParsedChunk parseChunk(String chunk, YamlDocuments.Extent before, boolean indexed,
+                                   BooleanSupplier cancelled) {
+        AstIndex.Builder chunkIndex = indexed ? new AstIndex.Builder() : null;
+        AstNode chunkRoot = new YamlParserAdapter(keyTable, cancelled).parse(chunk, chunkIndex);
+        for (AstNode node : chunkRoot.getChildren()) {
+            YamlDocuments.shift(node, before.codePoints(), before.lines());
+        }
+        return new ParsedChunk(chunkRoot, chunkIndex);
+    }
+}
@@ -0,0 +1,197 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers to split a YAML stream into its documents and to move parsed nodes to their place in the stream.
+ * Positions follow the marks of snakeyaml: offsets are code point indexes and lines are counted on
+ * \n, \r (when not followed by \n), NEL, LS and PS.
+ */
+final class YamlDocuments {
+
+    /**
+     * Number of line breaks and code points in a range of text
+     */
+    record Extent(int lines, int codePoints) {}
+
+    private YamlDocuments() {
+        /* This utility class should not be instantiated */
+    }
+
+    /**
+     * Finds the offsets of all lines starting with a document start marker ("---") that the stream can be
+     * split at: blank lines just before a marker are dropped by the parser, but would be kept as comments
+     * at the end of a split-off part, so markers following a blank line are skipped.
+     *
+     * @return null when the stream contains directives, which belong to the next document and make
+     * it unsafe to split at the markers
+     */
+    static @Nullable List<Integer> findDocumentStarts(String text) {
+        List<Integer> starts = new ArrayList<>();
+
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            if (text.charAt(lineStart) == '%') {
+                return null;
+            }
+            if (isSplitPoint(text, lineStart)) {
+                starts.add(lineStart);
+            }
+            lineStart = nextLineStart(text, lineStart);
+        }
+
+        return starts;
+    }
+
+    /**
+     * @return the offset of the last split point which starts at or before the given offset and isn't touched by
+     * it, 0 when there is none, -1 when there is none within the limit
+     */
+    static int findDocumentStartBefore(String text, int offset, int limit) {
+        int end = Math.min(offset, text.length());
+        for (int i = end - 1; i > 0; i--) {
+            if (end - i > limit) {
+                return -1;
+            }
+            // the marker and the char after it must be before the offset
+            if (isLineBreak(text, i - 1) && i + 4 <= offset && isSplitPoint(text, i)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the offset of the first split point whose preceding line break is at or after the given offset, the
+     * length of the text when there is none, -1 when there is none within the limit
+     */
+    static int findDocumentStartAfter(String text, int offset, int limit) {
+        for (int i = offset; i < text.length(); i++) {
+            if (i - offset > limit) {
+                return -1;
+            }
+            if (isLineBreak(text, i) && isSplitPoint(text, i + 1)) {
+                return i + 1;
+            }
+        }
+        return text.length();
+    }
+
+    static boolean containsDirective(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '%' && (i == 0 || isLineBreak(text, i - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Directives belong to the document after them, so a document can't be parsed on its own when the lines before
+     * it contain one.
+     *
+     * @return true when the comment and blank lines right before the line start contain a directive
+     */
+    static boolean isPrecededByDirective(String text, int lineStart) {
+        int lineEnd = lineStart;
+        while (lineEnd > 0) {
+            // \r\n counts as a single line break
+            int lineBreak = lineEnd - 1;
+            if (text.charAt(lineBreak) == '\n' && lineBreak > 0 && text.charAt(lineBreak - 1) == '\r') {
+                lineBreak--;
+            }
+
+            int start = lineBreak;
+            while (start > 0 && !isLineBreak(text, start - 1)) {
+                start--;
+            }
+
+            if (start < lineBreak && text.charAt(start) == '%') {
+                return true;
+            }
+            String line = text.substring(start, lineBreak).strip();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                return false;
+            }
+            lineEnd = start;
+        }
+        return false;
+    }
+
+    static Extent measure(String text, int from, int to) {
+        int lines = 0;
+        for (int i = from; i < to; i++) {
+            if (isLineBreak(text, i)) {
+                lines++;
+            }
+        }
+        return new Extent(lines, text.codePointCount(from, to));
+    }
+
+    /**
+     * Moves a node (and all nodes below it) by the given number of code points and lines.
+     * Columns stay the same, as documents always start at the start of a line.
+     */
+    static void shift(AstNode node, int offsetDelta, int lineDelta) {
+        node.startOffset += offsetDelta;
+        node.startLine += lineDelta;
+        node.endOffset += offsetDelta;
+        node.endLine += lineDelta;
+
+        for (AstNode child : node.getChildren()) {
+            shift(child, offsetDelta, lineDelta);
+        }
+    }
+
+    private static boolean isSplitPoint(String text, int lineStart) {
+        return lineStart > 0 && isDocumentStart(text, lineStart) && !followsBlankLine(text, lineStart);
+    }
+
+    private static boolean followsBlankLine(String text, int lineStart) {
+        int lineBreak = lineStart - 1;
+        if (text.charAt(lineBreak) == '\n' && lineBreak > 0 && text.charAt(lineBreak - 1) == '\r') {
+            lineBreak--;
+        }
+
+        int i = lineBreak - 1;
+        while (i >= 0 && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+            i--;
+        }
+        return i < 0 || isLineBreak(text, i);
+    }
+
+    private static boolean isDocumentStart(String text, int lineStart) {
+        if (!text.startsWith("---", lineStart)) {
+            return false;
+        }
+
+        int next = lineStart + 3;
+        return next == text.length()
+            || text.charAt(next) == ' '
+            || text.charAt(next) == '\t'
+            || text.charAt(next) == '\r'
+            || isLineBreak(text, next);
+    }
+
+    private static int nextLineStart(String text, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (isLineBreak(text, i)) {
+                return i + 1;
+            }
+        }
+        return text.length();
+    }
+
+    private static boolean isLineBreak(String text, int i) {
+        char c = text.charAt(i);
+        return switch (c) {
+            case '\n', '\u0085', '\u2028', '\u2029' -> true;
+            case '\r' -> i + 1 >= text.length() || text.charAt(i + 1) != '\n';
+            default -> false;
+        };
+    }
+}
@@ -1,9 +1,13 @@
 package nl.pallett.jsoneditor.ast.parser;
 
 import nl.pallett.jsoneditor.ast.ArrayIndexPointer;
+import nl.pallett.jsoneditor.ast.AstIndex;
 import nl.pallett.jsoneditor.ast.AstNode;
 import nl.pallett.jsoneditor.ast.FieldPointer;
+import nl.pallett.jsoneditor.ast.KeyTable;
+import nl.pallett.jsoneditor.ast.NodePointer;
 import nl.pallett.jsoneditor.ast.PointerType;
+import org.jspecify.annotations.Nullable;
 import org.snakeyaml.engine.v2.api.LoadSettings;
 import org.snakeyaml.engine.v2.events.*;
 import org.snakeyaml.engine.v2.exceptions.Mark;
@@ -18,16 +22,45 @@ import org.yaml.snakeyaml.resolver.Resolver;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 
 public class YamlParserAdapter implements FormatParser {
-    private final LoadSettings settings = LoadSettings.builder().setParseComments(true).build();
+    // documents are limited to 3MB by default
+    private final LoadSettings settings = LoadSettings.builder()
+        .setParseComments(true)
+        .setCodePointLimit(Integer.MAX_VALUE)
+        .build();
     private final Deque<AstNode> stack = new ArrayDeque<>();
-    private final Deque<PointerType> pointerStack = new ArrayDeque<>();
+    private final Deque<NodePointer> pointerStack = new ArrayDeque<>();
     private final Deque<Integer> arrayIndexStack = new ArrayDeque<>();
     private final Deque<Boolean> inArrayStack = new ArrayDeque<>();
 
     private String currentField = null;
 
+    private AstIndex.@Nullable Builder indexBuilder = null;
+
+    private final KeyTable keyTable;
+
+    /**
+     * Checked between events besides the interrupt flag, a pool thread parsing a chunk isn't interrupted when the
+     * parse it is part of is cancelled
+     */
+    private final BooleanSupplier cancelled;
+
+    public YamlParserAdapter() {
+        this(new KeyTable());
+    }
+
+    public YamlParserAdapter(KeyTable keyTable) {
+        this(keyTable, () -> false);
+    }
+
+    public YamlParserAdapter(KeyTable keyTable, BooleanSupplier cancelled) {
+        this.keyTable = keyTable;
+        this.cancelled = cancelled;
+    }
+
     public enum YamlScalarType {
         STRING,
         INTEGER,
@@ -41,17 +74,27 @@ public class YamlParserAdapter implements FormatParser {
 
     @Override
     public AstNode parse(String text) {
+        return parse(text, null);
+    }
+
+    @Override
+    public AstNode parse(String text, AstIndex.@Nullable Builder indexBuilder) {
+        this.indexBuilder = indexBuilder;
+
         StreamReader reader = new StreamReader(settings, text);
         ScannerImpl scanner = new ScannerImpl(settings, reader);
         Parser parser = new ParserImpl(settings, scanner);
 
-        pointerStack.push(new FieldPointer("$"));
+        pointerStack.push(NodePointer.ROOT);
 
         AstNode root = new AstNode(AstNode.Type.DUMMY_ROOT, null, null);
-        stack.push(root);
+        attachToParent(root);
+        push(root);
 
         while (parser.hasNext()) {
 
+            checkCancelled();
+
             Event event = parser.next();
 
             switch (event.getEventId()) {
@@ -62,13 +105,13 @@ public class YamlParserAdapter implements FormatParser {
                     setStart(doc, event.getStartMark());
 
                     // add current fieldname (property) or a dummy value
-                    pointerStack.push(PointerType.fieldOrNullPointer(currentField));
+                    pushPointer(PointerType.fieldOrNullPointer(currentField));
 
                     // add current pointer to node
                     setPointer(doc);
 
                     attachToParent(doc);
-                    stack.push(doc);
+                    push(doc);
 
                     //if (root == null)
                     //    root = doc;
@@ -76,7 +119,7 @@ public class YamlParserAdapter implements FormatParser {
                     break;
                 }
                 case DocumentEnd: {
-                    AstNode doc = stack.pop();
+                    AstNode doc = pop();
                     setEnd(doc, event.getEndMark());
 
                     if (!pointerStack.isEmpty())
@@ -95,7 +138,7 @@ public class YamlParserAdapter implements FormatParser {
                     startArrayItem(obj);
 
                     // add current fieldname (property) or a dummy value
-                    pointerStack.push(PointerType.fieldOrNullPointer(currentField));
+                    pushPointer(PointerType.fieldOrNullPointer(currentField));
 
                     // add current pointer to node
                     setPointer(obj);
@@ -104,7 +147,7 @@ public class YamlParserAdapter implements FormatParser {
                         obj.setAnchor(mapStart.getAnchor().get().getValue());
 
                     attachToParent(obj);
-                    stack.push(obj);
+                    push(obj);
 
                     currentField = null;
 
@@ -116,7 +159,7 @@ public class YamlParserAdapter implements FormatParser {
                 case MappingEnd: {
                     inArrayStack.removeFirst();
 
-                    AstNode obj = stack.pop();
+                    AstNode obj = pop();
                     setEnd(obj, event.getEndMark());
 
                     finishArrayItem();
@@ -125,7 +168,7 @@ public class YamlParserAdapter implements FormatParser {
                         pointerStack.pop();
 
                     if (!stack.isEmpty() && stack.peek().getType() == AstNode.Type.PROPERTY) {
-                        stack.removeFirst();
+                        pop();
                     }
 
                     break;
@@ -138,7 +181,7 @@ public class YamlParserAdapter implements FormatParser {
                     setStart(arr, event.getStartMark());
 
                     startArrayItem(arr);
-                    pointerStack.push(PointerType.fieldOrNullPointer(currentField));
+                    pushPointer(PointerType.fieldOrNullPointer(currentField));
 
                     setPointer(arr);
 
@@ -146,7 +189,7 @@ public class YamlParserAdapter implements FormatParser {
                         arr.setAnchor(seqStart.getAnchor().get().getValue());
 
                     attachToParent(arr);
-                    stack.push(arr);
+                    push(arr);
 
                     arrayIndexStack.push(0);
 
@@ -157,7 +200,7 @@ public class YamlParserAdapter implements FormatParser {
                 }
                 case SequenceEnd: {
 
-                    AstNode arr = stack.removeFirst();
+                    AstNode arr = pop();
                     setEnd(arr, event.getEndMark());
 
                     arr.setArraySize(arrayIndexStack.peek());
@@ -172,7 +215,7 @@ public class YamlParserAdapter implements FormatParser {
                         pointerStack.pop();
 
                     if (!stack.isEmpty() && stack.peek().getType() == AstNode.Type.PROPERTY) {
-                        stack.removeFirst();
+                        pop();
                     }
 
                     break;
@@ -184,7 +227,7 @@ public class YamlParserAdapter implements FormatParser {
                     if (currentField == null &&
                         stack.peek().getType() == AstNode.Type.OBJECT) {
 
-                        currentField = scalar.getValue();
+                        currentField = keyTable.canonicalize(scalar.getValue());
 
                         AstNode prop =
                             new AstNode(AstNode.Type.PROPERTY, currentField, null);
@@ -192,7 +235,7 @@ public class YamlParserAdapter implements FormatParser {
                         setEnd(prop, event.getEndMark());
 
                         attachToParent(prop);
-                        stack.push(prop);
+                        push(prop);
 
                     } else {
 
@@ -205,7 +248,7 @@ public class YamlParserAdapter implements FormatParser {
 
                         startArrayItem(valueNode);
 
-                        if (currentField != null) pointerStack.push(new FieldPointer(currentField));
+                        if (currentField != null) pushPointer(new FieldPointer(currentField));
 
                         setPointer(valueNode);
 
@@ -222,7 +265,7 @@ public class YamlParserAdapter implements FormatParser {
                         currentField = null;
 
                         if (!stack.isEmpty() && stack.peek().getType() == AstNode.Type.PROPERTY)
-                            stack.pop();
+                            pop();
                     }
 
                     break;
@@ -239,7 +282,24 @@ public class YamlParserAdapter implements FormatParser {
 
                     aliasNode.setAlias(alias.getAlias().getValue());
 
-                    stack.peek().addChild(aliasNode);
+                    // an alias takes the place of a value, like a scalar
+                    startArrayItem(aliasNode);
+
+                    if (currentField != null) pushPointer(new FieldPointer(currentField));
+
+                    setPointer(aliasNode);
+
+                    attachToParent(aliasNode);
+
+                    finishArrayItem();
+
+                    if (currentField != null && !pointerStack.isEmpty())
+                        pointerStack.removeFirst();
+
+                    currentField = null;
+
+                    if (!stack.isEmpty() && stack.peek().getType() == AstNode.Type.PROPERTY)
+                        pop();
 
                     break;
 
@@ -260,12 +320,13 @@ public class YamlParserAdapter implements FormatParser {
                         }
                     );
 
-                    stack.peek().addChild(commentNode);
+                    attachToParent(commentNode);
 
                     break;
             }
         }
 
+        this.indexBuilder = null;
         return root;
     }
 
@@ -316,11 +377,17 @@ public class YamlParserAdapter implements FormatParser {
         };
     }
 
+    private void checkCancelled() {
+        if (Thread.currentThread().isInterrupted() || cancelled.getAsBoolean()) {
+            throw new CancellationException("Parsing was cancelled");
+        }
+    }
+
     private void startArrayItem(AstNode node) {
         if (!inArrayStack.isEmpty() && Boolean.TRUE.equals(inArrayStack.peek()) && !arrayIndexStack.isEmpty()) {
             setArrayIndex(node);
             int index = arrayIndexStack.peek();
-            pointerStack.push(new ArrayIndexPointer(index));
+            pushPointer(new ArrayIndexPointer(index));
         }
     }
 
@@ -344,13 +411,37 @@ public class YamlParserAdapter implements FormatParser {
         }
     }
 
+    private void pushPointer(PointerType segment) {
+        pointerStack.push(pointerStack.peek().child(segment));
+    }
+
     private void setPointer(AstNode node) {
-        node.setPointer(pointerStack.stream().toList().reversed());
+        node.setPointer(pointerStack.peek());
     }
 
     private void attachToParent(AstNode node) {
         if (!stack.isEmpty()) {
             stack.peek().addChild(node);
         }
+        if (indexBuilder != null) {
+            indexBuilder.add(node);
+        }
+    }
+
+    /**
+     * Descends into the node attached last
+     */
+    private void push(AstNode node) {
+        stack.push(node);
+        if (indexBuilder != null) {
+            indexBuilder.enter();
+        }
+    }
+
+    private AstNode pop() {
+        if (indexBuilder != null) {
+            indexBuilder.exit();
+        }
+        return stack.pop();
     }
 }
\ No newline at end of file
@@ -34,6 +34,15 @@ public class EditorController {
 
             codePanelView.updateStatusBar(line, column);
         });
+
+        // the caret moved while the index was rebuilt after an edit
+        treePanelView.addIndexUpdatedListener(() -> {
+            if (syncSource == null) {
+                syncSource = SyncSource.CODE;
+                treePanelView.selectNodeForCaretPosition(codePanelView.getSelectionStart());
+                syncSource = null;
+            }
+        });
     }
 
     private void scrollTo(int offset, Runnable runWhenFinished) {
@@ -4,6 +4,7 @@ import nl.pallett.jsoneditor.FileOpenIntegration;
 import nl.pallett.jsoneditor.actions.AbstractActionWithState;
 import nl.pallett.jsoneditor.actions.ActionManager;
 import nl.pallett.jsoneditor.actions.ActionManager.Action;
+import nl.pallett.jsoneditor.ast.KeyTable;
 import nl.pallett.jsoneditor.model.EditorDocument;
 import nl.pallett.jsoneditor.model.EditorDocument.Property;
 import nl.pallett.jsoneditor.ui.MainFrame;
@@ -17,6 +18,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -31,6 +33,12 @@ public class EditorManager {
 
     private final Map<EditorDocument, EditorPanelView> openDocuments = new HashMap<>();
 
+    /**
+     * Shared by the open documents, so documents with the same structure share their key strings. Cleared when the
+     * last document is closed.
+     */
+    private final KeyTable keyTable = new KeyTable();
+
     private static final int DEFAULT_FONT_SIZE = 13;
     private int currentFontSize = DEFAULT_FONT_SIZE;
 
@@ -49,7 +57,7 @@ public class EditorManager {
     }
 
     public void newDocument() {
-        EditorDocument newDoc = new EditorDocument("Untitled", null);
+        EditorDocument newDoc = new EditorDocument("Untitled", null, keyTable);
         EditorPanelView editorPanelView = tabbedView.addTab(newDoc);
 
         addDocument(newDoc, editorPanelView);
@@ -110,7 +118,7 @@ public class EditorManager {
             return;
         }
 
-        EditorDocument document = new EditorDocument(file.getFileName().toString(), file);
+        EditorDocument document = new EditorDocument(file.getFileName().toString(), file, keyTable);
         EditorPanelView editorPanelView = tabbedView.addTab(document);
 
         addDocument(document, editorPanelView);
@@ -134,6 +142,12 @@ public class EditorManager {
 
             if (editorDocument != null) {
                 openDocuments.remove(editorDocument);
+                editorDocument.close();
+
+                // keys of closed documents would otherwise stay for the lifetime of the application
+                if (openDocuments.isEmpty()) {
+                    keyTable.clear();
+                }
             }
         }
     }
@@ -186,6 +200,16 @@ public class EditorManager {
             if (Property.FILE_PATH.name().equals(evt.getPropertyName())) {
                 ((AbstractActionWithState)this.actionManager.getAction(Action.SAVE)).updateState(editorPanelView);
             }
+
+            // formatting a selection and minifying depend on the parse of the new contents, which arrives later
+            if ((Property.AST_TREE.name().equals(evt.getPropertyName())
+                    || Property.IS_VALID.name().equals(evt.getPropertyName())
+                    || Property.DOCUMENT_TYPE.name().equals(evt.getPropertyName()))
+                && editorPanelView == getActiveEditorPanel()) {
+                for (Action action : List.of(Action.FORMAT_SELECTION, Action.MINIFY)) {
+                    ((AbstractActionWithState)this.actionManager.getAction(action)).updateState(editorPanelView);
+                }
+            }
         });
     }
 
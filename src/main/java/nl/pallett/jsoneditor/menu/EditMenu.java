@@ -16,14 +16,19 @@ public class EditMenu extends JMenu  {
         var undoItem = new JMenuItem(actionManager.getAction(Action.UNDO));
         var redoItem = new JMenuItem(actionManager.getAction(Action.REDO));
         var formatJsonItem = new JMenuItem(actionManager.getAction(Action.FORMAT));
+        var formatSelectionItem = new JMenuItem(actionManager.getAction(Action.FORMAT_SELECTION));
+        var minifyItem = new JMenuItem(actionManager.getAction(Action.MINIFY));
 
         undoItem.setAccelerator(KeyStroke.getKeyStroke("meta Z"));
         redoItem.setAccelerator(KeyStroke.getKeyStroke("meta shift Z"));
         formatJsonItem.setAccelerator(KeyStroke.getKeyStroke("meta alt L"));
+        formatSelectionItem.setAccelerator(KeyStroke.getKeyStroke("meta alt shift L"));
 
         add(undoItem);
         add(redoItem);
         addSeparator();
         add(formatJsonItem);
+        add(formatSelectionItem);
+        add(minifyItem);
     }
 }
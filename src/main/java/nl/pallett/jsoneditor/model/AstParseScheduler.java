@@ -0,0 +1,158 @@
+package nl.pallett.jsoneditor.model;
+
+import nl.pallett.jsoneditor.ast.AstIndex;
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.CompactAst;
+import nl.pallett.jsoneditor.ast.KeyTable;
+import nl.pallett.jsoneditor.ast.parser.CompactJsonParser;
+import nl.pallett.jsoneditor.ast.parser.FormatParser;
+import nl.pallett.jsoneditor.ast.parser.JsonLinesParser;
+import nl.pallett.jsoneditor.ast.parser.ParallelJsonParser;
+import nl.pallett.jsoneditor.ast.parser.ParallelYamlParser;
+import org.jspecify.annotations.Nullable;
+
+import javax.swing.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Parses document contents into an AST on a background thread.
+ * Only the most recently scheduled parse survives: scheduling a new parse cancels the
+ * one that is still queued or running, so a burst of edits results in a single parse job.
+ * Results are handed back on the EDT.
+ */
+public class AstParseScheduler {
+
+    /**
+     * JSON documents of this size (in chars) and up are parsed into a {@link CompactAst}. JSON Lines documents are
+     * always parsed per line, so an invalid line doesn't invalidate the other records.
+     */
+    public static final int COMPACT_AST_THRESHOLD = 32 * 1024 * 1024;
+
+    /**
+     * For JSON Lines documents with invalid lines the AST tree holds the valid lines. The AST index is built by
+     * the parser together with the AST tree.
+     */
+    public record ParseResult(long revision, DocumentType documentType, @Nullable AstNode astTree,
+                              @Nullable AstIndex astIndex, @Nullable CompactAst compactAst,
+                              @Nullable Exception exception) {
+        public boolean isValid() {
+            return exception == null;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+
+    private final KeyTable keyTable;
+
+    private @Nullable Future<?> inFlight = null;
+
+    public AstParseScheduler() {
+        this(new KeyTable());
+    }
+
+    public AstParseScheduler(KeyTable keyTable) {
+        this.keyTable = keyTable;
+
+        executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "ast-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // don't keep an idle thread around for every open document
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public synchronized void schedule(long revision, DocumentType documentType, String contents, Consumer<ParseResult> onFinished) {
+        cancel();
+
+        inFlight = executor.submit(() -> {
+            ParseResult result = parse(revision, documentType, contents);
+
+            if (result != null && !Thread.currentThread().isInterrupted()) {
+                SwingUtilities.invokeLater(() -> onFinished.accept(result));
+            }
+        });
+    }
+
+    /**
+     * Builds the offset index of a tree that was reparsed incrementally, so the EDT doesn't walk the whole tree after
+     * every edit. Like a parse it is cancelled by the next schedule. The tree can be changed by a newer edit while it
+     * is indexed, the caller discards an index of an outdated tree.
+     */
+    public synchronized void scheduleIndex(AstNode astTree, Consumer<AstIndex> onFinished) {
+        cancel();
+
+        inFlight = executor.submit(() -> {
+            AstIndex index;
+            try {
+                index = new AstIndex(astTree);
+            } catch (RuntimeException e) {
+                // the tree was changed while it was indexed, a newer index is on its way
+                return;
+            }
+
+            if (!Thread.currentThread().isInterrupted()) {
+                SwingUtilities.invokeLater(() -> onFinished.accept(index));
+            }
+        });
+    }
+
+    /**
+     * Parses on the calling thread, for when the result is needed right away. A scheduled parse is cancelled.
+     *
+     * @return null when the calling thread was interrupted while parsing
+     */
+    public @Nullable ParseResult parseNow(long revision, DocumentType documentType, String contents) {
+        cancel();
+        return parse(revision, documentType, contents);
+    }
+
+    public synchronized void cancel() {
+        if (inFlight != null) {
+            inFlight.cancel(true);
+            inFlight = null;
+        }
+    }
+
+    public synchronized void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    static boolean usesCompactAst(DocumentType documentType, int length) {
+        return documentType == DocumentType.JSON && length >= COMPACT_AST_THRESHOLD;
+    }
+
+    private @Nullable ParseResult parse(long revision, DocumentType documentType, String contents) {
+        try {
+            if (usesCompactAst(documentType, contents.length())) {
+                return new ParseResult(revision, documentType, null, null, new CompactJsonParser().parse(contents), null);
+            }
+
+            AstIndex.Builder indexBuilder = new AstIndex.Builder();
+
+            if (documentType == DocumentType.JSON_LINES) {
+                JsonLinesParser.Result result = new JsonLinesParser(true, keyTable).parseLines(contents, indexBuilder);
+                return new ParseResult(revision, documentType, result.root(), indexBuilder.build(), null, result.exception());
+            }
+
+            FormatParser parser = (documentType == DocumentType.YAML)
+                ? new ParallelYamlParser(keyTable)
+                : new ParallelJsonParser(true, keyTable);
+
+            AstNode astTree = parser.parse(contents, indexBuilder);
+            return new ParseResult(revision, documentType, astTree, indexBuilder.build(), null, null);
+        } catch (CancellationException e) {
+            // newer contents arrived while parsing
+            return null;
+        } catch (Exception e) {
+            return new ParseResult(revision, documentType, null, null, null, e);
+        }
+    }
+}
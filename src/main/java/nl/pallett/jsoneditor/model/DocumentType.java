@@ -1,6 +1,18 @@
 package nl.pallett.jsoneditor.model;
 
 public enum DocumentType {
-    JSON,
-    YAML
+    JSON("JSON"),
+    YAML("YAML"),
+    JSON_LINES("JSON Lines");
+
+    private final String displayName;
+
+    DocumentType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
 }
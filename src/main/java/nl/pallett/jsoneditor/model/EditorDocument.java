@@ -1,21 +1,32 @@
 package nl.pallett.jsoneditor.model;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
 import nl.pallett.jsoneditor.ast.AstConverter;
+import nl.pallett.jsoneditor.ast.AstIndex;
 import nl.pallett.jsoneditor.ast.AstNode;
-import nl.pallett.jsoneditor.ast.parser.FormatParser;
-import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
-import nl.pallett.jsoneditor.ast.parser.YamlParserAdapter;
+import nl.pallett.jsoneditor.ast.CompactAst;
+import nl.pallett.jsoneditor.ast.KeyTable;
+import nl.pallett.jsoneditor.ast.LineIndex;
+import nl.pallett.jsoneditor.ast.parser.IncrementalJsonLinesParser;
+import nl.pallett.jsoneditor.ast.parser.IncrementalJsonParser;
+import nl.pallett.jsoneditor.ast.parser.IncrementalYamlParser;
+import nl.pallett.jsoneditor.ast.parser.JsonLinesException;
 import nl.pallett.jsoneditor.util.FileUtil;
 import nl.pallett.jsoneditor.util.HashUtil;
+import nl.pallett.jsoneditor.util.ObjectMapperUtil;
 import nl.pallett.jsoneditor.util.StringUtil;
 import org.jspecify.annotations.Nullable;
 
+import javax.swing.*;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class EditorDocument {
     public enum ContentsSource {
@@ -30,23 +41,66 @@ public class EditorDocument {
         DIRTY_MARK,
         FILE_PATH,
         IS_VALID,
-        DOCUMENT_TYPE
+        DOCUMENT_TYPE,
+        AST_INDEX
     }
 
-    public record ContentsChangedEvent (String oldContent, String newContent, ContentsSource source) {}
+    /**
+     * @param edit the change from the old to the new contents, null when it isn't known
+     */
+    public record ContentsChangedEvent (
+        String oldContent, String newContent, ContentsSource source, @Nullable TextEdit edit) {}
 
     private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
 
     private final AstConverter astConverter = new AstConverter();
 
+    private final AstParseScheduler parseScheduler;
+
+    private final IncrementalJsonParser incrementalJsonParser;
+
+    private final IncrementalYamlParser incrementalYamlParser;
+
+    private final IncrementalJsonLinesParser incrementalJsonLinesParser;
+
     private String name;
 
     private @Nullable Path filePath;
 
     private String contents = "";
 
+    /**
+     * Line starts of the contents, patched on edits
+     */
+    private LineIndex lineIndex = new LineIndex("");
+
+    /**
+     * Incremented on every contents change, used to discard parse results of outdated contents
+     */
+    private long contentsRevision = 0;
+
     private @Nullable AstNode astTree;
 
+    /**
+     * Offset index of the AST tree, null while it is rebuilt after an incremental reparse
+     */
+    private @Nullable AstIndex astIndex;
+
+    /**
+     * Used instead of the AST tree for very large JSON documents
+     */
+    private @Nullable CompactAst compactAst;
+
+    /**
+     * Contents revision the current AST tree was parsed from
+     */
+    private long astRevision = -1;
+
+    /**
+     * Document type the current AST tree was parsed as, differs from the document type while converting
+     */
+    private DocumentType astDocumentType = DocumentType.JSON;
+
     private boolean dirty = false;
 
     private long dirtyChecksum;
@@ -57,13 +111,33 @@ public class EditorDocument {
 
     private @Nullable Exception parseException = null;
 
+    /**
+     * Errors of the invalid lines of a JSON Lines document, patched together with the AST tree
+     */
+    private final List<JsonLinesException.LineError> lineErrors = new ArrayList<>();
+
     public EditorDocument (String name, @Nullable Path filePath) {
+        this(name, filePath, new KeyTable());
+    }
+
+    /**
+     * @param keyTable symbol table for property keys, can be shared between documents
+     */
+    public EditorDocument (String name, @Nullable Path filePath, KeyTable keyTable) {
         this.name = name;
         this.filePath = filePath;
+        this.parseScheduler = new AstParseScheduler(keyTable);
+        this.incrementalJsonParser = new IncrementalJsonParser(keyTable);
+        this.incrementalYamlParser = new IncrementalYamlParser(keyTable);
+        this.incrementalJsonLinesParser = new IncrementalJsonLinesParser(keyTable);
 
         if (filePath != null) {
             String extension = FileUtil.getExtension(filePath);
-            documentType = extension.equals("json") ? DocumentType.JSON : DocumentType.YAML;
+            documentType = switch (extension) {
+                case "json" -> DocumentType.JSON;
+                case "jsonl", "ndjson" -> DocumentType.JSON_LINES;
+                default -> DocumentType.YAML;
+            };
 
             try {
                 setContents(Files.readString(filePath), ContentsSource.OTHER);
@@ -78,16 +152,27 @@ public class EditorDocument {
     }
 
     public void setDocumentType(DocumentType documentType) {
+        // only contents that parse as the old document type are converted, anything else is kept as it is
+        boolean convert = hasContents() && canBeConverted();
+
         DocumentType oldType = this.documentType;
         this.documentType = documentType;
 
         pcs.firePropertyChange(Property.DOCUMENT_TYPE.name(), oldType, documentType);
 
+        long revisionBeforeConvert = contentsRevision;
+
         // auto-convert existing contents (using AST tree) to new document type
-        String newContent = this.exportAs(documentType);
+        String newContent = convert ? this.exportAs(documentType) : null;
         if (newContent != null) {
             this.setContents(newContent, ContentsSource.OTHER);
         }
+
+        // contents didn't change, make sure any parse with the old document type is discarded
+        if (revisionBeforeConvert == contentsRevision && hasContents()) {
+            contentsRevision++;
+            recalculateAstTree();
+        }
     }
 
     public DocumentType getDocumentType() {
@@ -106,11 +191,50 @@ public class EditorDocument {
         return filePath;
     }
 
+    /**
+     * Whether the contents can be converted to another document type. When the background parse of the latest
+     * contents hasn't finished yet they are parsed right away, so edits made just before converting aren't lost.
+     */
+    public boolean canBeConverted() {
+        if (astRevision != contentsRevision || astDocumentType != documentType) {
+            AstParseScheduler.ParseResult result = parseScheduler.parseNow(contentsRevision, documentType, contents);
+            if (result != null) {
+                applyParseResult(result);
+            }
+        }
+        return valid && astRevision == contentsRevision && astDocumentType == documentType;
+    }
+
+    /**
+     * Writes the AST as a document of the given type, formatted in the same walk over the tree
+     *
+     * @return null when the AST doesn't match the current contents or they are invalid
+     */
     public @Nullable String exportAs(DocumentType convertTo) {
+        // JSON Lines documents with invalid lines have a tree of only their valid lines
+        if (!valid || astRevision != contentsRevision) {
+            return null;
+        }
+
+        var writer = new SegmentedStringWriter(ObjectMapperUtil.getJsonInstance().getFactory()._getBufferRecycler());
+
         try {
-            String converted = StringUtil.convertOjectTreeToString(astConverter.toObjectTree(astTree), convertTo);
-            return StringUtil.formatCode(documentType, converted);
-        } catch (JsonProcessingException e) {
+            JsonGenerator generator = ObjectMapperUtil.createGenerator(writer, convertTo);
+            boolean written = (compactAst != null)
+                ? astConverter.write(compactAst, astDocumentType, convertTo, generator)
+                : astTree != null && astConverter.write(astTree, astDocumentType, convertTo, generator);
+            // an empty YAML document can't be closed, the generator only wrote to memory so it can be dropped
+            if (!written) {
+                return null;
+            }
+            generator.close();
+
+            if (convertTo == DocumentType.JSON_LINES) {
+                // every record ends with a newline
+                writer.write('\n');
+            }
+            return writer.getAndClear();
+        } catch (IOException e) {
             System.err.println(e);
             return null;
         }
@@ -140,6 +264,10 @@ public class EditorDocument {
         return contents;
     }
 
+    public LineIndex getLineIndex() {
+        return lineIndex;
+    }
+
     private void autoDetectDocumentType(String contents) {
         DocumentType documentType = StringUtil.detectFormat(contents);
         if (documentType != null) {
@@ -148,6 +276,14 @@ public class EditorDocument {
     }
 
     public void setContents(String newContents, ContentsSource contentsSource) {
+        setContents(newContents, contentsSource, null);
+    }
+
+    /**
+     * Sets new contents. When the edit that lead to the new contents is known, the AST tree is
+     * updated incrementally if possible instead of re-parsing the whole document.
+     */
+    public void setContents(String newContents, ContentsSource contentsSource, @Nullable TextEdit edit) {
         // don't do anything if new contents is exactly the same as the old
         if (newContents.equals(contents)) {
             return;
@@ -159,15 +295,29 @@ public class EditorDocument {
         }
 
         String oldContents = this.contents;
+        // the tree of a JSON Lines document with invalid lines holds the valid ones, its errors are patched with it
+        boolean astUpToDate = (valid || !lineErrors.isEmpty()) && astTree != null && astRevision == contentsRevision;
+
         this.contents = newContents;
+        this.contentsRevision++;
+
+        TextEdit knownEdit = (edit != null && edit.appliesTo(oldContents, newContents)) ? edit : null;
+        if (knownEdit != null) {
+            lineIndex.update(newContents, knownEdit.offset(), knownEdit.removedLength(), knownEdit.insertedLength());
+        } else {
+            lineIndex = new LineIndex(newContents);
+        }
 
         pcs.firePropertyChange(Property.CONTENTS.name(), null,
-            new ContentsChangedEvent(oldContents, this.contents, contentsSource));
+            new ContentsChangedEvent(oldContents, this.contents, contentsSource, knownEdit));
 
         // when setting new contents calculate new hash for dirty property
         recalculateDirtyMark();
 
         // when setting (new contents) calculate AST tree
+        if (knownEdit != null && astUpToDate && reparseIncrementally(oldContents, knownEdit)) {
+            return;
+        }
         recalculateAstTree();
     }
 
@@ -179,6 +329,29 @@ public class EditorDocument {
         return astTree;
     }
 
+    /**
+     * The parser builds the index together with the AST tree. After an incremental reparse it is rebuilt on the
+     * parser thread and this returns null until {@link Property#AST_INDEX} is fired.
+     */
+    public @Nullable AstIndex getAstIndex() {
+        return astIndex;
+    }
+
+    public @Nullable CompactAst getCompactAst() {
+        return compactAst;
+    }
+
+    public long getContentsRevision() {
+        return contentsRevision;
+    }
+
+    /**
+     * Stops any pending parsing of the contents. To be called when the document is closed
+     */
+    public void close() {
+        parseScheduler.shutdown();
+    }
+
 
     /**
      * Used to reset the dirty mark of the document. To be called on creation and on-save
@@ -204,6 +377,138 @@ public class EditorDocument {
         return !contents.isEmpty();
     }
 
+    /**
+     * Minifying writes what it parsed, so only a valid document is minified
+     */
+    public boolean canBeMinified() {
+        return canBeFormatted() && valid;
+    }
+
+    /**
+     * Minifies the contents on a background thread, so a huge document doesn't block the UI. The result is only
+     * applied when the contents didn't change in the meantime.
+     */
+    public void minifyContents() {
+        if (!canBeMinified()) {
+            return;
+        }
+
+        String source = contents;
+        DocumentType sourceType = documentType;
+        long revision = contentsRevision;
+
+        Thread.ofVirtual().name("minify-" + name).start(() -> {
+            try {
+                String minified = StringUtil.minifyCode(sourceType, source);
+                SwingUtilities.invokeLater(() -> {
+                    if (revision == contentsRevision && sourceType == documentType) {
+                        setContents(minified, ContentsSource.OTHER);
+                    }
+                });
+            } catch (IOException e) {
+                // fail on the EDT, like formatting
+                SwingUtilities.invokeLater(() -> {
+                    throw new RuntimeException(e);
+                });
+            }
+        });
+    }
+
+    /**
+     * A range can be formatted when the AST matches the contents, JSON Lines records have to stay on their line
+     */
+    public boolean canFormatRange() {
+        return valid && astRevision == contentsRevision && (astTree != null || compactAst != null)
+            && astDocumentType == documentType && documentType != DocumentType.JSON_LINES;
+    }
+
+    /**
+     * Formats the smallest object or array containing the range, a value with a key counts from the start of its
+     * key. The node is indented to match its depth and only its text is replaced, so the AST is updated
+     * incrementally instead of formatting and parsing the whole document.
+     */
+    public void formatRange(int start, int end) {
+        if (!canFormatRange()) {
+            return;
+        }
+
+        TextRange range = (compactAst != null) ? findContainer(compactAst, start, end) : findContainer(start, end);
+        if (range == null) {
+            return;
+        }
+
+        String text = contents.substring(range.start(), range.end());
+        int lineStart = lineIndex.getLineStart(lineIndex.getLine(range.start()));
+        String formatted;
+        try {
+            if (documentType == DocumentType.YAML) {
+                // a block node is formatted at the column it starts at, so its lines keep their relative indent
+                String indent = " ".repeat(range.start() - lineStart);
+                formatted = StringUtil.indentLines(StringUtil.formatYaml(indent + text), indent);
+            } else {
+                // following lines are indented like the line the node starts on
+                formatted = StringUtil.indentLines(StringUtil.formatJson(text),
+                    StringUtil.getLeadingWhitespace(contents.substring(lineStart, range.start())));
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+
+        // the whitespace up to the next node stays as it is
+        int textEnd = text.stripTrailing().length();
+        String replacement = formatted.stripTrailing() + text.substring(textEnd);
+        if (replacement.equals(text)) {
+            return;
+        }
+
+        String newContents = contents.substring(0, range.start()) + replacement + contents.substring(range.end());
+        setContents(newContents, ContentsSource.OTHER,
+            new TextEdit(range.start(), text.length(), replacement.length()));
+    }
+
+    private record TextRange(int start, int end) {}
+
+    private @Nullable TextRange findContainer(int start, int end) {
+        if (astTree == null) {
+            return null;
+        }
+        // the user asked for this, so don't wait for an index that is being rebuilt
+        if (astIndex == null) {
+            astIndex = new AstIndex(astTree);
+        }
+        AstIndex index = astIndex;
+
+        for (AstNode node = index.findNode(start); node != null; node = node.getParent()) {
+            AstNode value = (node.getType() == AstNode.Type.PROPERTY) ? valueOfProperty(node) : node;
+            if (value != null && isContainer(value.getType()) && node.startOffset <= start && end <= value.endOffset) {
+                return new TextRange(value.startOffset, value.endOffset);
+            }
+        }
+        return null;
+    }
+
+    private @Nullable TextRange findContainer(CompactAst ast, int start, int end) {
+        int node = ast.findDeepest(start);
+        while (node != CompactAst.NONE && node != ast.root()) {
+            if (isContainer(ast.getType(node)) && ast.getStartOffset(node) <= start && end <= ast.getEndOffset(node)) {
+                return new TextRange(ast.getValueStartOffset(node), ast.getEndOffset(node));
+            }
+            node = ast.getParent(node);
+        }
+        return null;
+    }
+
+    private static @Nullable AstNode valueOfProperty(AstNode property) {
+        return property.getChildren().stream()
+            .filter(child -> child.getType() != AstNode.Type.COMMENT)
+            .findFirst()
+            .orElse(null);
+    }
+
+    private static boolean isContainer(AstNode.Type type) {
+        return type == AstNode.Type.OBJECT || type == AstNode.Type.ARRAY;
+    }
+
     public void formatContents() {
         if (!canBeFormatted()) {
             return;
@@ -228,28 +533,82 @@ public class EditorDocument {
     }
 
     private void recalculateAstTree() {
-        AstNode oldTree = astTree;
+        parseScheduler.schedule(contentsRevision, documentType, contents, this::applyParseResult);
+    }
 
-        FormatParser parser = switch(documentType) {
-            case JSON -> new JsonParserAdapter();
-            case YAML -> new YamlParserAdapter();
+    private boolean reparseIncrementally(String oldContents, TextEdit edit) {
+        boolean updated = switch (documentType) {
+            case JSON -> incrementalJsonParser.reparse(astTree, contents,
+                edit.offset(), edit.removedLength(), edit.insertedLength());
+            case YAML -> incrementalYamlParser.reparse(astTree, oldContents, contents,
+                edit.offset(), edit.removedLength(), edit.insertedLength());
+            case JSON_LINES -> incrementalJsonLinesParser.reparse(astTree, lineErrors, lineIndex, oldContents, contents,
+                edit.offset(), edit.removedLength(), edit.insertedLength());
         };
-        try {
-            astTree = parser.parse(getContents());
+        if (!updated) {
+            return false;
+        }
+
+        astRevision = contentsRevision;
+        astIndex = null;
+
+        // the next edit changes the tree again, an index of an older tree is dropped
+        AstNode indexedTree = astTree;
+        long indexedRevision = astRevision;
+        parseScheduler.scheduleIndex(indexedTree, index -> {
+            if (astTree == indexedTree && astRevision == indexedRevision && astIndex == null) {
+                astIndex = index;
+                pcs.firePropertyChange(Property.AST_INDEX.name(), null, index);
+            }
+        });
+
+        // tree is updated in-place so there is no meaningful old value
+        pcs.firePropertyChange(Property.AST_TREE.name(), null, astTree);
+
+        if (documentType == DocumentType.JSON_LINES) {
+            setIsValid(lineErrors.isEmpty(), lineErrors.isEmpty() ? null : new JsonLinesException(lineErrors));
+        }
+
+        return true;
+    }
+
+    private void applyParseResult(AstParseScheduler.ParseResult result) {
+        // contents changed again while parsing, a newer parse is on its way
+        if (result.revision() != contentsRevision) {
+            return;
+        }
+
+        // JSON Lines documents with invalid lines still have a tree of the valid lines
+        if (result.astTree() != null || result.compactAst() != null) {
+            AstNode oldTree = astTree;
+            astTree = result.astTree();
+            astIndex = result.astIndex();
+            compactAst = result.compactAst();
+            astRevision = result.revision();
+            astDocumentType = result.documentType();
+            lineErrors.clear();
+            if (result.exception() instanceof JsonLinesException exception) {
+                lineErrors.addAll(exception.getErrors());
+            }
             pcs.firePropertyChange(Property.AST_TREE.name(), oldTree, astTree);
+        }
 
+        if (result.isValid()) {
             setIsValid(true, null);
-        } catch (Exception e) {
-            setIsValid(false, e);
-            e.printStackTrace(); // TODO: add as debug logging
+        } else {
+            setIsValid(false, result.exception());
+            result.exception().printStackTrace(); // TODO: add as debug logging
         }
     }
 
     private void setIsValid(boolean valid, @Nullable Exception exception) {
         boolean oldValid = this.valid;
+        Exception oldException = this.parseException;
         this.valid = valid;
         this.parseException = exception;
 
-        pcs.firePropertyChange(Property.IS_VALID.name(), oldValid, this.valid);
+        // an invalid document can get other errors, without an old value listeners are notified of those as well
+        Boolean oldValue = (oldException != exception) ? null : oldValid;
+        pcs.firePropertyChange(Property.IS_VALID.name(), oldValue, (Boolean) this.valid);
     }
 }
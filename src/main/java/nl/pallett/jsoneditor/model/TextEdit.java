@@ -0,0 +1,37 @@
+package nl.pallett.jsoneditor.model;
+
+/**
+ * Describes a single change of the contents: the text in [offset, offset + removedLength) of the old
+ * contents was replaced by the text in [offset, offset + insertedLength) of the new contents.
+ */
+public record TextEdit(int offset, int removedLength, int insertedLength) {
+
+    public static TextEdit insert(int offset, int length) {
+        return new TextEdit(offset, 0, length);
+    }
+
+    public static TextEdit remove(int offset, int length) {
+        return new TextEdit(offset, length, 0);
+    }
+
+    /**
+     * Combines this edit with an edit that was applied after it (with offsets relative to the contents
+     * after this edit) into a single edit which covers both.
+     */
+    public TextEdit mergeWith(TextEdit next) {
+        int start = Math.min(offset, next.offset);
+        int endAfterThis = Math.max(offset + insertedLength, next.offset + next.removedLength);
+
+        int oldEnd = endAfterThis - (insertedLength - removedLength);
+        int newEnd = endAfterThis + (next.insertedLength - next.removedLength);
+
+        return new TextEdit(start, oldEnd - start, newEnd - start);
+    }
+
+    public boolean appliesTo(String oldContents, String newContents) {
+        return offset >= 0
+            && offset + removedLength <= oldContents.length()
+            && offset + insertedLength <= newContents.length()
+            && newContents.length() - oldContents.length() == insertedLength - removedLength;
+    }
+}
@@ -1,7 +1,9 @@
 package nl.pallett.jsoneditor.ui.editor.code;
 
+import nl.pallett.jsoneditor.ast.LineIndex;
 import nl.pallett.jsoneditor.model.EditorDocument;
 import nl.pallett.jsoneditor.model.EditorDocument.Property;
+import nl.pallett.jsoneditor.model.TextEdit;
 import nl.pallett.jsoneditor.view.editor.CaretPositionListener;
 import nl.pallett.jsoneditor.view.editor.CodePanelView;
 import org.fife.rsta.ui.GoToDialog;
@@ -15,6 +17,7 @@ import org.fife.ui.rtextarea.RTextScrollPane;
 import org.fife.ui.rtextarea.SearchContext;
 import org.fife.ui.rtextarea.SearchEngine;
 import org.fife.ui.rtextarea.SearchResult;
+import org.jspecify.annotations.Nullable;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
@@ -39,6 +42,11 @@ public class CodePanel extends JPanel implements CodePanelView, SearchListener {
 
     private final ReplaceDialog replaceDialog;
 
+    /**
+     * All edits made in the text area since the contents were last pushed to the document
+     */
+    private @Nullable TextEdit pendingEdit = null;
+
     public CodePanel (EditorDocument editorDocument) {
         this.editorDocument = editorDocument;
 
@@ -85,12 +93,18 @@ public class CodePanel extends JPanel implements CodePanelView, SearchListener {
 
             int line = 0;
             int column = 0;
-            try {
-                line = textArea.getLineOfOffset(caretPos);
-                int lineStart = textArea.getLineStartOffset(line);
-                column = caretPos - lineStart;
-            } catch (BadLocationException e) {
-                // ignore for now
+            if (isInSyncWithDocument()) {
+                LineIndex lineIndex = editorDocument.getLineIndex();
+                line = lineIndex.getLine(caretPos) - 1;
+                column = lineIndex.getColumn(caretPos) - 1;
+            } else {
+                try {
+                    line = textArea.getLineOfOffset(caretPos);
+                    int lineStart = textArea.getLineStartOffset(line);
+                    column = caretPos - lineStart;
+                } catch (BadLocationException e) {
+                    // ignore for now
+                }
             }
             listener.onCaretPositionChanged(event.getDot(), event.getMark(), line+1, column);
         });
@@ -130,7 +144,9 @@ public class CodePanel extends JPanel implements CodePanelView, SearchListener {
         dialog.setVisible(true);
         int line = dialog.getLineNumber();
 
-        if (line>0) {
+        if (line>0 && isInSyncWithDocument()) {
+            textArea.setCaretPosition(editorDocument.getLineIndex().getLineStart(line));
+        } else if (line>0) {
             try {
                 textArea.setCaretPosition(textArea.getLineStartOffset(line-1));
             } catch (BadLocationException ble) { // Never happens
@@ -165,6 +181,16 @@ public class CodePanel extends JPanel implements CodePanelView, SearchListener {
         return textArea.canRedo();
     }
 
+    @Override
+    public int getSelectionStart() {
+        return textArea.getSelectionStart();
+    }
+
+    @Override
+    public int getSelectionEnd() {
+        return textArea.getSelectionEnd();
+    }
+
     @Override
     public void scrollTo(int offset, Runnable runWhenFinished) {
         scroller.scrollToOffsetAdaptive(textArea, offset, runWhenFinished);
@@ -176,9 +202,22 @@ public class CodePanel extends JPanel implements CodePanelView, SearchListener {
                 EditorDocument.ContentsChangedEvent newContentsEvent = (EditorDocument.ContentsChangedEvent) evt.getNewValue();
 
                 // Avoid updating if the editor already has the same text
-                if (!textArea.getText().equals(newContentsEvent.newContent())) {
+                String text = textArea.getText();
+                if (!text.equals(newContentsEvent.newContent())) {
+                    // only the edited range is replaced when the editor shows the old contents
+                    TextEdit edit = newContentsEvent.edit();
+                    boolean replaceRange = edit != null && text.equals(newContentsEvent.oldContent());
+
                     // Must update on EDT
-                    SwingUtilities.invokeLater(() -> textArea.setText(newContentsEvent.newContent()));
+                    SwingUtilities.invokeLater(() -> {
+                        if (replaceRange) {
+                            String inserted = newContentsEvent.newContent()
+                                .substring(edit.offset(), edit.offset() + edit.insertedLength());
+                            textArea.replaceRange(inserted, edit.offset(), edit.offset() + edit.removedLength());
+                        } else {
+                            textArea.setText(newContentsEvent.newContent());
+                        }
+                    });
                 }
             }
 
@@ -198,12 +237,26 @@ public class CodePanel extends JPanel implements CodePanelView, SearchListener {
     }
 
     private void onTextChanged () {
+        TextEdit edit = pendingEdit;
+        pendingEdit = null;
+
         String text = textArea.getText();
         if (!text.equals(editorDocument.getContents())) {
-            editorDocument.setContents(text, EditorDocument.ContentsSource.TEXTAREA);
+            editorDocument.setContents(text, EditorDocument.ContentsSource.TEXTAREA, edit);
         }
     }
 
+    /**
+     * @return whether the text area shows the contents of the document, so its line index can be used
+     */
+    private boolean isInSyncWithDocument() {
+        return pendingEdit == null && textArea.getDocument().getLength() == editorDocument.getContents().length();
+    }
+
+    private void recordEdit(TextEdit edit) {
+        pendingEdit = (pendingEdit == null) ? edit : pendingEdit.mergeWith(edit);
+    }
+
     private void initChangeListener() {
         Timer debounceTimer = new Timer(300, e -> onTextChanged());
         debounceTimer.setRepeats(false);
@@ -216,11 +269,13 @@ public class CodePanel extends JPanel implements CodePanelView, SearchListener {
 
             @Override
             public void insertUpdate(DocumentEvent e) {
+                recordEdit(TextEdit.insert(e.getOffset(), e.getLength()));
                 restartTimer();
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
+                recordEdit(TextEdit.remove(e.getOffset(), e.getLength()));
                 restartTimer();
             }
 
@@ -233,7 +288,7 @@ public class CodePanel extends JPanel implements CodePanelView, SearchListener {
 
     private void setSyntaxStyle() {
         String syntaxStyle = switch(editorDocument.getDocumentType()) {
-            case JSON -> SyntaxConstants.SYNTAX_STYLE_JSON;
+            case JSON, JSON_LINES -> SyntaxConstants.SYNTAX_STYLE_JSON;
             case YAML -> SyntaxConstants.SYNTAX_STYLE_YAML;
         };
         textArea.setSyntaxEditingStyle(syntaxStyle);
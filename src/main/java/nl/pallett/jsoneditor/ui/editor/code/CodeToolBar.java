@@ -13,6 +13,8 @@ public class CodeToolBar extends JToolBar {
 
     private final JToggleButton yamlButton;
 
+    private final JToggleButton jsonLinesButton;
+
     public CodeToolBar(EditorDocument editorDocument) {
         this.editorDocument = editorDocument;
 
@@ -22,23 +24,30 @@ public class CodeToolBar extends JToolBar {
         jsonButton.setMargin(new Insets(5, 5, 5, 5));
         yamlButton = new JToggleButton("YAML");
         yamlButton.setMargin(new Insets(5, 5, 5, 5));
+        jsonLinesButton = new JToggleButton("JSON Lines");
+        jsonLinesButton.setMargin(new Insets(5, 5, 5, 5));
 
         setSelectedMode();
 
         ButtonGroup group = new ButtonGroup();
         group.add(jsonButton);
         group.add(yamlButton);
+        group.add(jsonLinesButton);
 
         jsonButton.setSelected(editorDocument.getDocumentType() == DocumentType.JSON);
         yamlButton.setSelected(editorDocument.getDocumentType() == DocumentType.YAML);
+        jsonLinesButton.setSelected(editorDocument.getDocumentType() == DocumentType.JSON_LINES);
 
         add(Box.createHorizontalGlue());
         add(jsonButton);
         add(Box.createHorizontalStrut(5));
         add(yamlButton);
+        add(Box.createHorizontalStrut(5));
+        add(jsonLinesButton);
 
         jsonButton.addActionListener(event -> changeType(DocumentType.JSON));
         yamlButton.addActionListener(event -> changeType(DocumentType.YAML));
+        jsonLinesButton.addActionListener(event -> changeType(DocumentType.JSON_LINES));
 
         setBorder(BorderFactory.createEmptyBorder(2, 0, 3, 0));
 
@@ -52,14 +61,32 @@ public class CodeToolBar extends JToolBar {
     private void changeType(DocumentType newType) {
         if (editorDocument.getDocumentType() == newType) {
             // do nothing
+            return;
         }
 
-        // show warning when converting from YAML -> JSON because comments are lost
-        if (newType == DocumentType.JSON && editorDocument.hasContents()) {
+        // contents with errors can't be converted, show warning that they are kept as they are
+        if (editorDocument.hasContents() && !editorDocument.canBeConverted()) {
+            int result = JOptionPane.showConfirmDialog(
+                this.getParent(),
+                "The contents are not valid " + editorDocument.getDocumentType() + " and can't be converted to "
+                    + newType + ".\n\n"
+                    + "Do you want to change the document type without converting?",
+                "Converting to " + newType,
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.WARNING_MESSAGE
+            );
+
+            if (result == JOptionPane.NO_OPTION) {
+                return;
+            }
+        } else if (editorDocument.getDocumentType() == DocumentType.YAML && newType != DocumentType.YAML
+            && editorDocument.hasContents()) {
+            // show warning when converting from YAML -> JSON because comments are lost
             int result = JOptionPane.showConfirmDialog(
                 this.getParent(),
-                "When converting from JSON to YAML all comments will be lost.\n\nAre you sure you want to continue?",
-                "Converting to JSON",
+                "When converting from YAML to " + newType + " all comments will be lost.\n\n"
+                    + "Are you sure you want to continue?",
+                "Converting to " + newType,
                 JOptionPane.YES_NO_OPTION,
                 JOptionPane.WARNING_MESSAGE
             );
@@ -75,5 +102,6 @@ public class CodeToolBar extends JToolBar {
     private void setSelectedMode() {
         jsonButton.setSelected(editorDocument.getDocumentType() == DocumentType.JSON);
         yamlButton.setSelected(editorDocument.getDocumentType() == DocumentType.YAML);
+        jsonLinesButton.setSelected(editorDocument.getDocumentType() == DocumentType.JSON_LINES);
     }
 }
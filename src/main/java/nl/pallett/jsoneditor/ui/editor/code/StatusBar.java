@@ -2,6 +2,8 @@ package nl.pallett.jsoneditor.ui.editor.code;
 
 import com.fasterxml.jackson.core.JsonLocation;
 import com.fasterxml.jackson.core.JsonParseException;
+import nl.pallett.jsoneditor.ast.LineIndex;
+import nl.pallett.jsoneditor.ast.parser.JsonLinesException;
 import nl.pallett.jsoneditor.model.EditorDocument;
 import org.snakeyaml.engine.v2.exceptions.Mark;
 import org.snakeyaml.engine.v2.exceptions.ParserException;
@@ -56,9 +58,18 @@ public class StatusBar extends JPanel {
             validLabel.setToolTipText("");
         } else {
             message = "❌ Invalid " + editorDocument.getDocumentType();
-            if (exception instanceof JsonParseException jsonParseException) {
+            if (exception instanceof JsonLinesException jsonLinesException) {
+                JsonLinesException.LineError firstError = jsonLinesException.getFirstError();
+                message += " on " + jsonLinesException.getErrors().size() + " line(s), first at line "
+                    + firstError.line() + ", column " + firstError.column();
+            } else if (exception instanceof JsonParseException jsonParseException) {
                 JsonLocation errorLocation = jsonParseException.getLocation();
-                if (errorLocation != null) {
+                if (errorLocation != null && errorLocation.getCharOffset() >= 0) {
+                    LineIndex lineIndex = editorDocument.getLineIndex();
+                    int offset = (int) Math.min(errorLocation.getCharOffset(), editorDocument.getContents().length());
+                    message += " at line " + lineIndex.getLine(offset)
+                        + ", column " + lineIndex.getColumn(offset);
+                } else if (errorLocation != null) {
                     message += " at line " + errorLocation.getLineNr()
                         + ", column " + errorLocation.getColumnNr();
                 }
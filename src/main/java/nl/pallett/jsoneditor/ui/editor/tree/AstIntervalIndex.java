@@ -1,108 +1,80 @@
 package nl.pallett.jsoneditor.ui.editor.tree;
 
+import nl.pallett.jsoneditor.ast.AstIndex;
 import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.CompactAst;
 import org.jspecify.annotations.Nullable;
 
-import javax.swing.tree.DefaultMutableTreeNode;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import javax.swing.tree.TreePath;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
 
+/**
+ * Finds the tree row for a document offset. Looks up the node in the {@link AstIndex} of the document and
+ * returns the path to the row showing it. The index is asked for when a row is looked up, so the index that is rebuilt
+ * after an incremental reparse is used once it is ready.
+ */
 public class AstIntervalIndex {
 
-    private final IntervalNode root;
+    private final @Nullable Supplier<@Nullable AstIndex> astIndex;
 
-    private final Map<AstNode, DefaultMutableTreeNode> nodeToItem = new HashMap<>();
+    private final @Nullable AstTreeModel model;
 
-    public AstIntervalIndex(DefaultMutableTreeNode astRoot) {
-        List<AstNode> nodes = new ArrayList<>();
-        collect(astRoot, nodes);
-        root = build(nodes);
-    }
+    /**
+     * Set when indexing a compact AST, which has its own offset lookup
+     */
+    private final @Nullable CompactTreeNode compactRoot;
 
-    public @Nullable DefaultMutableTreeNode getTreeItemForNode(AstNode node) {
-        return nodeToItem.get(node);
+    public AstIntervalIndex(Supplier<@Nullable AstIndex> astIndex, AstTreeModel model) {
+        this.astIndex = astIndex;
+        this.model = model;
+        this.compactRoot = null;
     }
 
-    public @Nullable AstNode findDeepest(int offset) {
-        return findDeepest(root, offset, null);
+    public AstIntervalIndex(CompactTreeNode compactRoot) {
+        this.astIndex = null;
+        this.model = null;
+        this.compactRoot = compactRoot;
     }
 
-    private @Nullable AstNode findDeepest(IntervalNode node, int offset, @Nullable AstNode best) {
-        if (node == null)
-            return best;
-
-        for (AstNode n : node.overlapping) {
-
-            if (n.startOffset <= offset && offset <= n.endOffset) {
-
-                if (best == null ||
-                    (n.endOffset - n.startOffset) < (best.endOffset - best.startOffset)) {
-
-                    best = n;
-                }
-            }
+    /**
+     * @return path to the smallest row containing the offset
+     */
+    public @Nullable TreePath findPath(int offset) {
+        if (compactRoot != null) {
+            return findPathCompact(compactRoot, offset);
         }
 
-        if (offset < node.center)
-            return findDeepest(node.left, offset, best);
-        else
-            return findDeepest(node.right, offset, best);
+        AstIndex index = astIndex.get();
+        if (index == null) {
+            return null;
+        }
+        AstNode node = index.findNode(offset, model::isShown);
+        return (node != null) ? model.getTreePath(node) : null;
     }
 
-    private IntervalNode build(List<AstNode> nodes) {
-
-        if (nodes.isEmpty())
+    private @Nullable TreePath findPathCompact(CompactTreeNode compactRoot, int offset) {
+        CompactAst ast = compactRoot.getAst();
+        int node = ast.findDeepest(offset);
+        if (node == CompactAst.NONE) {
             return null;
-
-        int min = Integer.MAX_VALUE;
-        int max = Integer.MIN_VALUE;
-
-        for (AstNode n : nodes) {
-
-            min = Math.min(min, n.startOffset);
-            max = Math.max(max, n.endOffset);
         }
 
-        int center = (min + max) / 2;
-
-        List<AstNode> left = new ArrayList<>();
-        List<AstNode> right = new ArrayList<>();
-        List<AstNode> overlap = new ArrayList<>();
-
-        for (AstNode n : nodes) {
-
-            if (n.endOffset < center)
-                left.add(n);
-            else if (n.startOffset > center)
-                right.add(n);
-            else
-                overlap.add(n);
+        Deque<Integer> path = new ArrayDeque<>();
+        for (int current = node; current != ast.root(); current = ast.getParent(current)) {
+            path.push(current);
         }
 
-        return new IntervalNode(center, overlap, build(left), build(right));
-    }
-
-    private void collect(DefaultMutableTreeNode item, List<AstNode> list) {
-        AstNode node = (AstNode) item.getUserObject();
-        list.add(node);
-
-        nodeToItem.put(node, item);
-
-        for (int i = 0; i < item.getChildCount(); i++) {
-            DefaultMutableTreeNode child =
-                (DefaultMutableTreeNode) item.getChildAt(i);
-
-            collect(child, list);
+        // create the tree nodes on the way down
+        CompactTreeNode item = compactRoot;
+        for (int current : path) {
+            item = item.getChildForNode(current);
+            if (item == null) {
+                return null;
+            }
         }
-    }
-
-    private record IntervalNode(
-        int center,
-        List<AstNode> overlapping,
-        IntervalNode left,
-        IntervalNode right
-    ) {}
 
-}
\ No newline at end of file
+        return new TreePath(item.getPath());
+    }
+}
@@ -0,0 +1,703 @@
+package nl.pallett.jsoneditor.ui.editor.tree;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.NodePointer;
+import org.jspecify.annotations.Nullable;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Tree model that shows an AST without copying it: rows are created for the nodes the tree asks for, so only
+ * the expanded nodes cost anything.
+ * <p>
+ * A property with a value, object or array is shown as a single row (the property node), comments other than
+ * block comments are left out and the properties of objects can be sorted by key. The items of a large array
+ * are grouped in buckets of {@value #BUCKET_SIZE}, nested when there are more than that many buckets.
+ * <p>
+ * When the document is parsed again the new AST is compared to the rows the tree has seen, matching them by
+ * pointer. Matching rows keep their identity and only the inserted, removed and changed rows are reported to
+ * the tree, so its expanded and selected rows stay as they are.
+ */
+public class AstTreeModel implements TreeModel {
+
+    /**
+     * Maximum number of rows shown directly below an array or bucket
+     */
+    public static final int BUCKET_SIZE = 1000;
+
+    private final AstTreeNode root;
+
+    private final SortState sortState;
+
+    private final EventListenerList listeners = new EventListenerList();
+
+    /**
+     * Rows created so far, by the node they show
+     */
+    private final Map<AstNode, AstTreeNode> rowsByNode = new IdentityHashMap<>();
+
+    public AstTreeModel(AstNode ast, SortState sortState) {
+        this.root = new AstTreeNode(ast, null);
+        this.sortState = sortState;
+        rowsByNode.put(ast, root);
+    }
+
+    public SortState getSortState() {
+        return sortState;
+    }
+
+    @Override
+    public AstTreeNode getRoot() {
+        return root;
+    }
+
+    @Override
+    public AstTreeNode getChild(Object parent, int index) {
+        AstTreeNode parentRow = (AstTreeNode) parent;
+        List<AstNode> nodes = getChildNodes(parentRow);
+
+        AstTreeNode row = parentRow.children[index];
+        if (row == null) {
+            if (parentRow.childSpan == 0) {
+                row = new AstTreeNode(nodes.get(index), parentRow);
+                rowsByNode.put(row.node, row);
+                rememberShown(row);
+            } else {
+                int start = index * parentRow.childSpan;
+                int end = Math.min(start + parentRow.childSpan, nodes.size());
+                row = AstTreeNode.bucket(parentRow, firstPosition(parentRow) + start, firstPosition(parentRow) + end);
+            }
+            parentRow.children[index] = row;
+        }
+        return row;
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        AstTreeNode row = (AstTreeNode) parent;
+        getChildNodes(row);
+        return row.children.length;
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        AstTreeNode row = (AstTreeNode) node;
+        if (row.isBucket()) {
+            return false;
+        }
+        if (row.childNodes != null) {
+            return row.childNodes.isEmpty();
+        }
+
+        // don't collect the rows of every leaf that is painted
+        AstNode source = rowSource(row.node);
+        for (AstNode child : source.getChildren()) {
+            if (isRow(source, child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (!(child instanceof AstTreeNode row) || row.parent != parent || row.parent.children == null) {
+            return -1;
+        }
+
+        AstTreeNode[] rows = row.parent.children;
+
+        // array items are usually at their own position
+        Integer arrayIndex = row.node.getArrayIndex();
+        if (arrayIndex != null && !row.isBucket()) {
+            int index = arrayIndex - firstPosition(row.parent);
+            if (index >= 0 && index < rows.length && rows[index] == row) {
+                return index;
+            }
+        }
+
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == row) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // the tree is not editable
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener listener) {
+        listeners.add(TreeModelListener.class, listener);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener) {
+        listeners.remove(TreeModelListener.class, listener);
+    }
+
+    /**
+     * Shows a new AST of the document, which may also be the current AST after it was updated in place
+     */
+    public void setAst(AstNode ast) {
+        moveRow(root, ast);
+        updateChildren(root, new TreePath(root));
+    }
+
+    /**
+     * @return whether the node is shown as a row, nodes merged into their property are shown by the property
+     */
+    public boolean isShown(AstNode node) {
+        if (node == root.node) {
+            return true;
+        }
+
+        AstNode parent = node.getParent();
+        return parent != null && rowSource(parent) == parent && isRow(parent, node);
+    }
+
+    /**
+     * @return path to the row showing the node, or null when the node is not part of this tree
+     */
+    public @Nullable TreePath getTreePath(AstNode node) {
+        Deque<AstNode> nodes = new ArrayDeque<>();
+        AstNode current = node;
+        while (current != null && current != root.node) {
+            if (!isMergedIntoProperty(current)) {
+                nodes.push(current);
+            }
+            current = current.getParent();
+        }
+        if (current == null) {
+            return null;
+        }
+
+        List<AstTreeNode> path = new ArrayList<>(nodes.size() + 1);
+        AstTreeNode row = root;
+        path.add(row);
+        for (AstNode pathNode : nodes) {
+            row = findRow(row, pathNode, path);
+            if (row == null) {
+                return null;
+            }
+        }
+        return new TreePath(path.toArray());
+    }
+
+    /**
+     * @return node holding the value, pointer and children shown in the row: for a merged property its value
+     */
+    public static AstNode valueNodeOf(AstNode row) {
+        return isMergedProperty(row) ? row.getChildren().getFirst() : row;
+    }
+
+    /**
+     * @return a single node describing the row, for a merged property a detached node with the key and start
+     * of the property and the value, pointer and end of its value
+     */
+    public static AstNode toItemNode(AstNode row) {
+        if (!isMergedProperty(row)) {
+            return row;
+        }
+
+        AstNode value = row.getChildren().getFirst();
+        AstNode item;
+        if (value.getType() != AstNode.Type.VALUE) {
+            item = AstNode.copyOf(value);
+        } else {
+            item = new AstNode(AstNode.Type.VALUE, row.getKey(), null);
+            item.setValueFrom(value);
+            item.setValueType(value.getValueType());
+            item.setPointer(value.getPointer());
+            item.endOffset = value.endOffset;
+            item.endLine = value.endLine;
+            item.endColumn = value.endColumn;
+        }
+        item.startOffset = row.startOffset;
+        item.startLine = row.startLine;
+        item.startColumn = row.startColumn;
+        return item;
+    }
+
+    private List<AstNode> getChildNodes(AstTreeNode row) {
+        if (row.childNodes == null) {
+            setChildNodes(row, row.isBucket() ? bucketNodes(row) : collectRows(row.node));
+        }
+        return row.childNodes;
+    }
+
+    private void setChildNodes(AstTreeNode row, List<AstNode> nodes) {
+        row.childNodes = nodes;
+        row.childSpan = bucketSpan(row, nodes.size());
+        row.children = new AstTreeNode[(row.childSpan == 0) ? nodes.size() : Math.ceilDiv(nodes.size(), row.childSpan)];
+    }
+
+    /**
+     * @return number of items in a bucket below the row, 0 when its items fit below it
+     */
+    private static int bucketSpan(AstTreeNode row, int items) {
+        if (items <= BUCKET_SIZE || rowSource(row.node).getType() != AstNode.Type.ARRAY) {
+            return 0;
+        }
+
+        long span = BUCKET_SIZE;
+        while (items > span * BUCKET_SIZE) {
+            span *= BUCKET_SIZE;
+        }
+        return (int) span;
+    }
+
+    /**
+     * @return items of the bucket, taken from the items of its parent
+     */
+    private static List<AstNode> bucketNodes(AstTreeNode bucket) {
+        int offset = firstPosition(bucket.parent);
+        return bucket.parent.childNodes.subList(bucket.bucketStart - offset, bucket.bucketEnd - offset);
+    }
+
+    /**
+     * @return position in the array of the first item below the row
+     */
+    private static int firstPosition(AstTreeNode row) {
+        return row.isBucket() ? row.bucketStart : 0;
+    }
+
+    /**
+     * Finds the row of a node below the parent row and adds it to the path, after the buckets it is in
+     */
+    private @Nullable AstTreeNode findRow(AstTreeNode parent, AstNode node, List<AstTreeNode> path) {
+        AstTreeNode row = rowsByNode.get(node);
+        if (row != null && row.parent == parent) {
+            path.add(row);
+            return row;
+        }
+
+        List<AstNode> nodes = getChildNodes(parent);
+        int position = -1;
+
+        // array items are usually at their own position
+        Integer arrayIndex = node.getArrayIndex();
+        if (arrayIndex != null && arrayIndex < nodes.size() && nodes.get(arrayIndex) == node) {
+            position = arrayIndex;
+        } else {
+            for (int i = 0; i < nodes.size(); i++) {
+                if (nodes.get(i) == node) {
+                    position = i;
+                    break;
+                }
+            }
+        }
+        if (position == -1) {
+            return null;
+        }
+
+        row = parent;
+        while (row.childSpan != 0) {
+            int span = row.childSpan;
+            row = getChild(row, position / span);
+            getChildNodes(row);
+            position %= span;
+            path.add(row);
+        }
+        row = getChild(row, position);
+        path.add(row);
+        return row;
+    }
+
+    /**
+     * @return copy of the nodes shown below the node, a copy because incremental parsers update the AST in place
+     */
+    private List<AstNode> collectRows(AstNode node) {
+        AstNode source = rowSource(node);
+        List<AstNode> children = source.getChildren();
+
+        List<AstNode> rows = new ArrayList<>(children.size());
+        for (AstNode child : children) {
+            if (isRow(source, child)) {
+                rows.add(child);
+            }
+        }
+
+        if (source.getType() == AstNode.Type.OBJECT && sortState != SortState.NONE) {
+            // keys are canonicalized by the parser, so equal keys are usually the same instance
+            Comparator<AstNode> byKey = (a, b) -> {
+                String keyA = a.getKey() != null ? a.getKey() : "";
+                String keyB = b.getKey() != null ? b.getKey() : "";
+                return (keyA == keyB) ? 0 : keyA.compareTo(keyB);
+            };
+            rows.sort(sortState == SortState.DESCENDING ? byKey.reversed() : byKey);
+        }
+
+        return rows;
+    }
+
+    /**
+     * Compares the rows below the row with the rows of its current node and reports the differences
+     */
+    private void updateChildren(AstTreeNode row, TreePath path) {
+        List<AstNode> oldNodes = row.childNodes;
+        if (oldNodes == null) {
+            // the tree never asked for these rows
+            return;
+        }
+
+        List<AstNode> newNodes = row.isBucket() ? bucketNodes(row) : collectRows(row.node);
+        int newSpan = bucketSpan(row, newNodes.size());
+        if (row.childSpan == 0 && newSpan == 0) {
+            updateRows(row, path, newNodes);
+        } else if (row.childSpan == newSpan) {
+            updateBuckets(row, path, newNodes);
+        } else {
+            replaceChildren(row, path, newNodes);
+        }
+    }
+
+    /**
+     * Matches the rows below the row with the new nodes by pointer and reports the differences
+     */
+    private void updateRows(AstTreeNode row, TreePath path, List<AstNode> newNodes) {
+        List<AstNode> oldNodes = row.childNodes;
+        AstTreeNode[] oldRows = row.children;
+        int oldSize = oldNodes.size();
+        int newSize = newNodes.size();
+
+        // old index of every new row, -1 for an inserted row
+        int[] oldIndexes = new int[newSize];
+        Arrays.fill(oldIndexes, -1);
+
+        // most edits leave the rows before and after them as they are
+        int prefix = 0;
+        while (prefix < oldSize && prefix < newSize && isSameRow(oldNodes.get(prefix), newNodes.get(prefix))) {
+            oldIndexes[prefix] = prefix;
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < oldSize - prefix && suffix < newSize - prefix
+            && isSameRow(oldNodes.get(oldSize - 1 - suffix), newNodes.get(newSize - 1 - suffix))) {
+            oldIndexes[newSize - 1 - suffix] = oldSize - 1 - suffix;
+            suffix++;
+        }
+
+        // match the rows in between by pointer, in order: a row that moved is removed and inserted again
+        Map<Object, Deque<Integer>> oldByIdentity = new HashMap<>();
+        for (int i = prefix; i < oldSize - suffix; i++) {
+            oldByIdentity.computeIfAbsent(identityOf(oldNodes.get(i)), _ -> new ArrayDeque<>()).add(i);
+        }
+        int lastMatch = prefix - 1;
+        for (int i = prefix; i < newSize - suffix && !oldByIdentity.isEmpty(); i++) {
+            Deque<Integer> candidates = oldByIdentity.get(identityOf(newNodes.get(i)));
+            while (candidates != null && !candidates.isEmpty() && candidates.peekFirst() <= lastMatch) {
+                candidates.pollFirst();
+            }
+            if (candidates != null && !candidates.isEmpty()) {
+                lastMatch = candidates.pollFirst();
+                oldIndexes[i] = lastMatch;
+            }
+        }
+
+        boolean[] kept = new boolean[oldSize];
+        int keptCount = 0;
+        for (int oldIndex : oldIndexes) {
+            if (oldIndex != -1) {
+                kept[oldIndex] = true;
+                keptCount++;
+            }
+        }
+
+        if (keptCount < oldSize) {
+            removeRows(row, path, kept, keptCount);
+        }
+
+        // move the kept rows to their new nodes
+        AstTreeNode[] newRows = new AstTreeNode[newSize];
+        int[] insertedIndexes = new int[newSize - keptCount];
+        int inserted = 0;
+        List<Integer> changedIndexes = new ArrayList<>();
+        for (int i = 0; i < newSize; i++) {
+            if (oldIndexes[i] == -1) {
+                insertedIndexes[inserted++] = i;
+                continue;
+            }
+
+            AstTreeNode keptRow = oldRows[oldIndexes[i]];
+            if (keptRow != null) {
+                if (!looksSame(keptRow, newNodes.get(i))) {
+                    changedIndexes.add(i);
+                }
+                moveRow(keptRow, newNodes.get(i));
+                newRows[i] = keptRow;
+            }
+        }
+        row.childNodes = newNodes;
+        row.children = newRows;
+
+        if (inserted > 0) {
+            fireTreeNodesInserted(path, insertedIndexes);
+        }
+        if (!changedIndexes.isEmpty()) {
+            fireTreeNodesChanged(path, changedIndexes.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        for (int i = 0; i < newSize; i++) {
+            if (newRows[i] != null && oldIndexes[i] != -1) {
+                updateChildren(newRows[i], path.pathByAddingChild(newRows[i]));
+            }
+        }
+    }
+
+    /**
+     * Drops the rows that are not kept and reports them as removed
+     */
+    private void removeRows(AstTreeNode row, TreePath path, boolean[] kept, int keptCount) {
+        List<AstNode> oldNodes = row.childNodes;
+        AstTreeNode[] oldRows = row.children;
+
+        List<AstNode> keptNodes = new ArrayList<>(keptCount);
+        AstTreeNode[] keptRows = new AstTreeNode[keptCount];
+        int[] removedIndexes = new int[oldNodes.size() - keptCount];
+        Object[] removedRows = new Object[removedIndexes.length];
+
+        int removed = 0;
+        for (int i = 0; i < oldNodes.size(); i++) {
+            if (kept[i]) {
+                keptRows[keptNodes.size()] = oldRows[i];
+                keptNodes.add(oldNodes.get(i));
+            } else {
+                // the tree wants the removed rows, also the ones it never asked for
+                removedRows[removed] = (oldRows[i] != null) ? oldRows[i] : new AstTreeNode(oldNodes.get(i), row);
+                removedIndexes[removed++] = i;
+                forget(oldRows[i]);
+            }
+        }
+
+        row.childNodes = keptNodes;
+        row.children = keptRows;
+
+        fireTreeNodesRemoved(path, removedIndexes, removedRows);
+    }
+
+    /**
+     * Moves the buckets below the row to its new items. Buckets keep their place, so only the last ones change.
+     */
+    private void updateBuckets(AstTreeNode row, TreePath path, List<AstNode> newNodes) {
+        AstTreeNode[] oldRows = row.children;
+        int span = row.childSpan;
+        int offset = firstPosition(row);
+        int count = Math.ceilDiv(newNodes.size(), span);
+
+        row.childNodes = newNodes;
+        if (count < oldRows.length) {
+            int[] removedIndexes = IntStream.range(count, oldRows.length).toArray();
+            Object[] removedRows = new Object[removedIndexes.length];
+            for (int i = count; i < oldRows.length; i++) {
+                removedRows[i - count] = (oldRows[i] != null) ? oldRows[i] : AstTreeNode.bucket(row, -1, -1);
+                forget(oldRows[i]);
+            }
+            row.children = Arrays.copyOf(oldRows, count);
+            fireTreeNodesRemoved(path, removedIndexes, removedRows);
+        }
+
+        List<Integer> changedIndexes = new ArrayList<>();
+        for (int i = 0; i < Math.min(count, oldRows.length); i++) {
+            AstTreeNode bucket = oldRows[i];
+            if (bucket != null) {
+                bucket.node = row.node;
+                int end = offset + Math.min((i + 1) * span, newNodes.size());
+                if (bucket.bucketEnd != end) {
+                    bucket.bucketEnd = end;
+                    changedIndexes.add(i);
+                }
+            }
+        }
+
+        if (count > oldRows.length) {
+            row.children = Arrays.copyOf(oldRows, count);
+            fireTreeNodesInserted(path, IntStream.range(oldRows.length, count).toArray());
+        }
+        if (!changedIndexes.isEmpty()) {
+            fireTreeNodesChanged(path, changedIndexes.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        for (int i = 0; i < Math.min(count, oldRows.length); i++) {
+            if (oldRows[i] != null) {
+                updateChildren(oldRows[i], path.pathByAddingChild(oldRows[i]));
+            }
+        }
+    }
+
+    /**
+     * Replaces all rows below the row, for when its items are grouped in buckets differently than before
+     */
+    private void replaceChildren(AstTreeNode row, TreePath path, List<AstNode> newNodes) {
+        AstTreeNode[] oldRows = row.children;
+        int[] removedIndexes = IntStream.range(0, oldRows.length).toArray();
+        Object[] removedRows = new Object[oldRows.length];
+        for (int i = 0; i < oldRows.length; i++) {
+            removedRows[i] = (oldRows[i] != null) ? oldRows[i] : new AstTreeNode(row.node, row);
+            forget(oldRows[i]);
+        }
+
+        setChildNodes(row, List.of());
+        if (removedIndexes.length > 0) {
+            fireTreeNodesRemoved(path, removedIndexes, removedRows);
+        }
+
+        setChildNodes(row, newNodes);
+        if (row.children.length > 0) {
+            fireTreeNodesInserted(path, IntStream.range(0, row.children.length).toArray());
+        }
+    }
+
+    private void fireTreeNodesRemoved(TreePath path, int[] indexes, Object[] rows) {
+        TreeModelEvent event = new TreeModelEvent(this, path, indexes, rows);
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesRemoved(event);
+        }
+    }
+
+    private void fireTreeNodesInserted(TreePath path, int[] indexes) {
+        TreeModelEvent event = new TreeModelEvent(this, path, indexes, rowsAt(path, indexes));
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesInserted(event);
+        }
+    }
+
+    private void fireTreeNodesChanged(TreePath path, int[] indexes) {
+        TreeModelEvent event = new TreeModelEvent(this, path, indexes, rowsAt(path, indexes));
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesChanged(event);
+        }
+    }
+
+    private Object[] rowsAt(TreePath path, int[] indexes) {
+        Object[] rows = new Object[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            rows[i] = getChild(path.getLastPathComponent(), indexes[i]);
+        }
+        return rows;
+    }
+
+    private void moveRow(AstTreeNode row, AstNode node) {
+        if (row.node != node) {
+            rowsByNode.remove(row.node, row);
+            row.node = node;
+            rowsByNode.put(node, row);
+        }
+        rememberShown(row);
+    }
+
+    private static void rememberShown(AstTreeNode row) {
+        row.shownArrayIndex = row.node.getArrayIndex();
+        row.shownKey = row.node.getKey();
+        row.shownArraySize = valueNodeOf(row.node).getArraySize();
+    }
+
+    private void forget(@Nullable AstTreeNode row) {
+        if (row == null) {
+            return;
+        }
+        rowsByNode.remove(row.node, row);
+        if (row.children != null) {
+            for (AstTreeNode child : row.children) {
+                forget(child);
+            }
+        }
+    }
+
+    /**
+     * @return what a row is matched by: the last segment of its pointer, or what it shows when it has none
+     */
+    private static Object identityOf(AstNode row) {
+        AstNode item = valueNodeOf(row);
+        NodePointer pointer = item.getPointer();
+        if (pointer != null) {
+            return pointer.getSegment();
+        }
+        return row.getType() + ":" + row.getKey() + ":" + item.getValue();
+    }
+
+    private static boolean isSameRow(AstNode oldRow, AstNode newRow) {
+        return oldRow == newRow || identityOf(oldRow).equals(identityOf(newRow));
+    }
+
+    /**
+     * @return whether the row of the new node shows the same text as the row shows now
+     */
+    private static boolean looksSame(AstTreeNode row, AstNode newRow) {
+        AstNode oldRow = row.node;
+        if (oldRow == newRow) {
+            // updated in place by an incremental parse, which renumbers items and resizes arrays
+            return Objects.equals(row.shownArrayIndex, newRow.getArrayIndex())
+                && Objects.equals(row.shownKey, newRow.getKey())
+                && Objects.equals(row.shownArraySize, valueNodeOf(newRow).getArraySize());
+        }
+
+        AstNode oldItem = valueNodeOf(oldRow);
+        AstNode newItem = valueNodeOf(newRow);
+        if (oldItem.getType() != newItem.getType()
+            || oldItem.getValueType() != newItem.getValueType()
+            || !Objects.equals(oldRow.getKey(), newRow.getKey())
+            || !Objects.equals(oldRow.getArrayIndex(), newRow.getArrayIndex())
+            || !Objects.equals(oldItem.getArraySize(), newItem.getArraySize())
+            || !Objects.equals(oldItem.getAlias(), newItem.getAlias())) {
+            return false;
+        }
+
+        // only scalars and comments show a value, don't decode the others
+        return (newItem.getType() != AstNode.Type.VALUE && newItem.getType() != AstNode.Type.COMMENT)
+            || Objects.equals(oldItem.getValue(), newItem.getValue());
+    }
+
+    /**
+     * @return node whose children are shown below the row, the object or array of a merged property
+     */
+    private static AstNode rowSource(AstNode row) {
+        if (isMergedProperty(row) && row.getChildren().getFirst().getType() != AstNode.Type.VALUE) {
+            return row.getChildren().getFirst();
+        }
+        return row;
+    }
+
+    private static boolean isRow(AstNode source, AstNode child) {
+        // the value of a property is shown in the row of the property
+        if (source.getType() == AstNode.Type.PROPERTY && child.getType() == AstNode.Type.VALUE) {
+            return false;
+        }
+        // skip comments except actual block comments
+        if (child.getType() == AstNode.Type.COMMENT && child.getCommentType() != AstNode.CommentType.BLOCK) {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isMergedProperty(AstNode node) {
+        if (node.getType() != AstNode.Type.PROPERTY || node.getChildren().isEmpty()) {
+            return false;
+        }
+        AstNode.Type valueType = node.getChildren().getFirst().getType();
+        return valueType == AstNode.Type.VALUE || valueType == AstNode.Type.OBJECT || valueType == AstNode.Type.ARRAY;
+    }
+
+    private static boolean isMergedIntoProperty(AstNode node) {
+        AstNode parent = node.getParent();
+        return parent != null && isMergedProperty(parent) && parent.getChildren().getFirst() == node;
+    }
+}
@@ -0,0 +1,93 @@
+package nl.pallett.jsoneditor.ui.editor.tree;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import org.jspecify.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Row of an {@link AstTreeModel}. When the document is parsed again the row is moved to the node at the same
+ * pointer in the new AST, so the tree keeps its expanded and selected rows.
+ * <p>
+ * A bucket row groups a range of the items of a large array. Its node is the node of the array row.
+ */
+public final class AstTreeNode {
+
+    AstNode node;
+
+    final @Nullable AstTreeNode parent;
+
+    /**
+     * Position of the first item of a bucket in the array, -1 for other rows
+     */
+    int bucketStart = -1;
+
+    /**
+     * Position after the last item of a bucket in the array
+     */
+    int bucketEnd = -1;
+
+    /**
+     * Nodes of the items below this one, null until the tree asks for them
+     */
+    @Nullable List<AstNode> childNodes = null;
+
+    /**
+     * Rows created below this one so far: a row per item, or a bucket per span of items
+     */
+    AstTreeNode @Nullable [] children = null;
+
+    /**
+     * Number of items in a bucket below this row, 0 when the items are shown directly
+     */
+    int childSpan = 0;
+
+    /**
+     * Array index, key and array size the row showed when it was last compared, incremental parses change these on
+     * the node itself
+     */
+    @Nullable Integer shownArrayIndex = null;
+
+    @Nullable String shownKey = null;
+
+    @Nullable Integer shownArraySize = null;
+
+    AstTreeNode(AstNode node, @Nullable AstTreeNode parent) {
+        this.node = node;
+        this.parent = parent;
+    }
+
+    static AstTreeNode bucket(AstTreeNode parent, int start, int end) {
+        AstTreeNode bucket = new AstTreeNode(parent.node, parent);
+        bucket.bucketStart = start;
+        bucket.bucketEnd = end;
+        return bucket;
+    }
+
+    /**
+     * @return node of the row, for a merged property the property node
+     */
+    public AstNode getNode() {
+        return node;
+    }
+
+    public boolean isBucket() {
+        return bucketStart != -1;
+    }
+
+    public int getBucketStart() {
+        return bucketStart;
+    }
+
+    /**
+     * @return position after the last item of the bucket
+     */
+    public int getBucketEnd() {
+        return bucketEnd;
+    }
+
+    @Override
+    public String toString() {
+        return isBucket() ? "[" + bucketStart + "…" + (bucketEnd - 1) + "]" : node.toString();
+    }
+}
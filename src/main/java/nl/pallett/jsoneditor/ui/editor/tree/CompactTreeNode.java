@@ -0,0 +1,118 @@
+package nl.pallett.jsoneditor.ui.editor.tree;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.CompactAst;
+import nl.pallett.jsoneditor.ast.NodePointer;
+import org.jspecify.annotations.Nullable;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreeNode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Tree node for a node of a {@link CompactAst}. Children are only created when they are first asked for,
+ * so only the parts of the tree that are actually shown are turned into objects.
+ */
+public class CompactTreeNode extends DefaultMutableTreeNode {
+
+    private final CompactAst ast;
+
+    private final int node;
+
+    private final SortState sortState;
+
+    private boolean childrenLoaded = false;
+
+    public CompactTreeNode(CompactAst ast, int node, SortState sortState) {
+        this(ast, node, sortState, ast.getPointer(node));
+    }
+
+    /**
+     * @param pointer pointer of the node, children extend it so their pointers share the chain and its cached JSON
+     * paths
+     */
+    private CompactTreeNode(CompactAst ast, int node, SortState sortState, @Nullable NodePointer pointer) {
+        super(ast.toAstNode(node, pointer));
+        this.ast = ast;
+        this.node = node;
+        this.sortState = sortState;
+    }
+
+    public CompactAst getAst() {
+        return ast;
+    }
+
+    public int getNode() {
+        return node;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return ast.getChildCount(node) == 0;
+    }
+
+    @Override
+    public int getChildCount() {
+        loadChildren();
+        return super.getChildCount();
+    }
+
+    @Override
+    public TreeNode getChildAt(int index) {
+        loadChildren();
+        return super.getChildAt(index);
+    }
+
+    @Override
+    public Enumeration<TreeNode> children() {
+        loadChildren();
+        return super.children();
+    }
+
+    public @Nullable CompactTreeNode getChildForNode(int childNode) {
+        loadChildren();
+
+        // without sorting the children are in document order
+        int position = ast.getIndex(childNode);
+        if (position < super.getChildCount()
+            && ((CompactTreeNode) super.getChildAt(position)).getNode() == childNode) {
+            return (CompactTreeNode) super.getChildAt(position);
+        }
+
+        for (int i = 0; i < super.getChildCount(); i++) {
+            CompactTreeNode child = (CompactTreeNode) super.getChildAt(i);
+            if (child.getNode() == childNode) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private void loadChildren() {
+        if (childrenLoaded) {
+            return;
+        }
+        childrenLoaded = true;
+
+        NodePointer pointer = (node == ast.root()) ? NodePointer.ROOT : ((AstNode) getUserObject()).getPointer();
+        List<CompactTreeNode> children = new ArrayList<>(ast.getChildCount(node));
+        for (int child = ast.getFirstChild(node); child != CompactAst.NONE; child = ast.getNextSibling(child)) {
+            children.add(new CompactTreeNode(ast, child, sortState, pointer.child(ast.getSegment(child))));
+        }
+
+        if (ast.getType(node) == AstNode.Type.OBJECT && sortState != SortState.NONE) {
+            Comparator<CompactTreeNode> byKey = Comparator.comparing(
+                child -> ((AstNode) child.getUserObject()).getKey(),
+                Comparator.nullsFirst(Comparator.naturalOrder())
+            );
+            children.sort(sortState == SortState.DESCENDING ? byKey.reversed() : byKey);
+        }
+
+        for (int i = 0; i < children.size(); i++) {
+            insert(children.get(i), i);
+        }
+    }
+}
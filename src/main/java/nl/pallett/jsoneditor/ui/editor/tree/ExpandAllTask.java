@@ -0,0 +1,92 @@
+package nl.pallett.jsoneditor.ui.editor.tree;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.util.TreeUtil;
+
+import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreePath;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expands all rows below a path in slices on the event dispatch thread, so the tree is painted and input is handled
+ * while a huge subtree is expanded. A progress dialog with a cancel button shows up when it takes a while.
+ */
+class ExpandAllTask {
+
+    /**
+     * Time spent expanding rows before the event dispatch thread is given back
+     */
+    private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    /**
+     * Rows expanded between two checks of the time
+     */
+    private static final int ROWS_PER_CHECK = 16;
+
+    private final JTree tree;
+
+    private final Deque<TreePath> pending = new ArrayDeque<>();
+
+    private final ProgressMonitor progressMonitor;
+
+    private final Timer timer;
+
+    private final int startOffset;
+
+    ExpandAllTask(JTree tree, TreePath path, AstNode astNode) {
+        this.tree = tree;
+        this.startOffset = astNode.startOffset;
+        this.pending.push(path);
+
+        progressMonitor = new ProgressMonitor(
+            tree, "Expanding rows", null, 0, Math.max(1, astNode.endOffset - astNode.startOffset));
+        timer = new Timer(0, _ -> expandSlice());
+    }
+
+    void start() {
+        // a small subtree is expanded right away
+        expandSlice();
+        if (!pending.isEmpty()) {
+            timer.start();
+        }
+    }
+
+    private void expandSlice() {
+        if (progressMonitor.isCanceled()) {
+            stop();
+            return;
+        }
+
+        long deadline = System.nanoTime() + SLICE_NANOS;
+        TreePath last;
+        do {
+            last = TreeUtil.expandAll(tree, pending, ROWS_PER_CHECK);
+        } while (!pending.isEmpty() && System.nanoTime() < deadline);
+
+        if (pending.isEmpty()) {
+            stop();
+        } else if (last != null) {
+            // rows are expanded in the order they are shown, which follows the document unless the tree is sorted
+            progressMonitor.setProgress(offsetOf(last) - startOffset);
+        }
+    }
+
+    private void stop() {
+        timer.stop();
+        progressMonitor.close();
+    }
+
+    private int offsetOf(TreePath path) {
+        Object row = path.getLastPathComponent();
+        if (row instanceof AstTreeNode treeNode) {
+            return treeNode.getNode().startOffset;
+        }
+        if (row instanceof DefaultMutableTreeNode node && node.getUserObject() instanceof AstNode astNode) {
+            return astNode.startOffset;
+        }
+        return startOffset;
+    }
+}
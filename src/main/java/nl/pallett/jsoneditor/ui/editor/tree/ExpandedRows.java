@@ -0,0 +1,112 @@
+package nl.pallett.jsoneditor.ui.editor.tree;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.DocumentPointer;
+import nl.pallett.jsoneditor.ast.NodePointer;
+import nl.pallett.jsoneditor.ast.NullPointer;
+import org.jspecify.annotations.Nullable;
+
+import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Expanded rows of a tree, to expand the same rows again in a new model of the document. Every row is keyed by the
+ * last named segment of the pointer of its node, below the row above it. Restoring compares a segment per row instead
+ * of rendering the JSON path of every row. A bucket is kept with its array: the items below it are looked up with the
+ * array, so they are found whether or not the new model has the same buckets.
+ */
+final class ExpandedRows {
+
+    private record Bucket(int start, int end) {}
+
+    /**
+     * Expanded rows below this one by their key
+     */
+    private final Map<Object, ExpandedRows> rows = new HashMap<>();
+
+    private ExpandedRows() {
+    }
+
+    static ExpandedRows capture(JTree tree) {
+        ExpandedRows expandedRows = new ExpandedRows();
+        Enumeration<TreePath> expanded = tree.getExpandedDescendants(new TreePath(tree.getModel().getRoot()));
+        if (expanded == null) {
+            return expandedRows;
+        }
+
+        while (expanded.hasMoreElements()) {
+            TreePath path = expanded.nextElement();
+            ExpandedRows rows = expandedRows;
+            for (int i = 1; i < path.getPathCount() && rows != null; i++) {
+                Object row = path.getPathComponent(i);
+                Object key = keyOf(row);
+                if (key == null) {
+                    rows = null;
+                } else {
+                    ExpandedRows below = rows.rows.computeIfAbsent(key, _ -> new ExpandedRows());
+                    rows = (key instanceof Bucket) ? rows : below;
+                }
+            }
+        }
+        return expandedRows;
+    }
+
+    /**
+     * Expands the rows of the tree that were expanded, in a single walk over the expanded rows
+     */
+    void restore(JTree tree) {
+        record Pending(TreePath path, ExpandedRows rows) {}
+
+        TreeModel model = tree.getModel();
+        Deque<Pending> pending = new ArrayDeque<>();
+        pending.push(new Pending(new TreePath(model.getRoot()), this));
+
+        while (!pending.isEmpty()) {
+            Pending parent = pending.pop();
+            Object node = parent.path().getLastPathComponent();
+
+            for (int i = 0; i < model.getChildCount(node) && !parent.rows().rows.isEmpty(); i++) {
+                Object child = model.getChild(node, i);
+                Object key = keyOf(child);
+                ExpandedRows below = (key != null) ? parent.rows().rows.get(key) : null;
+                if (below != null) {
+                    TreePath childPath = parent.path().pathByAddingChild(child);
+                    tree.expandPath(childPath);
+                    pending.push(new Pending(childPath, (key instanceof Bucket) ? parent.rows() : below));
+                }
+            }
+        }
+    }
+
+    private static @Nullable Object keyOf(Object row) {
+        if (row instanceof AstTreeNode treeNode) {
+            if (treeNode.isBucket()) {
+                return new Bucket(treeNode.getBucketStart(), treeNode.getBucketEnd());
+            }
+            return segmentOf(AstTreeModel.valueNodeOf(treeNode.getNode()).getPointer());
+        }
+        if (row instanceof DefaultMutableTreeNode node && node.getUserObject() instanceof AstNode astNode) {
+            return segmentOf(astNode.getPointer());
+        }
+        return null;
+    }
+
+    /**
+     * Objects and documents add a nameless segment to the pointer, which parsers don't all do the same way
+     */
+    private static @Nullable Object segmentOf(@Nullable NodePointer pointer) {
+        for (NodePointer current = pointer; current != null; current = current.getParent()) {
+            if (!(current.getSegment() instanceof NullPointer) && !(current.getSegment() instanceof DocumentPointer)) {
+                return current.getSegment();
+            }
+        }
+        return null;
+    }
+}
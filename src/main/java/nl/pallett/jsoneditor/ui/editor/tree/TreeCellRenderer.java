@@ -1,13 +1,44 @@
 package nl.pallett.jsoneditor.ui.editor.tree;
 
 import nl.pallett.jsoneditor.ast.AstNode;
+import org.jspecify.annotations.Nullable;
 
 import javax.swing.*;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeCellRenderer;
 import java.awt.*;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
 
+/**
+ * Paints the text of a row as plain text runs: the array index, the key in color and the value. The runs and
+ * their widths are kept per node, so painting a row again allocates nothing.
+ */
 public class TreeCellRenderer extends DefaultTreeCellRenderer {
+
+    /**
+     * Longer keys and values are cut off with an ellipsis
+     */
+    static final int MAX_TEXT_LENGTH = 200;
+
+    private static final Color KEY_COLOR = new Color(0xFF, 0xA5, 0x00);
+
+    /**
+     * Texts of the rows painted so far, by the node they show. Entries go away with the nodes.
+     */
+    private final Map<Object, CellText> cellTexts = new WeakHashMap<>();
+
+    private final Insets insets = new Insets(0, 0, 0, 0);
+
+    private CellText cellText = CellText.EMPTY;
+
+    private @Nullable FontMetrics metrics = null;
+
+    public TreeCellRenderer() {
+        setBorder(BorderFactory.createEmptyBorder(3, 4, 3, 4));
+    }
+
     @Override
     public Component getTreeCellRendererComponent(
         JTree tree,
@@ -18,78 +49,216 @@ public class TreeCellRenderer extends DefaultTreeCellRenderer {
         int row,
         boolean hasFocus) {
 
+        // the text is painted by this renderer, without a value the tree doesn't turn the row into a string
         super.getTreeCellRendererComponent(
-            tree, value, selected, expanded, leaf, row, hasFocus);
+            tree, null, selected, expanded, leaf, row, hasFocus);
+
+        cellText = cellTextOf(value);
+
+        return this;
+    }
 
-        DefaultMutableTreeNode node = (DefaultMutableTreeNode) value;
-        Object obj = node.getUserObject();
+    @Override
+    public Dimension getPreferredSize() {
+        Dimension size = super.getPreferredSize();
+        FontMetrics fontMetrics = metrics();
+        int textWidth = cellText.width(fontMetrics);
 
-        if (obj instanceof AstNode astNode) {
-            formatNode(astNode);
+        if (size != null && textWidth > 0) {
+            getInsets(insets);
+            size.width += ((getIcon() != null) ? getIconTextGap() : 0) + textWidth;
+            size.height = Math.max(size.height, fontMetrics.getHeight() + insets.top + insets.bottom);
         }
+        return size;
+    }
 
-        setBorder(BorderFactory.createEmptyBorder(3, 4, 3, 4));
+    @Override
+    public void paint(Graphics g) {
+        // background, focus and icon
+        super.paint(g);
 
-        return this;
+        FontMetrics fontMetrics = metrics();
+        cellText.measure(fontMetrics);
+        getInsets(insets);
+
+        Icon icon = getIcon();
+        int x = insets.left + ((icon != null) ? icon.getIconWidth() + getIconTextGap() : 0);
+        int y = insets.top + (getHeight() - insets.top - insets.bottom - fontMetrics.getHeight()) / 2
+            + fontMetrics.getAscent();
+
+        g.setFont(getFont());
+        g.setColor(getForeground());
+        g.drawString(cellText.head, x, y);
+        x += cellText.headWidth;
+
+        if (cellText.key != null) {
+            g.setColor(KEY_COLOR);
+            g.drawString(cellText.key, x, y);
+            x += cellText.keyWidth;
+            g.setColor(getForeground());
+        }
+
+        g.drawString(cellText.tail, x, y);
     }
 
-    private void formatNodeValue(AstNode item) {
-        if (item.getValueType() == null) {
-            setText((item.getKey() != null) ? item.getKey() + " : \"" + item.getValue() + "\"" : item.getValue());
-            return;
+    private FontMetrics metrics() {
+        Font font = getFont();
+        if (metrics == null || metrics.getFont() != font) {
+            metrics = getFontMetrics(font);
         }
+        return metrics;
+    }
 
-        String text = "<html>";
-        if (item.isArrayItem()) {
-            text += "<span style='color:black'>[" + item.getArrayIndex() + "]<span> ";
+    private CellText cellTextOf(Object value) {
+        if (value instanceof AstTreeNode treeNode && treeNode.isBucket()) {
+            CellText text = cellTexts.get(treeNode);
+            if (text == null || text.version != treeNode.getBucketEnd()) {
+                text = CellText.plain(treeNode.toString(), treeNode.getBucketEnd());
+                cellTexts.put(treeNode, text);
+            }
+            return text;
         }
 
-        if (item.getKey() != null) {
-            text += "<span style='color:orange'>" + item.getKey() + "</span> : ";
+        AstNode row = null;
+        if (value instanceof AstTreeNode treeNode) {
+            row = treeNode.getNode();
+        } else if (value instanceof DefaultMutableTreeNode node && node.getUserObject() instanceof AstNode astNode) {
+            // rows of a compact AST are tree nodes wrapping an AST node
+            row = astNode;
+        }
+        if (row == null) {
+            return CellText.EMPTY;
         }
 
-        switch (item.getValueType()) {
-            case INTEGER, FLOAT -> {
-                text += item.getValue();
-            }
-            case BOOLEAN -> {
-                text += item.getValue();
-            }
-            case NULL -> {
-                text += "null";
-            }
-            default -> {
-                text += "\"" + item.getValue() + "\"";
-            }
+        // arrays are updated in place by incremental parses and items are renumbered in place when an item before
+        // them is inserted or removed, other rows get a new node when they change
+        AstNode item = AstTreeModel.valueNodeOf(row);
+        int version = (item.getArraySize() != null) ? item.getArraySize() : 0;
+
+        CellText text = cellTexts.get(row);
+        if (text == null || !text.shows(row, version)) {
+            text = formatNode(row, item, version);
+            cellTexts.put(row, text);
+        }
+        return text;
+    }
+
+    private CellText formatNodeValue(AstNode row, AstNode item, String index) {
+        if (item.getValueType() == null) {
+            String text = (row.getKey() != null) ? row.getKey() + " : \"" + item.getValue() + "\"" : item.getValue();
+            return new CellText(row, text, null, "", 0);
         }
 
-        text += "</html>";
+        String value = switch (item.getValueType()) {
+            case INTEGER, FLOAT, BOOLEAN -> item.getValue();
+            case NULL -> "null";
+            default -> "\"" + item.getValue() + "\"";
+        };
+
+        return new CellText(row, index, row.getKey(), (row.getKey() != null) ? " : " + value : value, 0);
+    }
+
+    /**
+     * @param row node of the row, a merged property shows the key of the property and the value of its child
+     */
+    private CellText formatNode(AstNode row, AstNode item, int version) {
+        String index = row.isArrayItem() ? "[" + row.getArrayIndex() + "] " : "";
 
-        setText(text);
+        return switch (item.getType()) {
+            case OBJECT -> CellText.plain(row, index + (row.getKey() != null ? row.getKey() + " { }" : "{ }"), version);
+            case ARRAY -> CellText.plain(
+                row, index + (row.getKey() != null ? row.getKey() : "") + " [" + item.getArraySize() + "]", version);
+            case VALUE -> formatNodeValue(row, item, index);
+            case PROPERTY -> CellText.plain(row, item.getKey(), version);
+            case COMMENT -> CellText.plain(row, "# " + item.getValue(), version);
+            case ALIAS -> CellText.plain(row, "*" + item.getAlias(), version);
+            case DOCUMENT -> CellText.plain(row, "document", version);
+            case DUMMY_ROOT -> CellText.EMPTY;
+        };
     }
 
-    private void formatNode(AstNode item) {
-        String text = "";
-        if (item.isArrayItem()) {
-            text += "[" + item.getArrayIndex() + "] ";
+    /**
+     * Text of a row: a plain head, an optional key in color and a plain tail
+     */
+    static final class CellText {
+
+        static final CellText EMPTY = new CellText("", null, "", 0);
+
+        final String head;
+
+        final @Nullable String key;
+
+        final String tail;
+
+        /**
+         * Array size or bucket end the text was made for
+         */
+        final int version;
+
+        /**
+         * Array index and key of the row the text was made for
+         */
+        private final @Nullable Integer arrayIndex;
+
+        private final @Nullable String rowKey;
+
+        private @Nullable FontMetrics measuredWith = null;
+
+        private int headWidth;
+
+        private int keyWidth;
+
+        private int tailWidth;
+
+        CellText(@Nullable String head, @Nullable String key, @Nullable String tail, int version) {
+            this(null, head, key, tail, version);
         }
 
-        switch (item.getType()) {
-            case OBJECT -> {
-                text += item.getKey() != null ? item.getKey() + " { }" : "{ }";
-                setText(text);
+        CellText(@Nullable AstNode row, @Nullable String head, @Nullable String key, @Nullable String tail,
+                 int version) {
+            this.head = truncate(head);
+            this.key = (key != null) ? truncate(key) : null;
+            this.tail = truncate(tail);
+            this.version = version;
+            this.arrayIndex = (row != null) ? row.getArrayIndex() : null;
+            this.rowKey = (row != null) ? row.getKey() : null;
+        }
+
+        static CellText plain(@Nullable String text, int version) {
+            return new CellText(text, null, "", version);
+        }
 
+        static CellText plain(AstNode row, @Nullable String text, int version) {
+            return new CellText(row, text, null, "", version);
+        }
+
+        /**
+         * @return whether the text is still what the row shows
+         */
+        boolean shows(AstNode row, int version) {
+            return this.version == version && Objects.equals(arrayIndex, row.getArrayIndex())
+                && Objects.equals(rowKey, row.getKey());
+        }
+
+        void measure(FontMetrics metrics) {
+            if (measuredWith != metrics) {
+                headWidth = metrics.stringWidth(head);
+                keyWidth = (key != null) ? metrics.stringWidth(key) : 0;
+                tailWidth = metrics.stringWidth(tail);
+                measuredWith = metrics;
             }
-            case ARRAY -> {
-                text += item.getKey() != null ? item.getKey() : "";
-                text += " [" + item.getArraySize() + "]";
-                setText(text);
+        }
+
+        int width(FontMetrics metrics) {
+            measure(metrics);
+            return headWidth + keyWidth + tailWidth;
+        }
+
+        private static String truncate(@Nullable String text) {
+            if (text == null) {
+                return "";
             }
-            case VALUE -> formatNodeValue(item);
-            case PROPERTY -> setText(item.getKey());
-            case COMMENT -> setText("# " + item.getValue());
-            case ALIAS -> setText("*" + item.getAlias());
-            case DOCUMENT -> setText("document");
+            return (text.length() > MAX_TEXT_LENGTH) ? text.substring(0, MAX_TEXT_LENGTH) + "…" : text;
         }
     }
 }
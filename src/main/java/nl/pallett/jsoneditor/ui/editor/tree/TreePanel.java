@@ -1,6 +1,7 @@
 package nl.pallett.jsoneditor.ui.editor.tree;
 
 import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.CompactAst;
 import nl.pallett.jsoneditor.model.EditorDocument;
 import nl.pallett.jsoneditor.ui.editor.tree.toolbar.TreeToolbar;
 import nl.pallett.jsoneditor.view.editor.NodeSelectedListener;
@@ -15,14 +16,15 @@ import javax.swing.tree.TreePath;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
-import java.util.Enumeration;
-import java.util.List;
 
 public class TreePanel extends JPanel implements TreePanelView {
-    private final EditorDocument editorDocument;
+    /**
+     * Documents of at least this many characters get a tree in large model mode, which only asks the renderer for
+     * the rows on screen instead of measuring every row when a path is expanded
+     */
+    static final int LARGE_MODEL_THRESHOLD = 1024 * 1024;
 
-    private final TreeBuilder treeBuilder = new TreeBuilder();
+    private final EditorDocument editorDocument;
 
     private final JTree tree;
 
@@ -70,14 +72,14 @@ public class TreePanel extends JPanel implements TreePanelView {
 
     @Override
     public void addNodeSelectedListener(NodeSelectedListener listener) {
-        tree.addTreeSelectionListener(e -> {
-            DefaultMutableTreeNode node =
-                (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
-
-            if (node != null && node.getUserObject() instanceof AstNode astNode) {
-                listener.onNodeSelected(astNode);
-            } else {
-                listener.onNodeSelected(null);
+        tree.addTreeSelectionListener(e -> listener.onNodeSelected(toAstNode(tree.getLastSelectedPathComponent())));
+    }
+
+    @Override
+    public void addIndexUpdatedListener(Runnable listener) {
+        editorDocument.addPropertyChangeListener(event -> {
+            if (event.getPropertyName().equals(EditorDocument.Property.AST_INDEX.name())) {
+                listener.run();
             }
         });
     }
@@ -85,10 +87,10 @@ public class TreePanel extends JPanel implements TreePanelView {
     @Override
     public void selectNodeForCaretPosition(int caretPosition) {
         if (astIntervalIndex != null) {
-            AstNode node = astIntervalIndex.findDeepest(caretPosition);
+            TreePath path = astIntervalIndex.findPath(caretPosition);
 
-            if (node != null) {
-                selectAndReveal(node);
+            if (path != null) {
+                selectAndReveal(path);
             }
         }
     }
@@ -98,13 +100,7 @@ public class TreePanel extends JPanel implements TreePanelView {
         this.refreshTree();
     }
 
-    public void selectAndReveal(AstNode node) {
-        DefaultMutableTreeNode item = astIntervalIndex.getTreeItemForNode(node);
-        if (item == null) {
-            return;
-        }
-
-        TreePath path = new TreePath(item.getPath());
+    public void selectAndReveal(TreePath path) {
         tree.expandPath(path);
 
         // Select the item
@@ -122,73 +118,58 @@ public class TreePanel extends JPanel implements TreePanelView {
 
     private void refreshTree() {
         AstNode astTree = editorDocument.getAstTree();
+        CompactAst compactAst = editorDocument.getCompactAst();
+
+        // large model mode needs the fixed row height set in the constructor
+        String contents = editorDocument.getContents();
+        tree.setLargeModel(contents != null && contents.length() >= LARGE_MODEL_THRESHOLD);
+
         if (astTree != null) {
-            List<List<String>> expandedNodes = captureExpandedNodes();
+            // a new parse of the same tree only updates the rows that changed
+            if (tree.getModel() instanceof AstTreeModel model && model.getSortState() == sortState) {
+                model.setAst(astTree);
+                astIntervalIndex = new AstIntervalIndex(editorDocument::getAstIndex, model);
+                return;
+            }
+
+            ExpandedRows expandedRows = ExpandedRows.capture(tree);
+
+            AstTreeModel model = new AstTreeModel(astTree, sortState);
+            tree.setModel(model);
+            tree.setRootVisible(false);
 
-            DefaultMutableTreeNode newRoot = treeBuilder.buildTree(astTree, sortState);
+            expandedRows.restore(tree);
+
+            astIntervalIndex = new AstIntervalIndex(editorDocument::getAstIndex, model);
+        } else if (compactAst != null) {
+            ExpandedRows expandedRows = ExpandedRows.capture(tree);
+
+            // tree nodes for a compact AST are created lazily when they are expanded
+            CompactTreeNode newRoot = new CompactTreeNode(compactAst, compactAst.root(), sortState);
             tree.setModel(new DefaultTreeModel(newRoot));
             tree.setRootVisible(false);
 
-            restoreExpandedNodes(expandedNodes);
+            expandedRows.restore(tree);
 
             astIntervalIndex = new AstIntervalIndex(newRoot);
         }
     }
 
-    private void restoreExpandedNodes(List<List<String>> expandedNodes) {
-        for (List<String> jsonPath : expandedNodes) {
-            TreePath newPath = findPathByJsonPath(tree, jsonPath);
-            if (newPath != null) {
-                tree.expandPath(newPath);
-            }
+    /**
+     * @return the AST node of a row, for a merged property a node combining the property and its value and
+     * null for a bucket of array items
+     */
+    private static @Nullable AstNode toAstNode(@Nullable Object row) {
+        if (row instanceof AstTreeNode treeNode && treeNode.isBucket()) {
+            return null;
         }
-    }
-
-    private TreePath findPathByJsonPath(JTree tree, List<String> jsonPath) {
-        Object root = tree.getModel().getRoot();
-        TreePath path = new TreePath(root);
-
-        // Start from the first ID after root (assuming root is always expanded/same)
-        for (int i = 1; i < jsonPath.size(); i++) {
-            Object currentId = jsonPath.get(i);
-            Object parentNode = path.getLastPathComponent();
-            boolean found = false;
-
-            int childCount = tree.getModel().getChildCount(parentNode);
-            for (int j = 0; j < childCount; j++) {
-                Object childNode = tree.getModel().getChild(parentNode, j);
-                Object childId = ((AstNode)((DefaultMutableTreeNode)childNode).getUserObject()).getPointerAsJsonPath();
-
-                if (childId != null && childId.equals(currentId)) {
-                    path = path.pathByAddingChild(childNode);
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) return null; // Path no longer exists
+        if (row instanceof AstTreeNode treeNode) {
+            return AstTreeModel.toItemNode(treeNode.getNode());
         }
-        return path;
-    }
-
-    private List<List<String>> captureExpandedNodes() {
-        List<List<String>> expandedPaths = new ArrayList<>();
-        Enumeration<TreePath> expanded = tree.getExpandedDescendants(new TreePath(tree.getModel().getRoot()));
-
-        if (expanded != null) {
-            while (expanded.hasMoreElements()) {
-                TreePath path = expanded.nextElement();
-                List<String> idPath = new ArrayList<>();
-                for (Object node : path.getPath()) {
-                    String jsonPath = ((AstNode)((DefaultMutableTreeNode)node).getUserObject()).getPointerAsJsonPath();
-                    if (jsonPath != null) {
-                        idPath.add(jsonPath);
-                    }
-                }
-                expandedPaths.add(idPath);
-            }
+        if (row instanceof DefaultMutableTreeNode node && node.getUserObject() instanceof AstNode astNode) {
+            return astNode;
         }
-
-        return expandedPaths;
+        return null;
     }
 
     private void showPopupMenu(MouseEvent e) {
@@ -200,11 +181,13 @@ public class TreePanel extends JPanel implements TreePanelView {
                 tree.setSelectionPath(path); // select the node
 
                 // get the node
-                DefaultMutableTreeNode node = (DefaultMutableTreeNode) path.getLastPathComponent();
-                AstNode astNode = (AstNode) node.getUserObject();
+                AstNode astNode = toAstNode(path.getLastPathComponent());
+                if (astNode == null) {
+                    return;
+                }
 
                 // You can customize menu based on node here
-                new TreePopupMenu(editorDocument, astNode, node, tree).show(tree, e.getX(), e.getY());
+                new TreePopupMenu(editorDocument, astNode, path, tree).show(tree, e.getX(), e.getY());
             }
         }
     }
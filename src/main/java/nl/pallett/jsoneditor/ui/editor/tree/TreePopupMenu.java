@@ -6,7 +6,6 @@ import nl.pallett.jsoneditor.util.ClipboardUtil;
 import nl.pallett.jsoneditor.util.TreeUtil;
 
 import javax.swing.*;
-import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.TreePath;
 import java.awt.event.ActionEvent;
 
@@ -15,14 +14,14 @@ public class TreePopupMenu extends JPopupMenu {
 
     private final EditorDocument editorDocument;
 
-    private final DefaultMutableTreeNode treeNode;
+    private final TreePath path;
 
     private final JTree tree;
 
-    public TreePopupMenu(EditorDocument editorDocument, AstNode astNode, DefaultMutableTreeNode treeNode, JTree tree) {
+    public TreePopupMenu(EditorDocument editorDocument, AstNode astNode, TreePath path, JTree tree) {
         this.astNode = astNode;
         this.editorDocument = editorDocument;
-        this.treeNode = treeNode;
+        this.path = path;
         this.tree = tree;
 
         // Copy key
@@ -44,7 +43,7 @@ public class TreePopupMenu extends JPopupMenu {
         
         // Expand all
         // Collapse all
-        if (astNode.hasChildren()) {
+        if (!tree.getModel().isLeaf(path.getLastPathComponent())) {
             addSeparator();
 
             JMenuItem itemExpandAll = new JMenuItem("Expand all");
@@ -55,14 +54,29 @@ public class TreePopupMenu extends JPopupMenu {
             itemCollapseAll.addActionListener(this::collapseAll);
             add(itemCollapseAll);
         }
+
+        // Format
+        if ((astNode.getType() == AstNode.Type.OBJECT || astNode.getType() == AstNode.Type.ARRAY)
+            && editorDocument.canFormatRange()) {
+            addSeparator();
+
+            JMenuItem itemFormat = new JMenuItem("Format");
+            itemFormat.addActionListener(this::format);
+            add(itemFormat);
+        }
     }
 
     private void expandAll(ActionEvent e) {
-        TreeUtil.expandAll(tree, new TreePath(treeNode.getPath()));
+        // a huge subtree is expanded in slices, so the UI keeps responding and it can be cancelled
+        new ExpandAllTask(tree, path, astNode).start();
     }
 
     private void collapseAll(ActionEvent e) {
-        TreeUtil.collapseAll(tree, new TreePath(treeNode.getPath()));
+        TreeUtil.collapseAll(tree, path);
+    }
+
+    private void format(ActionEvent e) {
+        editorDocument.formatRange(astNode.startOffset, astNode.endOffset);
     }
 
     private void copyKey(ActionEvent e) {
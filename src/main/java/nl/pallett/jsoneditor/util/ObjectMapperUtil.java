@@ -1,10 +1,16 @@
 package nl.pallett.jsoneditor.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import nl.pallett.jsoneditor.model.DocumentType;
+import org.yaml.snakeyaml.LoaderOptions;
+
+import java.io.IOException;
+import java.io.Writer;
 
 public class ObjectMapperUtil {
     private static ObjectMapper objectMapperJson;
@@ -19,7 +25,10 @@ public class ObjectMapperUtil {
 
     private static ObjectMapper objectMapperYaml;
     static {
-        objectMapperYaml = new ObjectMapper(new YAMLFactory());
+        // documents are limited to 3MB by default
+        LoaderOptions loaderOptions = new LoaderOptions();
+        loaderOptions.setCodePointLimit(Integer.MAX_VALUE);
+        objectMapperYaml = new ObjectMapper(YAMLFactory.builder().loaderOptions(loaderOptions).build());
     }
 
     public static ObjectMapper getJsonInstance() {
@@ -32,8 +41,21 @@ public class ObjectMapperUtil {
 
     public static ObjectMapper getInstance(DocumentType editorMode) {
         return switch(editorMode) {
-            case JSON -> getJsonInstance();
+            case JSON, JSON_LINES -> getJsonInstance();
             case YAML -> getYamlInstance();
         };
     }
+
+    /**
+     * Creates a generator writing a document of the given type: pretty printed JSON, compact JSON with a record per
+     * line or YAML
+     */
+    public static JsonGenerator createGenerator(Writer writer, DocumentType documentType) throws IOException {
+        return switch (documentType) {
+            case JSON -> getJsonInstance().writerWithDefaultPrettyPrinter().createGenerator(writer);
+            case JSON_LINES -> getJsonInstance().createGenerator(writer)
+                .setRootValueSeparator(new SerializedString("\n"));
+            case YAML -> getYamlInstance().createGenerator(writer);
+        };
+    }
 }
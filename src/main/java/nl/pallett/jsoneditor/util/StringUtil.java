@@ -1,22 +1,31 @@
 package nl.pallett.jsoneditor.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
 import java.io.IOException;
 import java.io.StringReader;
-import java.util.List;
-import java.util.Optional;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import nl.pallett.jsoneditor.model.DocumentType;
 import org.jspecify.annotations.Nullable;
 import org.snakeyaml.engine.v2.api.DumpSettings;
 import org.snakeyaml.engine.v2.api.LoadSettings;
-import org.snakeyaml.engine.v2.api.lowlevel.Compose;
+import org.snakeyaml.engine.v2.api.StreamDataWriter;
+import org.snakeyaml.engine.v2.api.lowlevel.Parse;
 import org.snakeyaml.engine.v2.api.lowlevel.Present;
-import org.snakeyaml.engine.v2.api.lowlevel.Serialize;
+import org.snakeyaml.engine.v2.common.FlowStyle;
+import org.snakeyaml.engine.v2.emitter.Emitter;
 import org.snakeyaml.engine.v2.events.Event;
-import org.snakeyaml.engine.v2.nodes.Node;
+import org.snakeyaml.engine.v2.events.MappingStartEvent;
+import org.snakeyaml.engine.v2.events.SequenceStartEvent;
 
 public class StringUtil {
+    private static final int JSON_LINES_DETECT_RECORDS = 100;
+
     private StringUtil() {
         /* This utility class should not be instantiated */
     }
@@ -29,56 +38,286 @@ public class StringUtil {
         return line.substring(0, i);
     }
 
+    /**
+     * Prefixes every line but the first with the indent, empty lines are left empty
+     */
+    public static String indentLines(String text, String indent) {
+        if (indent.isEmpty()) {
+            return text;
+        }
+
+        StringBuilder sb = new StringBuilder(text.length() + indent.length() * 16);
+        int lineStart = 0;
+        int lineBreak;
+        while ((lineBreak = text.indexOf('\n', lineStart)) != -1) {
+            sb.append(text, lineStart, lineBreak + 1);
+            lineStart = lineBreak + 1;
+            if (lineStart < text.length() && text.charAt(lineStart) != '\n') {
+                sb.append(indent);
+            }
+        }
+        return sb.append(text, lineStart, text.length()).toString();
+    }
+
+    /**
+     * Decodes the JSON string literal which starts (with its opening quote) at the given offset
+     */
+    public static String decodeJsonString(String text, int quoteOffset) {
+        int start = quoteOffset + 1;
+        int end = start;
+        boolean escaped = false;
+
+        while (end < text.length() && text.charAt(end) != '"') {
+            if (text.charAt(end) == '\\') {
+                escaped = true;
+                end++;
+            }
+            end++;
+        }
+        end = Math.min(end, text.length());
+
+        // most strings don't contain escapes so they can be sliced as-is
+        if (!escaped) {
+            return text.substring(start, end);
+        }
+
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c != '\\' || i + 1 >= end) {
+                sb.append(c);
+                continue;
+            }
+
+            char escape = text.charAt(++i);
+            switch (escape) {
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    if (i + 4 < end) {
+                        sb.append((char) Integer.parseInt(text, i + 1, i + 5, 16));
+                        i += 4;
+                    }
+                }
+                default -> sb.append(escape);
+            }
+        }
+        return sb.toString();
+    }
+
     public static String formatCode(DocumentType documentType, String content) throws JsonProcessingException {
         if (content == null || content.isBlank()) {
             return content;
         }
 
-        if (documentType == DocumentType.YAML) {
-            return formatYaml(content);
-        } else {
-            return formatJson(content);
-        }
+        return switch (documentType) {
+            case JSON -> formatJson(content);
+            case JSON_LINES -> formatJsonLines(content);
+            case YAML -> formatYaml(content);
+        };
     }
 
+    /**
+     * Copies the tokens of the first JSON value to a pretty printing generator, so no object graph is built and
+     * besides the input and the output only memory for the nesting depth is needed. Numbers keep their text.
+     */
     public static String formatJson(String jsonString) throws JsonProcessingException {
         var objectMapper = ObjectMapperUtil.getJsonInstance();
-        Object object = objectMapper.readValue(jsonString, Object.class);
-        return objectMapper.writerWithDefaultPrettyPrinter()
-                .writeValueAsString(object);
+        // collects the output in segments, which are copied once into the resulting string
+        var writer = new SegmentedStringWriter(objectMapper.getFactory()._getBufferRecycler());
+
+        try (JsonParser parser = objectMapper.createParser(jsonString)) {
+            if (parser.nextToken() == null) {
+                return jsonString;
+            }
+            try (JsonGenerator generator = objectMapper.writerWithDefaultPrettyPrinter().createGenerator(writer)) {
+                copyStructure(parser, generator);
+            }
+            return writer.getAndClear();
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            // writing to memory doesn't fail
+            throw new UncheckedIOException(e);
+        }
     }
 
-    public static String formatYaml(String yamlString) {
+    /**
+     * @see #minifyCode(DocumentType, String, Writer)
+     */
+    public static String minifyCode(DocumentType documentType, String content) throws IOException {
+        if (content == null || content.isBlank()) {
+            return content;
+        }
+
+        var writer = new SegmentedStringWriter(ObjectMapperUtil.getJsonInstance().getFactory()._getBufferRecycler());
+        minifyCode(documentType, content, writer);
+        return writer.getAndClear();
+    }
+
+    /**
+     * Writes the document without any layout: JSON compact, JSON Lines as a compact record per line and YAML in flow
+     * style. Tokens or events are copied as they are read, so no object graph is built and the writer can be a file.
+     * The writer is left open.
+     */
+    public static void minifyCode(DocumentType documentType, String content, Writer writer) throws IOException {
+        switch (documentType) {
+            case JSON -> minifyJson(content, writer, false);
+            case JSON_LINES -> minifyJson(content, writer, true);
+            case YAML -> minifyYaml(content, writer);
+        }
+    }
+
+    /**
+     * @param records copy every value as a record on its own line, instead of only the first value
+     */
+    private static void minifyJson(String jsonString, Writer writer, boolean records) throws IOException {
+        var objectMapper = ObjectMapperUtil.getJsonInstance();
+        JsonGenerator generator = records
+            ? ObjectMapperUtil.createGenerator(writer, DocumentType.JSON_LINES)
+            : objectMapper.createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 
-        // 1️⃣ Parse to Node tree with comments
+        try (JsonParser parser = objectMapper.createParser(jsonString); generator) {
+            while (parser.nextToken() != null) {
+                copyStructure(parser, generator);
+                if (!records) {
+                    break;
+                }
+            }
+            // content after the value would be dropped from the document
+            if (!records && parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after the JSON value");
+            }
+            if (records) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private static void minifyYaml(String yamlString, Writer writer) throws IOException {
         LoadSettings loadSettings = LoadSettings.builder()
-                .setParseComments(true)
+                .setCodePointLimit(Integer.MAX_VALUE)
                 .build();
 
-        Compose compose = new Compose(loadSettings);
-        Optional<Node> node = compose.composeReader(new StringReader(yamlString));
-
-        // 2️⃣ Dump Node while preserving comments
+        // a flow collection is kept on a single line
         DumpSettings dumpSettings = DumpSettings.builder()
-                .setDumpComments(true)
-                .setIndent(2)
+                .setWidth(Integer.MAX_VALUE)
+                .setSplitLines(false)
                 .build();
 
-        Serialize serialize = new Serialize(dumpSettings);
-        Present present = new Present(dumpSettings);
+        Emitter emitter = new Emitter(dumpSettings, new StreamDataWriter() {
+            @Override
+            public void write(String str) {
+                write(str, 0, str.length());
+            }
+
+            @Override
+            public void write(String str, int off, int len) {
+                try {
+                    writer.write(str, off, len);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
 
-        List<Event> events = serialize.serializeOne(node.get());
-        return present.emitToString(events.iterator());
+        try {
+            for (Event event : new Parse(loadSettings).parseReader(new StringReader(yamlString))) {
+                emitter.emit(toFlowStyle(event));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
-    public static @Nullable String convertOjectTreeToString(@Nullable Object objectTree, DocumentType documentType
-    ) throws JsonProcessingException {
-        if (objectTree == null) {
-            return null;
+    private static Event toFlowStyle(Event event) {
+        return switch (event) {
+            case MappingStartEvent start when !start.isFlow() ->
+                new MappingStartEvent(start.getAnchor(), start.getTag(), start.isImplicit(), FlowStyle.FLOW);
+            case SequenceStartEvent start when !start.isFlow() ->
+                new SequenceStartEvent(start.getAnchor(), start.getTag(), start.isImplicit(), FlowStyle.FLOW);
+            default -> event;
+        };
+    }
+
+    /**
+     * JSON Lines can't be pretty printed, every record is written compact on its own line and blank lines are removed
+     */
+    public static String formatJsonLines(String jsonLinesString) throws JsonProcessingException {
+        var objectMapper = ObjectMapperUtil.getJsonInstance();
+        var writer = new SegmentedStringWriter(objectMapper.getFactory()._getBufferRecycler());
+
+        try (JsonGenerator generator = ObjectMapperUtil.createGenerator(writer, DocumentType.JSON_LINES)) {
+            boolean written = false;
+            for (String line : jsonLinesString.split("\n")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try (JsonParser parser = objectMapper.createParser(line)) {
+                    parser.nextToken();
+                    copyStructure(parser, generator);
+                }
+                written = true;
+            }
+            if (written) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+            return writer.getAndClear();
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            // writing to memory doesn't fail
+            throw new UncheckedIOException(e);
         }
+    }
 
-        ObjectMapper objectMapper = ObjectMapperUtil.getInstance(documentType);
-        return objectMapper.writeValueAsString(objectTree);
+    /**
+     * Copies the value at the current token like {@link JsonGenerator#copyCurrentStructure(JsonParser)}, except that
+     * numbers are written as they are written in the document instead of being converted to a double, so 1.10, 1e3
+     * and 1e400 keep their text
+     */
+    private static void copyStructure(JsonParser parser, JsonGenerator generator) throws IOException {
+        int depth = 0;
+        JsonToken token = parser.currentToken();
+        while (token != null) {
+            switch (token) {
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> generator.writeNumber(parser.getText());
+                default -> generator.copyCurrentEvent(parser);
+            }
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            if (depth == 0) {
+                return;
+            }
+            token = parser.nextToken();
+        }
+    }
+
+    /**
+     * Pipes the parser events, comments included, straight into the emitter. No node graph or event list is built,
+     * so every document of a stream is formatted in a single pass.
+     */
+    public static String formatYaml(String yamlString) {
+        LoadSettings loadSettings = LoadSettings.builder()
+                .setParseComments(true)
+                .setCodePointLimit(Integer.MAX_VALUE)
+                .build();
+
+        DumpSettings dumpSettings = DumpSettings.builder()
+                .setDumpComments(true)
+                .setIndent(2)
+                .build();
+
+        Iterable<Event> events = new Parse(loadSettings).parseReader(new StringReader(yamlString));
+        return new Present(dumpSettings).emitToString(events.iterator());
     }
 
     public static @Nullable DocumentType detectFormat(String content) {
@@ -88,6 +327,11 @@ public class StringUtil {
 
         String trimmed = content.trim();
 
+        // checked before JSON, because reading JSON stops after the first record
+        if (isJsonLines(trimmed)) {
+            return DocumentType.JSON_LINES;
+        }
+
         // Quick Check: JSON usually starts with { or [
         if (trimmed.startsWith("{") || trimmed.startsWith("[")) {
             try {
@@ -107,4 +351,33 @@ public class StringUtil {
             return null;
         }
     }
+
+    /**
+     * At least two lines which each hold a JSON object or array, only the first lines are actually parsed
+     */
+    private static boolean isJsonLines(String trimmed) {
+        int records = 0;
+        for (String line : trimmed.split("\n")) {
+            String record = line.trim();
+            if (record.isEmpty()) {
+                continue;
+            }
+
+            boolean object = record.startsWith("{") && record.endsWith("}");
+            boolean array = record.startsWith("[") && record.endsWith("]");
+            if (!object && !array) {
+                return false;
+            }
+
+            if (records < JSON_LINES_DETECT_RECORDS) {
+                try {
+                    ObjectMapperUtil.getJsonInstance().readTree(record);
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+            records++;
+        }
+        return records >= 2;
+    }
 }
@@ -1,9 +1,16 @@
 package nl.pallett.jsoneditor.util;
 
+import org.jspecify.annotations.Nullable;
+
 import javax.swing.*;
-import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.Enumeration;
+import java.util.List;
 
 public class TreeUtil {
 
@@ -12,34 +19,57 @@ public class TreeUtil {
     }
 
     public static void expandAll(JTree tree, TreePath parent) {
-        TreeNode node = (TreeNode) parent.getLastPathComponent();
-
-        // Traverse children
-        if (node.getChildCount() >= 0) {
-            for (Enumeration<?> e = node.children(); e.hasMoreElements();) {
-                TreeNode child = (TreeNode) e.nextElement();
-                TreePath path = parent.pathByAddingChild(child);
-                expandAll(tree, path);
+        Deque<TreePath> pending = new ArrayDeque<>();
+        pending.push(parent);
+        expandAll(tree, pending, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Expands the paths on the stack and the paths below them, top-down so every path is visible when it is
+     * expanded and the tree only lays out the rows that are added.
+     *
+     * @param pending paths still to expand, the children of an expanded path are pushed on it
+     * @param maxPaths number of paths to expand before returning
+     * @return the last expanded path, null if nothing was expanded
+     */
+    public static @Nullable TreePath expandAll(JTree tree, Deque<TreePath> pending, int maxPaths) {
+        TreeModel model = tree.getModel();
+        TreePath last = null;
+        int expanded = 0;
+
+        while (!pending.isEmpty() && expanded < maxPaths) {
+            TreePath path = pending.pop();
+            Object node = path.getLastPathComponent();
+
+            tree.expandPath(path);
+            last = path;
+            expanded++;
+
+            // pushed in reverse, so the children are expanded in the order they are shown
+            for (int i = model.getChildCount(node) - 1; i >= 0; i--) {
+                Object child = model.getChild(node, i);
+                if (!model.isLeaf(child)) {
+                    pending.push(path.pathByAddingChild(child));
+                }
             }
         }
-
-        // Expand after children (so it works bottom-up)
-        tree.expandPath(parent);
+        return last;
     }
 
+    /**
+     * Collapses the path and the expanded paths below it. Only the expanded paths are visited, the deepest first
+     * so collapsing a path never has to lay out rows that are collapsed next.
+     */
     public static void collapseAll(JTree tree, TreePath parent) {
-        TreeNode node = (TreeNode) parent.getLastPathComponent();
-
-        // Traverse children first
-        if (node.getChildCount() >= 0) {
-            for (Enumeration<?> e = node.children(); e.hasMoreElements();) {
-                TreeNode child = (TreeNode) e.nextElement();
-                TreePath path = parent.pathByAddingChild(child);
-                collapseAll(tree, path);
-            }
+        Enumeration<TreePath> expanded = tree.getExpandedDescendants(parent);
+        if (expanded == null) {
+            return;
         }
 
-        // Collapse after children
-        tree.collapsePath(parent);
+        List<TreePath> paths = Collections.list(expanded);
+        paths.sort(Comparator.comparingInt(TreePath::getPathCount).reversed());
+        for (TreePath path : paths) {
+            tree.collapsePath(path);
+        }
     }
 }
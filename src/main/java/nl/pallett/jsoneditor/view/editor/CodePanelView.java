@@ -6,6 +6,8 @@ public interface CodePanelView {
     void redo();
     boolean canUndo();
     boolean canRedo();
+    int getSelectionStart();
+    int getSelectionEnd();
     void scrollTo(int offset, Runnable runWhenFinished);
     void addCaretListener(CaretPositionListener listener);
     void updateStatusBar(int line, int column);
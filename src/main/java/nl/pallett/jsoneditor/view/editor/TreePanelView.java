@@ -3,4 +3,9 @@ package nl.pallett.jsoneditor.view.editor;
 public interface TreePanelView {
     void addNodeSelectedListener(NodeSelectedListener listener);
     void selectNodeForCaretPosition(int caretPosition);
+
+    /**
+     * Called when the rows can be looked up again, after the offset index of an edited document was rebuilt
+     */
+    void addIndexUpdatedListener(Runnable listener);
 }
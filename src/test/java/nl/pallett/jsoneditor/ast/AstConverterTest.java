@@ -0,0 +1,136 @@
+package nl.pallett.jsoneditor.ast;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import nl.pallett.jsoneditor.ast.parser.CompactJsonParser;
+import nl.pallett.jsoneditor.ast.parser.JsonLinesParser;
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import nl.pallett.jsoneditor.ast.parser.YamlParserAdapter;
+import nl.pallett.jsoneditor.model.DocumentType;
+import nl.pallett.jsoneditor.util.ObjectMapperUtil;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class AstConverterTest {
+
+    private static final String JSON = "{\"z\": 1, \"a\": [1.10, 12345678901234567890, -2e-3], \"m\": null}";
+
+    @Test
+    public void keysKeepTheirOrderAndNumbersTheirLiterals() throws Exception {
+        String expected = """
+            {
+              "z" : 1,
+              "a" : [
+                1.10,
+                12345678901234567890,
+                -2e-3
+              ],
+              "m" : null
+            }""";
+
+        assertEquals(expected, convert(new JsonParserAdapter().parse(JSON), DocumentType.JSON, DocumentType.JSON));
+        assertEquals(expected, convert(new CompactJsonParser().parse(JSON), DocumentType.JSON, DocumentType.JSON));
+    }
+
+    @Test
+    public void yamlIsWrittenAsJson() throws Exception {
+        String yaml = """
+            # comment
+            name: x
+            count: 0x1F
+            items:
+              - true
+              - 2.5
+            """;
+
+        AstNode ast = new YamlParserAdapter().parse(yaml);
+
+        assertEquals("{\"name\":\"x\",\"count\":\"0x1F\",\"items\":[true,2.5]}",
+            convert(ast, DocumentType.YAML, DocumentType.JSON_LINES));
+    }
+
+    @Test
+    public void yamlFloatsWithoutDigitsOnASideOfThePointAreWrittenAsNumbers() throws Exception {
+        String yaml = """
+            items:
+              - .5
+              - -.5
+              - +.5
+              - 1.
+              - 1.e3
+              - .inf
+              - .nan
+            """;
+
+        AstNode ast = new YamlParserAdapter().parse(yaml);
+
+        assertEquals("{\"items\":[0.5,-0.5,0.5,1.0,1.0e3,\".inf\",\".nan\"]}",
+            convert(ast, DocumentType.YAML, DocumentType.JSON_LINES));
+    }
+
+    @Test
+    public void jsonIsWrittenAsYaml() throws Exception {
+        String expected = """
+            ---
+            z: 1
+            a:
+            - 1.10
+            - 12345678901234567890
+            - -2e-3
+            m: null
+            """;
+
+        assertEquals(expected, convert(new JsonParserAdapter().parse(JSON), DocumentType.JSON, DocumentType.YAML));
+    }
+
+    @Test
+    public void recordsBecomeAnArrayAndBack() throws Exception {
+        String jsonLines = "{\"a\": 1}\n[2]\n";
+        AstNode records = new JsonLinesParser().parse(jsonLines);
+
+        assertEquals("""
+            [
+              {
+                "a" : 1
+              },
+              [
+                2
+              ]
+            ]""", convert(records, DocumentType.JSON_LINES, DocumentType.JSON));
+        assertEquals("{\"a\":1}\n[2]", convert(records, DocumentType.JSON_LINES, DocumentType.JSON_LINES));
+
+        AstNode array = new JsonParserAdapter().parse("[{\"a\": 1}, [2]]");
+        assertEquals("{\"a\":1}\n[2]", convert(array, DocumentType.JSON, DocumentType.JSON_LINES));
+        assertEquals("{\"a\":1}\n[2]",
+            convert(new CompactJsonParser().parse("[{\"a\": 1}, [2]]"), DocumentType.JSON, DocumentType.JSON_LINES));
+    }
+
+    @Test
+    public void documentWithoutValueWritesNothing() throws Exception {
+        AstNode ast = new YamlParserAdapter().parse("# only a comment\n");
+
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = ObjectMapperUtil.createGenerator(writer, DocumentType.JSON)) {
+            assertFalse(new AstConverter().write(ast, DocumentType.YAML, DocumentType.JSON, generator));
+        }
+    }
+
+    private String convert(AstNode ast, DocumentType sourceType, DocumentType targetType) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = ObjectMapperUtil.createGenerator(writer, targetType)) {
+            new AstConverter().write(ast, sourceType, targetType, generator);
+        }
+        return writer.toString();
+    }
+
+    private String convert(CompactAst ast, DocumentType sourceType, DocumentType targetType) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = ObjectMapperUtil.createGenerator(writer, targetType)) {
+            new AstConverter().write(ast, sourceType, targetType, generator);
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package nl.pallett.jsoneditor.ast;
+
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import nl.pallett.jsoneditor.ast.parser.YamlParserAdapter;
+import nl.pallett.jsoneditor.testdata.DocumentGenerator;
+import nl.pallett.jsoneditor.testdata.DocumentGenerator.Format;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class AstIndexTest {
+
+    private DocumentGenerator generator(long seed) {
+        return new DocumentGenerator().seed(seed).size(20_000).comments(true).anchors(true);
+    }
+
+    @Test
+    public void propertySpanIncludesItsValue() throws Exception {
+        String json = "{\"a\": [1, 2], \"b\": true}";
+        AstNode root = new JsonParserAdapter().parse(json);
+        AstIndex index = new AstIndex(root);
+
+        AstNode property = index.findNode(json.indexOf("\"a\""));
+        assertNotNull(property);
+        assertEquals(AstNode.Type.PROPERTY, property.getType());
+        assertEquals("1", index.findNode(json.indexOf('1')).getValue());
+        assertSame(property.getChildren().getFirst(), index.findNode(json.indexOf('[')));
+    }
+
+    @Test
+    public void offsetOutsideTheDocumentIsNotFound() throws Exception {
+        String json = "  {\"a\": 1}  ";
+        AstIndex index = new AstIndex(new JsonParserAdapter().parse(json));
+
+        assertNull(index.findNode(json.length() + 10));
+        assertNull(index.findNode(-1));
+    }
+
+    @Test
+    public void filteredNodesAreSkipped() throws Exception {
+        String json = "{\"a\": {\"b\": 1}}";
+        AstIndex index = new AstIndex(new JsonParserAdapter().parse(json));
+
+        AstNode found = index.findNode(json.indexOf('1'), node -> node.getType() != AstNode.Type.VALUE);
+        assertNotNull(found);
+        assertEquals(AstNode.Type.PROPERTY, found.getType());
+        assertEquals("b", found.getKey());
+    }
+
+    @Test
+    public void jsonLookupMatchesLinearScan() throws Exception {
+        for (long seed = 1; seed <= 5; seed++) {
+            String json = generator(seed).generate(Format.JSON);
+            assertMatchesLinearScan(new JsonParserAdapter().parse(json), json.length(), seed);
+        }
+    }
+
+    @Test
+    public void yamlLookupMatchesLinearScan() {
+        for (long seed = 1; seed <= 5; seed++) {
+            String yaml = generator(seed).generate(Format.YAML_STREAM);
+            assertMatchesLinearScan(new YamlParserAdapter().parse(yaml), yaml.length(), seed);
+        }
+    }
+
+    private void assertMatchesLinearScan(AstNode root, int length, long seed) {
+        AstIndex index = new AstIndex(root);
+        List<int[]> spans = new ArrayList<>();
+        collectSpans(root, spans);
+        assertEquals(spans.size(), index.size());
+
+        Random random = new Random(seed);
+        for (int i = 0; i < 500; i++) {
+            int offset = random.nextInt(length + 1);
+            int[] expected = smallestSpanContaining(spans, offset);
+            AstNode found = index.findNode(offset);
+
+            if (expected == null) {
+                assertNull(found, "offset " + offset);
+            } else {
+                assertNotNull(found, "offset " + offset);
+                assertEquals(expected[1] - expected[0], span(found)[1] - span(found)[0], "offset " + offset);
+            }
+        }
+    }
+
+    private int[] smallestSpanContaining(List<int[]> spans, int offset) {
+        int[] smallest = null;
+        for (int[] span : spans) {
+            if (span[0] <= offset && offset <= span[1]
+                && (smallest == null || span[1] - span[0] < smallest[1] - smallest[0])) {
+                smallest = span;
+            }
+        }
+        return smallest;
+    }
+
+    private void collectSpans(AstNode node, List<int[]> spans) {
+        spans.add(span(node));
+        for (AstNode child : node.getChildren()) {
+            collectSpans(child, spans);
+        }
+    }
+
+    private int[] span(AstNode node) {
+        int end = node.endOffset;
+        if (node.getType() == AstNode.Type.PROPERTY) {
+            end = Math.max(end, subtreeEnd(node));
+        }
+        return new int[] {node.startOffset, end};
+    }
+
+    private int subtreeEnd(AstNode node) {
+        int end = node.endOffset;
+        for (AstNode child : node.getChildren()) {
+            end = Math.max(end, subtreeEnd(child));
+        }
+        return end;
+    }
+}
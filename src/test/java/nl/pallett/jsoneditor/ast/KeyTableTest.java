@@ -0,0 +1,64 @@
+package nl.pallett.jsoneditor.ast;
+
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class KeyTableTest {
+
+    @Test
+    public void equalKeysShareTheFirstInstance() {
+        KeyTable keyTable = new KeyTable();
+        String first = new String("name");
+
+        assertSame(first, keyTable.canonicalize(first));
+        assertSame(first, keyTable.canonicalize(new String("name")));
+        assertNull(keyTable.canonicalize(null));
+        assertEquals(1, keyTable.size());
+    }
+
+    @Test
+    public void documentsParsedWithTheSameTableShareTheirKeys() throws Exception {
+        KeyTable keyTable = new KeyTable();
+        AstNode first = new JsonParserAdapter(false, keyTable).parse("{\"id\": 1}");
+        AstNode second = new JsonParserAdapter(false, keyTable).parse("[{\"id\": 2}]");
+
+        String firstKey = first.getChildren().getFirst().getChildren().getFirst().getKey();
+        String secondKey = second.getChildren().getFirst().getChildren().getFirst().getChildren().getFirst().getKey();
+        assertEquals("id", firstKey);
+        assertSame(firstKey, secondKey);
+    }
+
+    @Test
+    public void keysAreNoLongerAddedOnceTheTableIsFull() {
+        KeyTable keyTable = new KeyTable(2);
+        String a = keyTable.canonicalize(new String("a"));
+        keyTable.canonicalize("b");
+
+        String c = new String("c");
+        assertSame(c, keyTable.canonicalize(c));
+        assertNotSame(c, keyTable.canonicalize(new String("c")));
+        assertEquals(2, keyTable.size());
+
+        // keys stored before the table was full are still shared
+        assertSame(a, keyTable.canonicalize(new String("a")));
+    }
+
+    @Test
+    public void clearedTableForgetsItsKeys() {
+        KeyTable keyTable = new KeyTable();
+        String key = keyTable.canonicalize(new String("name"));
+        assertEquals(1, keyTable.size());
+
+        keyTable.clear();
+
+        assertEquals(0, keyTable.size());
+        String newKey = new String("name");
+        assertSame(newKey, keyTable.canonicalize(newKey));
+        assertNotSame(key, keyTable.canonicalize(new String("name")));
+    }
+}
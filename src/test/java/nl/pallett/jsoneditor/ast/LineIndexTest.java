@@ -0,0 +1,70 @@
+package nl.pallett.jsoneditor.ast;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LineIndexTest {
+
+    @Test
+    public void offsetsAreConvertedToLineAndColumn() {
+        LineIndex index = new LineIndex("{\n  \"a\": 1\n}\n");
+
+        assertEquals(4, index.getLineCount());
+        assertEquals(1, index.getLine(0));
+        assertEquals(1, index.getColumn(0));
+        assertEquals(2, index.getLine(4));
+        assertEquals(3, index.getColumn(4));
+        assertEquals(2, index.getLine(10));
+        assertEquals(3, index.getLine(11));
+        assertEquals(4, index.getLine(13));
+        assertEquals(13, index.getLineStart(4));
+    }
+
+    @Test
+    public void crLfEndsALineAfterTheLineFeed() {
+        LineIndex index = new LineIndex("a\r\nb");
+
+        assertEquals(2, index.getLineCount());
+        assertEquals(1, index.getLine(1));
+        assertEquals(3, index.getLineStart(2));
+    }
+
+    @Test
+    public void updatedIndexMatchesIndexOfTheNewText() {
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder(randomText(random, 500));
+        LineIndex index = new LineIndex(text);
+
+        for (int i = 0; i < 2000; i++) {
+            int offset = random.nextInt(text.length() + 1);
+            int removed = random.nextInt(Math.min(40, text.length() - offset) + 1);
+            String inserted = randomText(random, random.nextInt(40));
+
+            text.replace(offset, offset + removed, inserted);
+            index.update(text, offset, removed, inserted.length());
+
+            assertSameIndex(new LineIndex(text), index, text.length());
+        }
+    }
+
+    private void assertSameIndex(LineIndex expected, LineIndex actual, int length) {
+        assertEquals(expected.getLineCount(), actual.getLineCount());
+        for (int line = 1; line <= expected.getLineCount(); line++) {
+            assertEquals(expected.getLineStart(line), actual.getLineStart(line), "line " + line);
+        }
+        for (int offset = 0; offset <= length; offset++) {
+            assertEquals(expected.getLine(offset), actual.getLine(offset), "offset " + offset);
+        }
+    }
+
+    private String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(random.nextInt(5) == 0 ? '\n' : (char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package nl.pallett.jsoneditor.ast;
+
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class NodePointerTest {
+
+    @Test
+    public void segmentsAreRenderedAsJsonPath() {
+        NodePointer items = NodePointer.ROOT.child(new FieldPointer("a"));
+        NodePointer item = items.child(new ArrayIndexPointer(0));
+
+        assertEquals("$", NodePointer.ROOT.toJsonPath());
+        assertEquals("$.a[0].b", item.child(new FieldPointer("b")).toJsonPath());
+        assertEquals("$.a[0][1]", item.child(new ArrayIndexPointer(1)).toJsonPath());
+    }
+
+    @Test
+    public void namelessSegmentsAreLeftOut() {
+        NodePointer document = NodePointer.ROOT.child(new DocumentPointer());
+        NodePointer object = document.child(new NullPointer());
+
+        assertEquals("$", object.toJsonPath());
+        assertEquals("$.a", object.child(PointerType.fieldOrNullPointer("a")).toJsonPath());
+        assertEquals("$", object.child(PointerType.fieldOrNullPointer(null)).toJsonPath());
+    }
+
+    @Test
+    public void childOfAnItemLinksToTheItemPointer() {
+        NodePointer item = NodePointer.ROOT.child(new ArrayIndexPointer(3));
+        NodePointer child = item.child(new FieldPointer("b"));
+
+        assertSame(item, child.getParent());
+        assertEquals(new FieldPointer("b"), child.getSegment());
+        assertEquals(new ArrayIndexPointer(3), item.getSegment());
+        assertSame(NodePointer.ROOT, item.getParent());
+        assertNull(NodePointer.ROOT.getParent());
+    }
+
+    @Test
+    public void jsonPathIsRenderedOnce() {
+        NodePointer pointer = NodePointer.ROOT.child(new FieldPointer("a")).child(new ArrayIndexPointer(2));
+
+        String path = pointer.toJsonPath();
+
+        assertEquals("$.a[2]", path);
+        assertSame(path, pointer.toJsonPath());
+        assertSame(path, pointer.toString());
+    }
+
+    @Test
+    public void siblingsShareTheParentPointer() throws Exception {
+        AstNode root = new JsonParserAdapter().parse("{\"a\": [1, {\"b\": 2, \"c\": 3}]}");
+        AstNode object = root.getChildren().getFirst();
+        AstNode array = object.getChildren().getFirst().getChildren().getFirst();
+        AstNode item = array.getChildren().get(1);
+        AstNode b = item.getChildren().get(0).getChildren().getFirst();
+        AstNode c = item.getChildren().get(1).getChildren().getFirst();
+
+        assertSame(array.getPointer(), array.getChildren().getFirst().getPointer().getParent());
+        // an object item adds a nameless segment below its index
+        assertSame(array.getPointer(), item.getPointer().getParent().getParent());
+        assertSame(item.getPointer(), b.getPointer().getParent());
+        assertSame(item.getPointer(), c.getPointer().getParent());
+        assertEquals("$.a[1].c", c.getPointerAsJsonPath());
+    }
+}
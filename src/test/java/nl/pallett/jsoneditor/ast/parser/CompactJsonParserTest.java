@@ -0,0 +1,150 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.CompactAst;
+import nl.pallett.jsoneditor.testdata.DocumentGenerator;
+import nl.pallett.jsoneditor.testdata.DocumentGenerator.Format;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CompactJsonParserTest {
+
+    private static final String JSON = """
+        {
+          "nested": {"a": [1, [2, [3, {}]], []], "b": {"c": {"d": null}}},
+          "escaped \\"key\\"": "quote \\" backslash \\\\ tab \\t é \\u00e9 \\ud83d\\ude00 /\\/",
+          "numbers": [0, -0, 12, -3.5, 1e3, 1.10E-2, 12345678901234567890, 1e400],
+          "literals": [true, false, null],
+          "empty": [{}, [], "", {"": ""}]
+        }
+        """;
+
+    @Test
+    public void columnsMatchTheTreeOfTheRegularParser() throws Exception {
+        assertSameTree(new CompactJsonParser().parse(JSON), new JsonParserAdapter().parse(JSON));
+    }
+
+    @Test
+    public void crLfTextMatchesTheTreeOfTheRegularParser() throws Exception {
+        String json = JSON.replace("\n", "\r\n");
+
+        assertSameTree(new CompactJsonParser().parse(json), new JsonParserAdapter().parse(json));
+    }
+
+    @Test
+    public void generatedDocumentMatchesTheTreeOfTheRegularParser() throws Exception {
+        String json = new DocumentGenerator().seed(3).size(20_000).generate(Format.JSON);
+
+        assertSameTree(new CompactJsonParser().parse(json), new JsonParserAdapter().parse(json));
+    }
+
+    @Test
+    public void escapesAreDecoded() throws Exception {
+        CompactAst ast = new CompactJsonParser().parse(JSON);
+        int object = ast.getFirstChild(ast.root());
+        int escaped = ast.getNextSibling(ast.getFirstChild(object));
+
+        assertEquals("escaped \"key\"", ast.getKey(escaped));
+        assertEquals("quote \" backslash \\ tab \t é é 😀 //", ast.getValue(escaped));
+    }
+
+    @Test
+    public void numbersKeepTheirText() throws Exception {
+        CompactAst ast = new CompactJsonParser().parse(JSON);
+        int numbers = ast.getNextSibling(ast.getNextSibling(ast.getFirstChild(ast.getFirstChild(ast.root()))));
+
+        assertEquals(List.of("0", "-0", "12", "-3.5", "1e3", "1.10E-2", "12345678901234567890", "1e400"),
+            valuesOf(ast, numbers));
+        assertEquals(AstNode.ValueType.INTEGER, ast.getValueType(ast.getFirstChild(numbers)));
+    }
+
+    @Test
+    public void deepestNodeIsFoundForEveryOffset() throws Exception {
+        CompactAst ast = new CompactJsonParser().parse(JSON);
+
+        for (int offset = 0; offset <= JSON.length(); offset++) {
+            assertEquals(deepestByScan(ast, offset), ast.findDeepest(offset), "offset " + offset);
+        }
+
+        // a key belongs to the node of its value
+        int offset = JSON.indexOf("\"numbers\"") + 2;
+        assertEquals("numbers", ast.getKey(ast.findDeepest(offset)));
+        assertEquals("$.nested.a[1][1][1]", ast.getPointer(ast.findDeepest(JSON.indexOf("{}") + 1)).toJsonPath());
+        assertEquals(CompactAst.NONE, ast.findDeepest(JSON.length()));
+    }
+
+    /**
+     * The deepest node containing the offset is the last one in document order
+     */
+    private static int deepestByScan(CompactAst ast, int offset) {
+        int deepest = CompactAst.NONE;
+        for (int node = 1; node < ast.size(); node++) {
+            if (ast.getStartOffset(node) <= offset && offset <= ast.getEndOffset(node)) {
+                deepest = node;
+            }
+        }
+        return deepest;
+    }
+
+    private static List<String> valuesOf(CompactAst ast, int array) {
+        List<String> values = new ArrayList<>();
+        for (int item = ast.getFirstChild(array); item != CompactAst.NONE; item = ast.getNextSibling(item)) {
+            values.add(ast.getValue(item));
+        }
+        return values;
+    }
+
+    /**
+     * Compares a compact node with the node of the regular tree, a key is stored on the value instead of on a
+     * PROPERTY node around it
+     */
+    private static void assertSameTree(CompactAst ast, AstNode expected) {
+        assertEquals(expected.getChildren().size(), ast.getChildCount(ast.root()));
+        int node = ast.getFirstChild(ast.root());
+        for (AstNode child : expected.getChildren()) {
+            assertSameNode(ast, node, child);
+            node = ast.getNextSibling(node);
+        }
+    }
+
+    private static void assertSameNode(CompactAst ast, int node, AstNode expected) {
+        AstNode value = expected;
+        if (expected.getType() == AstNode.Type.PROPERTY) {
+            value = expected.getChildren().getFirst();
+            assertEquals(expected.getKey(), ast.getKey(node));
+            assertEquals(expected.startOffset, ast.getStartOffset(node), expected.getKey() + " key offset");
+        } else {
+            assertEquals(expected.startOffset, ast.getStartOffset(node));
+        }
+
+        String path = value.getPointerAsJsonPath();
+        AstNode actual = ast.toAstNode(node);
+
+        assertEquals(value.getType(), ast.getType(node), path);
+        assertEquals(value.getValueType(), ast.getValueType(node), path);
+        assertEquals(value.getValue(), ast.getValue(node), path);
+        assertEquals(value.getArrayIndex(), actual.getArrayIndex(), path);
+        assertEquals(value.getArraySize(), actual.getArraySize(), path);
+        assertEquals(path, actual.getPointerAsJsonPath(), path);
+
+        assertEquals(value.startOffset, ast.getValueStartOffset(node), path + " start offset");
+        assertEquals(value.endOffset, actual.endOffset, path + " end offset");
+        assertEquals(value.endLine, actual.endLine, path + " end line");
+        assertEquals(value.endColumn, actual.endColumn, path + " end column");
+        assertEquals(expected.startLine, actual.startLine, path + " start line");
+        assertEquals(expected.startColumn, actual.startColumn, path + " start column");
+
+        assertEquals(value.getChildren().size(), ast.getChildCount(node), path + " children");
+        int child = ast.getFirstChild(node);
+        for (AstNode expectedChild : value.getChildren()) {
+            assertEquals(node, ast.getParent(child), path + " parent");
+            assertSameNode(ast, child, expectedChild);
+            child = ast.getNextSibling(child);
+        }
+        assertEquals(CompactAst.NONE, child, path + " last child");
+    }
+}
@@ -0,0 +1,153 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IncrementalJsonParserTest {
+
+    private static final String JSON = """
+        {
+          "a": {"b": "xy", "c": 123},
+          "d": [1, {"e": true}, "f\\u00e9"],
+          "g": {"h": null}
+        }
+        """;
+
+    @Test
+    public void editsInsideAScalarAreReparsedIdenticalToFullParse() throws Exception {
+        assertReparsed(JSON, JSON.indexOf("xy") + 1, 0, "z");
+        assertReparsed(JSON, JSON.indexOf("123") + 1, 1, "");
+        assertReparsed(JSON, JSON.indexOf("true"), 4, "false");
+    }
+
+    @Test
+    public void editsOfAKeyAreReparsedIdenticalToFullParse() throws Exception {
+        assertReparsed(JSON, JSON.indexOf("\"b\"") + 2, 0, "bb");
+        assertReparsed(JSON, JSON.indexOf("\"e\"") + 1, 1, "renamed");
+    }
+
+    @Test
+    public void editsOfAContainerAreReparsedIdenticalToFullParse() throws Exception {
+        // insert an item before others, so the items after it are renumbered
+        assertReparsed(JSON, JSON.indexOf("[1,") + 1, 0, "0, ");
+        // remove a property
+        assertReparsed(JSON, JSON.indexOf(", \"c\""), ", \"c\": 123".length(), "");
+        // add lines to a nested object, so the lines after it move
+        assertReparsed(JSON, JSON.indexOf("null") + 4, 0, ",\n    \"i\": [\n      2\n    ]\n  ");
+    }
+
+    @Test
+    public void crLfTextIsReparsedIdenticalToFullParse() throws Exception {
+        String json = JSON.replace("\n", "\r\n");
+
+        assertReparsed(json, json.indexOf("xy") + 1, 0, "z");
+        assertReparsed(json, json.indexOf("null") + 4, 0, ",\r\n    \"i\": 2\r\n  ");
+    }
+
+    @Test
+    public void lazyValuesAfterTheEditAreDecodedFromTheNewText() throws Exception {
+        AstNode tree = new JsonParserAdapter(true).parse(JSON);
+        AstNode item = tree.getChildren().getFirst().getChildren().get(1).getChildren().getFirst().getChildren().get(2);
+        assertEquals("fé", item.getValue());
+
+        int offset = JSON.indexOf("xy");
+        String edited = JSON.substring(0, offset) + "longer " + JSON.substring(offset);
+        assertTrue(new IncrementalJsonParser().reparse(tree, edited, offset, 0, "longer ".length()));
+
+        assertEquals("fé", item.getValue());
+        assertEquals(JSON.indexOf("\"f\\") + "longer ".length(), item.startOffset);
+    }
+
+    @Test
+    public void containerKeepsItsNodeAndPointer() throws Exception {
+        AstNode tree = new JsonParserAdapter(true).parse(JSON);
+        AstNode array = tree.getChildren().getFirst().getChildren().get(1).getChildren().getFirst();
+
+        int offset = JSON.indexOf("[1,") + 1;
+        String edited = JSON.substring(0, offset) + "0, " + JSON.substring(offset);
+        assertTrue(new IncrementalJsonParser().reparse(tree, edited, offset, 0, 3));
+
+        assertSame(array, tree.getChildren().getFirst().getChildren().get(1).getChildren().getFirst());
+        assertEquals("$.d", array.getPointerAsJsonPath());
+        assertEquals(4, array.getArraySize());
+    }
+
+    @Test
+    public void reparsedNodesLinkToThePointerOfTheContainer() throws Exception {
+        AstNode tree = new JsonParserAdapter(true).parse(JSON);
+        AstNode array = tree.getChildren().getFirst().getChildren().get(1).getChildren().getFirst();
+
+        int offset = JSON.indexOf("[1,") + 1;
+        String edited = JSON.substring(0, offset) + "0, " + JSON.substring(offset);
+        assertTrue(new IncrementalJsonParser().reparse(tree, edited, offset, 0, 3));
+
+        AstNode scalar = array.getChildren().get(1);
+        assertSame(array.getPointer(), scalar.getPointer().getParent());
+        assertEquals("$.d[1]", scalar.getPointerAsJsonPath());
+        // the properties of a reparsed item share the rebased pointer of that item
+        AstNode object = array.getChildren().get(2);
+        AstNode value = object.getChildren().getFirst().getChildren().getFirst();
+        assertSame(object.getPointer(), value.getPointer().getParent());
+        assertEquals("$.d[2].e", value.getPointerAsJsonPath());
+    }
+
+    @Test
+    public void editsThatNeedAFullParseAreRejected() throws Exception {
+        // breaks the structure of the container
+        assertRejected(JSON, JSON.indexOf("123"), 0, "{");
+        // touches the brackets of the outermost container
+        assertRejected(JSON, 0, 1, "[");
+        // turns the container into something else
+        assertRejected(JSON, JSON.indexOf("\"b\""), 0, "} , {");
+
+        // too large to parse on the EDT
+        String large = "{\"a\": [" + "1, ".repeat(IncrementalJsonParser.MAX_REPARSE_LENGTH / 3) + "1]}";
+        assertRejected(large, large.indexOf('[') + 1, 0, "2, ");
+    }
+
+    private static void assertReparsed(String json, int offset, int removedLength, String inserted)
+        throws Exception {
+        String edited = json.substring(0, offset) + inserted + json.substring(offset + removedLength);
+        AstNode tree = new JsonParserAdapter(true).parse(json);
+
+        assertTrue(new IncrementalJsonParser().reparse(tree, edited, offset, removedLength, inserted.length()));
+        assertSameTree(new JsonParserAdapter(true).parse(edited), tree);
+    }
+
+    private static void assertRejected(String json, int offset, int removedLength, String inserted)
+        throws Exception {
+        String edited = json.substring(0, offset) + inserted + json.substring(offset + removedLength);
+        AstNode tree = new JsonParserAdapter(true).parse(json);
+
+        assertFalse(new IncrementalJsonParser().reparse(tree, edited, offset, removedLength, inserted.length()));
+    }
+
+    private static void assertSameTree(AstNode expected, AstNode actual) {
+        String path = expected.getPointerAsJsonPath();
+
+        assertEquals(expected.getType(), actual.getType(), path);
+        assertEquals(expected.getKey(), actual.getKey(), path);
+        assertEquals(expected.getValue(), actual.getValue(), path);
+        assertEquals(expected.getValueType(), actual.getValueType(), path);
+        assertEquals(expected.getArrayIndex(), actual.getArrayIndex(), path);
+        assertEquals(expected.getArraySize(), actual.getArraySize(), path);
+        assertEquals(expected.getPointerAsJsonPath(), actual.getPointerAsJsonPath(), path);
+
+        assertEquals(expected.startOffset, actual.startOffset, path + " start offset");
+        assertEquals(expected.startLine, actual.startLine, path + " start line");
+        assertEquals(expected.startColumn, actual.startColumn, path + " start column");
+        assertEquals(expected.endOffset, actual.endOffset, path + " end offset");
+        assertEquals(expected.endLine, actual.endLine, path + " end line");
+        assertEquals(expected.endColumn, actual.endColumn, path + " end column");
+
+        assertEquals(expected.getChildren().size(), actual.getChildren().size(), path + " children");
+        for (int i = 0; i < expected.getChildren().size(); i++) {
+            assertSameTree(expected.getChildren().get(i), actual.getChildren().get(i));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import nl.pallett.jsoneditor.ast.AstIndex;
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.KeyTable;
+import nl.pallett.jsoneditor.ast.LineIndex;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonLinesParserTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    private JsonLinesParser sequentialParser() {
+        return new JsonLinesParser(true, new KeyTable(), pool, Integer.MAX_VALUE, 1);
+    }
+
+    /**
+     * Parser that puts every line in its own chunk
+     */
+    private JsonLinesParser parallelParser() {
+        return new JsonLinesParser(true, new KeyTable(), pool, 0, 1);
+    }
+
+    @Test
+    public void recordsAreChildrenOfTheRootWithTheirPositionInTheDocument() {
+        String text = "{\"id\": 1, \"name\": \"a\"}\n\n  [true, null]\r\n{\"id\": 2}";
+
+        JsonLinesParser.Result result = sequentialParser().parseLines(text);
+        assertNull(result.exception());
+
+        List<AstNode> records = result.root().getChildren();
+        assertEquals(3, records.size());
+
+        AstNode array = records.get(1);
+        assertEquals(AstNode.Type.ARRAY, array.getType());
+        assertEquals(1, array.getArrayIndex());
+        assertEquals("$[1]", array.getPointerAsJsonPath());
+        assertEquals(3, array.startLine);
+        assertEquals(3, array.startColumn);
+        assertEquals("[true, null]", text.substring(array.startOffset, array.endOffset));
+
+        AstNode name = records.getFirst().getChildren().get(1).getChildren().getFirst();
+        assertEquals("$[0].name", name.getPointerAsJsonPath());
+        assertEquals("a", name.getValue());
+
+        assertEquals(4, records.get(2).startLine);
+        assertEquals("$[2].id", records.get(2).getChildren().getFirst().getChildren().getFirst().getPointerAsJsonPath());
+    }
+
+    @Test
+    public void invalidLinesAreReportedAndLeftOut() {
+        String text = "{\"id\": 1}\n{\"id\": \n{\"id\": 3}\n{} {}\n";
+
+        JsonLinesParser.Result result = sequentialParser().parseLines(text);
+
+        JsonLinesException exception = result.exception();
+        assertNotNull(exception);
+        assertEquals(2, exception.getErrors().size());
+        assertEquals(2, exception.getFirstError().line());
+        assertEquals(4, exception.getErrors().get(1).line());
+        assertEquals(4, exception.getErrors().get(1).column());
+
+        List<AstNode> records = result.root().getChildren();
+        assertEquals(2, records.size());
+        assertEquals(0, records.get(0).getArrayIndex());
+        assertEquals(2, records.get(1).getArrayIndex());
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4})
+    public void generatedDocumentIsParsedIdenticalInParallel(long seed) {
+        String text = generate(new Random(seed), 200, seed % 2 == 0 ? "\n" : "\r\n");
+        assertTrue(parallelParser().splitIntoChunks(text).size() > 1);
+
+        JsonLinesParser.Result expected = sequentialParser().parseLines(text);
+        JsonLinesParser.Result actual = parallelParser().parseLines(text);
+
+        assertEquals(expected.exception() == null, actual.exception() == null);
+        assertSameTree(expected.root(), actual.root());
+    }
+
+    @Test
+    public void editedLinesAreReparsedIdenticalToFullParse() {
+        Random random = new Random(5);
+        String text = generate(random, 50, "\n");
+        AstNode tree = sequentialParser().parseLines(text).root();
+        List<JsonLinesException.LineError> errors = new ArrayList<>();
+        LineIndex lineIndex = new LineIndex(text);
+
+        int invalid = 0;
+        for (int i = 0; i < 400; i++) {
+            // edits at line starts keep the document valid more often
+            int offset = random.nextInt(text.length());
+            if (random.nextBoolean()) {
+                offset = text.lastIndexOf('\n', offset) + 1;
+            }
+            int removed = random.nextInt(3) == 0 ? Math.min(text.length() - offset, random.nextInt(80)) : 0;
+            String inserted = switch (random.nextInt(4)) {
+                case 0 -> "{\"added\": " + i + "}\n";
+                case 1 -> "\n";
+                case 2 -> "7";
+                default -> "";
+            };
+            String edited = text.substring(0, offset) + inserted + text.substring(offset + removed);
+            lineIndex.update(edited, offset, removed, inserted.length());
+
+            // invalid lines don't stop the reparse, their errors are patched like the records
+            assertTrue(new IncrementalJsonLinesParser()
+                .reparse(tree, errors, lineIndex, text, edited, offset, removed, inserted.length()));
+            text = edited;
+
+            JsonLinesParser.Result expected = sequentialParser().parseLines(text);
+            assertEquals(expected.exception() != null ? expected.exception().getErrors() : List.of(), errors);
+            assertSameTree(expected.root(), tree);
+            if (!errors.isEmpty()) {
+                invalid++;
+            }
+        }
+        assertTrue(invalid > 50);
+    }
+
+    @Test
+    public void indexOfTheValidLinesIsBuiltWhileParsing() {
+        String text = generate(new Random(11), 200, "\n") + "{\"broken\": \n[1, 2]\n";
+
+        AstIndex.Builder indexBuilder = new AstIndex.Builder();
+        JsonLinesParser.Result result = parallelParser().parseLines(text, indexBuilder);
+        assertNotNull(result.exception());
+        assertSameIndex(result.root(), indexBuilder.build(), text.length());
+    }
+
+    private static void assertSameIndex(AstNode tree, AstIndex actual, int length) {
+        AstIndex expected = new AstIndex(tree);
+        assertEquals(expected.size(), actual.size());
+        for (int offset = 0; offset <= length; offset++) {
+            assertSame(expected.findNode(offset), actual.findNode(offset), "offset " + offset);
+        }
+    }
+
+    private static void assertSameTree(AstNode expected, AstNode actual) {
+        String path = expected.getPointerAsJsonPath();
+
+        assertEquals(expected.getType(), actual.getType(), path);
+        assertEquals(expected.getKey(), actual.getKey(), path);
+        assertEquals(expected.getValue(), actual.getValue(), path);
+        assertEquals(expected.getValueType(), actual.getValueType(), path);
+        assertEquals(expected.getArrayIndex(), actual.getArrayIndex(), path);
+        assertEquals(expected.getArraySize(), actual.getArraySize(), path);
+        assertEquals(path, actual.getPointerAsJsonPath());
+
+        assertEquals(expected.startOffset, actual.startOffset, path + " start offset");
+        assertEquals(expected.startLine, actual.startLine, path + " start line");
+        assertEquals(expected.startColumn, actual.startColumn, path + " start column");
+        assertEquals(expected.endOffset, actual.endOffset, path + " end offset");
+        assertEquals(expected.endLine, actual.endLine, path + " end line");
+        assertEquals(expected.endColumn, actual.endColumn, path + " end column");
+
+        assertEquals(expected.getChildren().size(), actual.getChildren().size(), path + " children");
+        for (int i = 0; i < expected.getChildren().size(); i++) {
+            assertSameTree(expected.getChildren().get(i), actual.getChildren().get(i));
+        }
+    }
+
+    private static String generate(Random random, int records, String newline) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < records; i++) {
+            sb.append("{\"id\": ").append(i)
+                .append(", \"name\": \"user \\\"").append(i).append("\\\" 😀\"")
+                .append(", \"score\": ").append(random.nextDouble())
+                .append(", \"tags\": [\"a\", {\"nested\": ").append(random.nextBoolean()).append("}]}")
+                .append(newline);
+            if (random.nextInt(10) == 0) {
+                sb.append(newline);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonParserAdapterTest {
+
+    private static final String JSON = """
+        {
+          "strings": ["plain", "a\\"b\\\\c\\/d", "\\n\\t", "\\u00e9\\u20AC", "\\ud83d\\ude00", ""],
+          "numbers": [0, -12, 3.50, 1e3, -1.5E-7, 12345678901234567890, 1e400],
+          "literals": [true, false, null]
+        }
+        """;
+
+    @Test
+    public void lazyValuesMatchTheValuesReadByTheParser() throws Exception {
+        List<AstNode> expected = values(new JsonParserAdapter(false).parse(JSON));
+        List<AstNode> lazy = values(new JsonParserAdapter(true).parse(JSON));
+
+        assertEquals(expected.size(), lazy.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getValueType(), lazy.get(i).getValueType(), "value " + i);
+            assertEquals(expected.get(i).getValue(), lazy.get(i).getValue(), "value " + i);
+        }
+    }
+
+    @Test
+    public void lazyValuesKeepTheirText() throws Exception {
+        List<String> values = new ArrayList<>();
+        for (AstNode value : values(new JsonParserAdapter(true).parse(JSON))) {
+            values.add(value.getValue());
+        }
+
+        assertEquals(List.of(
+            "plain", "a\"b\\c/d", "\n\t", "é€", "😀", "",
+            "0", "-12", "3.50", "1e3", "-1.5E-7", "12345678901234567890", "1e400",
+            "true", "false"), values.subList(0, 15));
+        assertNull(values.get(15));
+    }
+
+    @Test
+    public void lazyValuesAreDecodedFromTheTextAfterAnIncrementalReparse() throws Exception {
+        AstNode tree = new JsonParserAdapter(true).parse(JSON);
+        // decode half of the values before the edit, the others after it
+        List<AstNode> values = values(tree);
+        for (int i = 0; i < values.size(); i += 2) {
+            values.get(i).getValue();
+        }
+
+        int offset = JSON.indexOf("\"plain\"");
+        String inserted = "\"\\u00fc\\u00e9 new\", ";
+        String edited = JSON.substring(0, offset) + inserted + JSON.substring(offset);
+        assertTrue(new IncrementalJsonParser().reparse(tree, edited, offset, 0, inserted.length()));
+
+        List<AstNode> expected = values(new JsonParserAdapter(false).parse(edited));
+        List<AstNode> actual = values(tree);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue(), "value " + i);
+            assertEquals(expected.get(i).startOffset, actual.get(i).startOffset, "value " + i);
+        }
+        assertEquals("üé new", actual.getFirst().getValue());
+    }
+
+    private static List<AstNode> values(AstNode node) {
+        List<AstNode> values = new ArrayList<>();
+        collectValues(node, values);
+        return values;
+    }
+
+    private static void collectValues(AstNode node, List<AstNode> values) {
+        if (node.getType() == AstNode.Type.VALUE) {
+            values.add(node);
+        }
+        node.getChildren().forEach(child -> collectValues(child, values));
+    }
+}
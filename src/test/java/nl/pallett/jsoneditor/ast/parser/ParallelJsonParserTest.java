@@ -0,0 +1,241 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import nl.pallett.jsoneditor.ast.ArrayIndexPointer;
+import nl.pallett.jsoneditor.ast.AstIndex;
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.KeyTable;
+import nl.pallett.jsoneditor.ast.NodePointer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ParallelJsonParserTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    /**
+     * Parser that splits even tiny documents into several chunks
+     */
+    private ParallelJsonParser parallelParser(boolean lazyValues) {
+        return new ParallelJsonParser(lazyValues, new KeyTable(), pool, 0, 64);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5, 6, 7, 8})
+    public void generatedArrayIsParsedIdenticalToSequentialParser(long seed) throws Exception {
+        String json = generateArray(new Random(seed), 200, seed % 2 == 0 ? "\n" : "\r\n");
+        assertNotNull(parallelParser(false).scanTopLevelArray(json));
+
+        assertSameTree(new JsonParserAdapter().parse(json), parallelParser(false).parse(json));
+    }
+
+    @Test
+    public void lazyValuesAreDecodedFromTheWholeDocument() throws Exception {
+        String json = generateArray(new Random(42), 100, "\n");
+
+        assertSameTree(new JsonParserAdapter().parse(json), parallelParser(true).parse(json));
+    }
+
+    @Test
+    public void arrayOnASingleLineIsParsedIdenticalToSequentialParser() throws Exception {
+        String json = "  " + generateArray(new Random(9), 100, "").replace("\n", " ").replace("\r", " ");
+
+        assertSameTree(new JsonParserAdapter().parse(json), parallelParser(false).parse(json));
+    }
+
+    @Test
+    public void nonArrayDocumentIsParsedSequentially() throws Exception {
+        String json = "{\"items\": " + generateArray(new Random(10), 50, "\n") + "}";
+        assertNull(parallelParser(false).scanTopLevelArray(json));
+
+        assertSameTree(new JsonParserAdapter().parse(json), parallelParser(false).parse(json));
+    }
+
+    @Test
+    public void trailingContentIsParsedSequentially() throws Exception {
+        String json = generateArray(new Random(11), 50, "\n") + " [1]";
+        assertNull(parallelParser(false).scanTopLevelArray(json));
+
+        assertSameTree(new JsonParserAdapter().parse(json), parallelParser(false).parse(json));
+    }
+
+    @Test
+    public void syntaxErrorIsReportedLikeSequentialParser() {
+        String json = generateArray(new Random(12), 50, "\n");
+        String invalid = json.substring(0, json.length() / 2) + ",," + json.substring(json.length() / 2);
+
+        Exception expected = assertThrows(Exception.class, () -> new JsonParserAdapter().parse(invalid));
+        Exception actual = assertThrows(Exception.class, () -> parallelParser(false).parse(invalid));
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    @Test
+    public void chunksStopWhenTheirParseIsCancelled() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        JsonParserAdapter adapter = new JsonParserAdapter(false, new KeyTable(), cancelled::get);
+        assertNotNull(assertDoesNotThrow(() -> adapter.parse("[1, 2]")));
+
+        cancelled.set(true);
+        assertThrows(CancellationException.class, () -> adapter.parse("[1, 2]"));
+    }
+
+    @Test
+    public void interruptedParseIsCancelled() {
+        String json = generateArray(new Random(12), 500, "\n");
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> parallelParser(false).parse(json));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void pointersOfChunksLinkToTheirParentNodes() throws Exception {
+        String json = generateArray(new Random(12), 100, "\n");
+
+        AstNode array = parallelParser(false).parse(json).getChildren().getFirst();
+
+        assertEquals("$[99]", array.getChildren().getLast().getPointerAsJsonPath());
+        assertSharedPointers(array, array.getPointer());
+    }
+
+    @Test
+    public void indexIsBuiltWhileParsing() throws Exception {
+        String json = generateArray(new Random(11), 100, "\n");
+
+        AstIndex.Builder indexBuilder = new AstIndex.Builder();
+        AstNode tree = parallelParser(true).parse(json, indexBuilder);
+        assertSameIndex(tree, indexBuilder.build(), json.length());
+    }
+
+    private static void assertSameIndex(AstNode tree, AstIndex actual, int length) {
+        AstIndex expected = new AstIndex(tree);
+        assertEquals(expected.size(), actual.size());
+        for (int offset = 0; offset <= length; offset++) {
+            assertSame(expected.findNode(offset), actual.findNode(offset), "offset " + offset);
+        }
+    }
+
+    private static void assertSameTree(AstNode expected, AstNode actual) {
+        String path = expected.getPointerAsJsonPath();
+
+        assertEquals(expected.getType(), actual.getType(), path);
+        assertEquals(expected.getKey(), actual.getKey(), path);
+        assertEquals(expected.getValue(), actual.getValue(), path);
+        assertEquals(expected.getValueType(), actual.getValueType(), path);
+        assertEquals(expected.getArrayIndex(), actual.getArrayIndex(), path);
+        assertEquals(expected.getArraySize(), actual.getArraySize(), path);
+        assertEquals(expected.getPointerAsJsonPath(), actual.getPointerAsJsonPath(), path);
+
+        assertEquals(expected.startOffset, actual.startOffset, path + " start offset");
+        assertEquals(expected.startLine, actual.startLine, path + " start line");
+        assertEquals(expected.startColumn, actual.startColumn, path + " start column");
+        assertEquals(expected.endOffset, actual.endOffset, path + " end offset");
+        assertEquals(expected.endLine, actual.endLine, path + " end line");
+        assertEquals(expected.endColumn, actual.endColumn, path + " end column");
+
+        assertEquals(expected.getChildren().size(), actual.getChildren().size(), path + " children");
+        for (int i = 0; i < expected.getChildren().size(); i++) {
+            assertSameTree(expected.getChildren().get(i), actual.getChildren().get(i));
+        }
+    }
+
+    /**
+     * Every pointer links to the pointer instance of the nearest node above it that has one, an object or array
+     * item adds its index segment in between
+     */
+    private static void assertSharedPointers(AstNode node, NodePointer parentPointer) {
+        NodePointer pointer = parentPointer;
+        if (node.hasPointer() && node.getPointer() != parentPointer) {
+            pointer = node.getPointer();
+            NodePointer parent = pointer.getParent();
+            if (parent != parentPointer && parent != null) {
+                assertInstanceOf(ArrayIndexPointer.class, parent.getSegment(), pointer.toJsonPath());
+                parent = parent.getParent();
+            }
+            assertSame(parentPointer, parent, pointer.toJsonPath());
+        }
+        for (AstNode child : node.getChildren()) {
+            assertSharedPointers(child, pointer);
+        }
+    }
+
+    private static String generateArray(Random random, int items, String newline) {
+        StringBuilder sb = new StringBuilder("[").append(newline);
+        for (int i = 0; i < items; i++) {
+            sb.append("  ");
+            appendValue(sb, random, 0, newline);
+            if (i < items - 1) sb.append(',');
+            sb.append(random.nextInt(4) == 0 ? " " : newline);
+        }
+        return sb.append("]").append(newline).toString();
+    }
+
+    private static void appendValue(StringBuilder sb, Random random, int depth, String newline) {
+        int kind = random.nextInt(depth < 3 ? 8 : 5);
+        switch (kind) {
+            case 0 -> sb.append(random.nextInt(100000) - 50000);
+            case 1 -> sb.append(random.nextDouble() * 1000);
+            case 2 -> sb.append(random.nextBoolean());
+            case 3 -> sb.append("null");
+            case 4 -> appendString(sb, random);
+            case 5 -> {
+                sb.append('[');
+                int size = random.nextInt(4);
+                for (int i = 0; i < size; i++) {
+                    if (i > 0) sb.append(", ");
+                    appendValue(sb, random, depth + 1, newline);
+                }
+                sb.append(']');
+            }
+            default -> {
+                sb.append('{').append(newline);
+                int size = random.nextInt(5);
+                for (int i = 0; i < size; i++) {
+                    if (i > 0) sb.append(',').append(newline);
+                    sb.append("    ".repeat(depth + 1));
+                    sb.append("\"key").append(random.nextInt(6)).append(i).append("\": ");
+                    appendValue(sb, random, depth + 1, newline);
+                }
+                sb.append(newline).append('}');
+            }
+        }
+    }
+
+    private static void appendString(StringBuilder sb, Random random) {
+        String[] parts = {"abc", "[", "]", "{", "}", ",", "\\\"", "\\\\", "\\n", "\\u00e9", "ü", " "};
+        sb.append('"');
+        int length = random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            sb.append(parts[random.nextInt(parts.length)]);
+        }
+        sb.append('"');
+    }
+}
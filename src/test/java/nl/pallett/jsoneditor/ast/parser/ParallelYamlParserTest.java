@@ -0,0 +1,209 @@
+package nl.pallett.jsoneditor.ast.parser;
+
+import nl.pallett.jsoneditor.ast.AstIndex;
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.KeyTable;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelYamlParserTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    /**
+     * Parser that puts every document in its own chunk
+     */
+    private ParallelYamlParser parallelParser() {
+        return new ParallelYamlParser(new KeyTable(), pool, 0, 1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5, 6})
+    public void generatedStreamIsParsedIdenticalToSequentialParser(long seed) {
+        String yaml = generateStream(new Random(seed), 30, seed % 2 == 0 ? "\n" : "\r\n");
+        assertTrue(parallelParser().findChunkStarts(yaml).size() > 1);
+
+        assertSameTree(new YamlParserAdapter().parse(yaml), parallelParser().parse(yaml));
+    }
+
+    @Test
+    public void streamWithDirectivesIsParsedSequentially() {
+        String yaml = "%YAML 1.2\n" + generateStream(new Random(7), 10, "\n");
+        assertNull(parallelParser().findChunkStarts(yaml));
+
+        assertSameTree(new YamlParserAdapter().parse(yaml), parallelParser().parse(yaml));
+    }
+
+    @Test
+    public void syntaxErrorIsReportedLikeSequentialParser() {
+        String yaml = generateStream(new Random(8), 10, "\n") + "---\nkey: [unclosed\n";
+
+        Exception expected = assertThrows(Exception.class, () -> new YamlParserAdapter().parse(yaml));
+        Exception actual = assertThrows(Exception.class, () -> parallelParser().parse(yaml));
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    @Test
+    public void editedDocumentIsReparsedIdenticalToFullParse() {
+        String yaml = generateStream(new Random(9), 10, "\n");
+        AstNode tree = new YamlParserAdapter().parse(yaml);
+
+        int offset = yaml.indexOf("name: app-4") + "name: app-4".length();
+        String edited = yaml.substring(0, offset) + "\n  extra: 😀 value" + yaml.substring(offset);
+
+        assertTrue(new IncrementalYamlParser().reparse(tree, yaml, edited, offset, 0, "\n  extra: 😀 value".length()));
+        assertSameTree(new YamlParserAdapter().parse(edited), tree);
+    }
+
+    @Test
+    public void successiveEditsAreReparsedIdenticalToFullParse() {
+        String yaml = generateStream(new Random(10), 10, "\r\n");
+        AstNode tree = new YamlParserAdapter().parse(yaml);
+        IncrementalYamlParser parser = new IncrementalYamlParser();
+
+        // later documents are measured from the documents of the previous edit, earlier ones from the start
+        for (int app : new int[] {3, 3, 7, 5, 1, 8}) {
+            int offset = yaml.indexOf("name: app-" + app) + "name: app-".length();
+            String edited = yaml.substring(0, offset) + "😀" + yaml.substring(offset);
+
+            assertTrue(parser.reparse(tree, yaml, edited, offset, 0, "😀".length()));
+            assertSameTree(new YamlParserAdapter().parse(edited), tree);
+            yaml = edited;
+        }
+    }
+
+    @Test
+    public void documentAfterADirectiveIsLeftToAFullParse() {
+        String yaml = "a: 1\n...\n%YAML 1.2\n# version\n---\nb: 2\n---\nc: 3\n";
+        AstNode tree = new YamlParserAdapter().parse(yaml);
+
+        int offset = yaml.indexOf("b: 2") + 1;
+        String edited = yaml.substring(0, offset) + "b" + yaml.substring(offset);
+        assertFalse(new IncrementalYamlParser().reparse(tree, yaml, edited, offset, 0, 1));
+
+        // the directive only belongs to the document right after it
+        offset = yaml.indexOf("c: 3") + 1;
+        edited = yaml.substring(0, offset) + "c" + yaml.substring(offset);
+        assertTrue(new IncrementalYamlParser().reparse(tree, yaml, edited, offset, 0, 1));
+        assertSameTree(new YamlParserAdapter().parse(edited), tree);
+    }
+
+    @Test
+    public void chunksStopWhenTheirParseIsCancelled() {
+        AtomicBoolean cancelled = new AtomicBoolean(true);
+
+        assertThrows(CancellationException.class,
+            () -> new YamlParserAdapter(new KeyTable(), cancelled::get).parse("a: 1\n"));
+    }
+
+    @Test
+    public void editOfALargeDocumentIsLeftToAFullParse() {
+        StringBuilder yaml = new StringBuilder("a: 1\n");
+        for (int i = 0; yaml.length() <= IncrementalJsonParser.MAX_REPARSE_LENGTH; i++) {
+            yaml.append("key").append(i).append(": value\n");
+        }
+        String edited = "a: 12\n" + yaml.substring("a: 1\n".length());
+        AstNode tree = new YamlParserAdapter().parse(yaml.toString());
+
+        assertFalse(new IncrementalYamlParser().reparse(tree, yaml.toString(), edited, 4, 0, 1));
+    }
+
+    @Test
+    public void indexIsBuiltWhileParsing() {
+        String yaml = generateStream(new Random(11), 50, "\n");
+
+        AstIndex.Builder indexBuilder = new AstIndex.Builder();
+        AstNode tree = parallelParser().parse(yaml, indexBuilder);
+        assertSameIndex(tree, indexBuilder.build(), yaml.length());
+    }
+
+    private static void assertSameIndex(AstNode tree, AstIndex actual, int length) {
+        AstIndex expected = new AstIndex(tree);
+        assertEquals(expected.size(), actual.size());
+        for (int offset = 0; offset <= length; offset++) {
+            assertSame(expected.findNode(offset), actual.findNode(offset), "offset " + offset);
+        }
+    }
+
+    private static void assertSameTree(AstNode expected, AstNode actual) {
+        String path = expected.getPointerAsJsonPath();
+
+        assertEquals(expected.getType(), actual.getType(), path);
+        assertEquals(expected.getKey(), actual.getKey(), path);
+        assertEquals(expected.getValue(), actual.getValue(), path);
+        assertEquals(expected.getValueType(), actual.getValueType(), path);
+        assertEquals(expected.getCommentType(), actual.getCommentType(), path);
+        assertEquals(expected.getArrayIndex(), actual.getArrayIndex(), path);
+        assertEquals(expected.getArraySize(), actual.getArraySize(), path);
+
+        assertEquals(expected.startOffset, actual.startOffset, path + " start offset");
+        assertEquals(expected.startLine, actual.startLine, path + " start line");
+        assertEquals(expected.startColumn, actual.startColumn, path + " start column");
+        assertEquals(expected.endOffset, actual.endOffset, path + " end offset");
+        assertEquals(expected.endLine, actual.endLine, path + " end line");
+        assertEquals(expected.endColumn, actual.endColumn, path + " end column");
+
+        assertEquals(expected.getChildren().size(), actual.getChildren().size(), path + " children");
+        for (int i = 0; i < expected.getChildren().size(); i++) {
+            assertSameTree(expected.getChildren().get(i), actual.getChildren().get(i));
+        }
+    }
+
+    private static String generateStream(Random random, int documents, String newline) {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextBoolean()) {
+            sb.append("# rendered manifests").append(newline);
+        }
+
+        for (int i = 0; i < documents; i++) {
+            if (i > 0 || random.nextBoolean()) {
+                sb.append(random.nextInt(4) == 0 ? "--- # document " + i : "---").append(newline);
+            }
+
+            sb.append("kind: Deployment").append(newline);
+            sb.append("metadata:").append(newline);
+            sb.append("  name: app-").append(i).append(newline);
+            sb.append("  labels: {tier: web, zones: [a, b]}").append(newline);
+            if (random.nextBoolean()) {
+                sb.append("  script: |").append(newline);
+                sb.append("    echo \"start ").append(i).append(" 😀\"").append(newline);
+                sb.append("    ---not-a-marker").append(newline);
+            }
+            sb.append("ports:").append(newline);
+            for (int port = 0; port < random.nextInt(4); port++) {
+                sb.append("  - ").append(8080 + port).append(" # port").append(newline);
+            }
+
+            if (random.nextInt(4) == 0) sb.append("# end of ").append(i).append(newline);
+            if (random.nextInt(5) == 0) sb.append("...").append(newline);
+            if (random.nextInt(4) == 0) sb.append(newline);
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package nl.pallett.jsoneditor.model;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AstParseSchedulerTest {
+
+    /**
+     * Array that takes long enough to parse for the schedules after it to arrive while it is running
+     */
+    private static final String LARGE_JSON = "[" + "{\"a\": [1, 2.5, \"three\"], \"b\": null}, ".repeat(100_000) + "0]";
+
+    @Test
+    public void burstOfSchedulesResultsInASingleParse() throws Exception {
+        AstParseScheduler scheduler = new AstParseScheduler();
+        List<Long> revisions = new CopyOnWriteArrayList<>();
+        CountDownLatch parsed = new CountDownLatch(1);
+        try {
+            for (long revision = 1; revision <= 5; revision++) {
+                String contents = (revision < 5) ? LARGE_JSON : "[5]";
+                scheduler.schedule(revision, DocumentType.JSON, contents, result -> {
+                    revisions.add(result.revision());
+                    parsed.countDown();
+                });
+            }
+
+            assertTrue(parsed.await(30, TimeUnit.SECONDS));
+            // results are handed back on the EDT, in the order they were finished
+            SwingUtilities.invokeAndWait(() -> { });
+            assertEquals(List.of(5L), revisions);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void runningParseIsCancelled() throws Exception {
+        AstParseScheduler scheduler = new AstParseScheduler();
+        List<Long> revisions = new CopyOnWriteArrayList<>();
+        CountDownLatch parsed = new CountDownLatch(1);
+        try {
+            scheduler.schedule(1, DocumentType.JSON, LARGE_JSON, result -> revisions.add(result.revision()));
+            // give the worker thread time to start on the large document
+            Thread.sleep(20);
+            scheduler.cancel();
+
+            // the worker thread handles one parse at a time, so this one only starts once the first has stopped
+            scheduler.schedule(2, DocumentType.JSON, "[2]", result -> {
+                revisions.add(result.revision());
+                parsed.countDown();
+            });
+
+            assertTrue(parsed.await(30, TimeUnit.SECONDS));
+            SwingUtilities.invokeAndWait(() -> { });
+            assertEquals(List.of(2L), revisions);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void onlyLargeJsonDocumentsUseACompactAst() {
+        int large = AstParseScheduler.COMPACT_AST_THRESHOLD;
+
+        assertTrue(AstParseScheduler.usesCompactAst(DocumentType.JSON, large));
+        assertFalse(AstParseScheduler.usesCompactAst(DocumentType.JSON, large - 1));
+        assertFalse(AstParseScheduler.usesCompactAst(DocumentType.JSON_LINES, large));
+        assertFalse(AstParseScheduler.usesCompactAst(DocumentType.YAML, large));
+    }
+}
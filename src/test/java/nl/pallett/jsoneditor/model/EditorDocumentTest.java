@@ -0,0 +1,237 @@
+package nl.pallett.jsoneditor.model;
+
+import nl.pallett.jsoneditor.ast.AstIndex;
+import nl.pallett.jsoneditor.ast.AstNode;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EditorDocumentTest {
+
+    @Test
+    public void resultOfOutdatedContentsIsDropped() throws Exception {
+        EditorDocument document = new EditorDocument("test", null);
+        List<AstNode> trees = new ArrayList<>();
+        CountDownLatch parsed = new CountDownLatch(1);
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                document.addPropertyChangeListener(event -> {
+                    if (event.getPropertyName().equals(EditorDocument.Property.AST_TREE.name())) {
+                        trees.add((AstNode) event.getNewValue());
+                        parsed.countDown();
+                    }
+                });
+                document.setContents("{\"a\": 1}", EditorDocument.ContentsSource.OTHER);
+
+                // hold the EDT until the result of the first contents is queued, then change the contents
+                EventQueue queue = Toolkit.getDefaultToolkit().getSystemEventQueue();
+                long deadline = System.currentTimeMillis() + 30_000;
+                while (queue.peekEvent() == null && System.currentTimeMillis() < deadline) {
+                    Thread.onSpinWait();
+                }
+                document.setContents("{\"b\": 2}", EditorDocument.ContentsSource.OTHER);
+            });
+
+            assertTrue(parsed.await(30, TimeUnit.SECONDS));
+            SwingUtilities.invokeAndWait(() -> { });
+            assertEquals(1, trees.size());
+            assertEquals("b", trees.getFirst().getChildren().getFirst().getChildren().getFirst().getKey());
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void editsBeforeTheParseFinishesAreConverted() throws Exception {
+        EditorDocument document = new EditorDocument("test", null);
+        try {
+            // parse results are applied on the EDT, so none arrives in between
+            SwingUtilities.invokeAndWait(() -> {
+                document.setContents("{\"a\": 1}", EditorDocument.ContentsSource.OTHER);
+                document.setContents("{\"a\": 1, \"b\": 2}", EditorDocument.ContentsSource.OTHER);
+                document.setDocumentType(DocumentType.YAML);
+            });
+
+            assertEquals("---\na: 1\nb: 2\n", document.getContents());
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void invalidContentsAreNotConverted() throws Exception {
+        EditorDocument document = new EditorDocument("test", null);
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                document.setContents("{\"a\": 1}", EditorDocument.ContentsSource.OTHER);
+                document.setContents("{\"a\": 1, \"b\"}", EditorDocument.ContentsSource.OTHER);
+
+                assertFalse(document.canBeConverted());
+                document.setDocumentType(DocumentType.YAML);
+            });
+
+            assertEquals(DocumentType.YAML, document.getDocumentType());
+            assertEquals("{\"a\": 1, \"b\"}", document.getContents());
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void invalidDocumentIsNotMinified() throws Exception {
+        EditorDocument document = new EditorDocument("test", null);
+        CountDownLatch parsed = new CountDownLatch(1);
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                document.addPropertyChangeListener(event -> {
+                    if (event.getPropertyName().equals(EditorDocument.Property.IS_VALID.name())) {
+                        parsed.countDown();
+                    }
+                });
+                document.setContents("{\"a\": [1, 2}", EditorDocument.ContentsSource.OTHER);
+            });
+
+            assertTrue(parsed.await(30, TimeUnit.SECONDS));
+            SwingUtilities.invokeAndWait(() -> {
+                assertFalse(document.canBeMinified());
+                document.minifyContents();
+            });
+            assertEquals("{\"a\": [1, 2}", document.getContents());
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void formattingARangeOnlyReplacesTheNodeAroundIt() throws Exception {
+        String json = "{\"a\": {\"b\": [1,2]}, \"c\": 3}";
+        EditorDocument document = parsedDocument(DocumentType.JSON, json);
+        try {
+            List<EditorDocument.ContentsChangedEvent> events = formatRange(document, json.indexOf('1'));
+
+            assertEquals("{\"a\": {\"b\": [\n  1,\n  2\n]}, \"c\": 3}", document.getContents());
+            assertEquals(new TextEdit(json.indexOf('['), 5, 12), events.getFirst().edit());
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void formattedRangeIsIndentedToItsDepth() throws Exception {
+        String json = "{\n    \"a\": {\"b\":   1}\n}";
+        EditorDocument document = parsedDocument(DocumentType.JSON, json);
+        try {
+            formatRange(document, json.indexOf("\"a\""));
+
+            assertEquals("{\n    \"a\": {\n      \"b\" : 1\n    }\n}", document.getContents());
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void yamlBlockIsFormattedAtItsColumn() throws Exception {
+        String yaml = "a:\n  b: {x: 1,   y: 2}\n  c:\n      - 1\n      -    2\nd: 3\n";
+        EditorDocument document = parsedDocument(DocumentType.YAML, yaml);
+        try {
+            formatRange(document, yaml.indexOf("- 1"));
+
+            assertEquals("a:\n  b: {x: 1,   y: 2}\n  c:\n      - 1\n      - 2\nd: 3\n", document.getContents());
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void indexIsRebuiltOffTheEdtAfterAnEdit() throws Exception {
+        String json = "{\"a\": [1, 2], \"b\": 3}";
+        EditorDocument document = parsedDocument(DocumentType.JSON, json);
+        List<AstIndex> indexes = new ArrayList<>();
+        CountDownLatch indexed = new CountDownLatch(1);
+        try {
+            String edited = json.replace("[1, 2]", "[1, 22]");
+            SwingUtilities.invokeAndWait(() -> {
+                document.addPropertyChangeListener(event -> {
+                    if (event.getPropertyName().equals(EditorDocument.Property.AST_INDEX.name())) {
+                        indexes.add((AstIndex) event.getNewValue());
+                        indexed.countDown();
+                    }
+                });
+                document.setContents(edited, EditorDocument.ContentsSource.OTHER,
+                    new TextEdit(json.indexOf('2'), 1, 2));
+
+                // the tree is patched in place and its index follows from the parser thread
+                assertNull(document.getAstIndex());
+            });
+
+            assertTrue(indexed.await(30, TimeUnit.SECONDS));
+            SwingUtilities.invokeAndWait(() -> { });
+            assertEquals(1, indexes.size());
+            assertSame(indexes.getFirst(), document.getAstIndex());
+            AstNode node = document.getAstIndex().findNode(edited.indexOf("22") + 1);
+            assertNotNull(node);
+            assertEquals(edited.indexOf("22"), node.startOffset);
+            assertEquals(edited.indexOf("22") + 2, node.endOffset);
+        } finally {
+            document.close();
+        }
+    }
+
+    /**
+     * Formats the range on the EDT, where parse results are applied, and checks the AST was updated in place
+     *
+     * @return the contents changes of the formatting
+     */
+    private List<EditorDocument.ContentsChangedEvent> formatRange(EditorDocument document, int offset)
+        throws Exception {
+
+        List<EditorDocument.ContentsChangedEvent> events = new ArrayList<>();
+        List<Object> oldTrees = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> {
+            document.addPropertyChangeListener(event -> {
+                if (event.getPropertyName().equals(EditorDocument.Property.CONTENTS.name())) {
+                    events.add((EditorDocument.ContentsChangedEvent) event.getNewValue());
+                } else if (event.getPropertyName().equals(EditorDocument.Property.AST_TREE.name())) {
+                    oldTrees.add(event.getOldValue() != null ? event.getOldValue() : "in place");
+                }
+            });
+            document.formatRange(offset, offset);
+        });
+
+        assertEquals(1, events.size());
+        assertNotNull(events.getFirst().edit());
+        assertEquals(List.of("in place"), oldTrees);
+        return events;
+    }
+
+    private EditorDocument parsedDocument(DocumentType documentType, String contents) throws Exception {
+        EditorDocument document = new EditorDocument("test", null);
+        CountDownLatch parsed = new CountDownLatch(1);
+        SwingUtilities.invokeAndWait(() -> {
+            document.addPropertyChangeListener(event -> {
+                if (event.getPropertyName().equals(EditorDocument.Property.IS_VALID.name()) && document.isValid()) {
+                    parsed.countDown();
+                }
+            });
+            // the type of a new document is detected from its contents
+            document.setContents(contents, EditorDocument.ContentsSource.OTHER);
+        });
+
+        assertTrue(parsed.await(30, TimeUnit.SECONDS));
+        assertEquals(documentType, document.getDocumentType());
+        return document;
+    }
+}
@@ -0,0 +1,522 @@
+package nl.pallett.jsoneditor.testdata;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic JSON and YAML documents for benchmarks and stress tests. The same settings and seed
+ * always result in the same document. Documents are generated one top-level record at a time, so they can be
+ * streamed to a file or {@link Reader} of any size without holding them in memory.
+ * <p>
+ * JSON documents are an array of records, YAML documents a sequence of records and YAML streams hold one
+ * record per document. Comments, anchors and aliases are only written to YAML.
+ */
+public class DocumentGenerator {
+
+    public enum Format {
+        JSON,
+        YAML,
+        YAML_STREAM
+    }
+
+    private static final Set<String> RESERVED_WORDS = Set.of("true", "false", "null", "yes", "no", "on", "off", "y", "n");
+
+    /**
+     * Only the most recent anchors are used for aliases
+     */
+    private static final int MAX_ANCHORS = 128;
+
+    private long seed = 42;
+
+    private long size = 1024 * 1024;
+
+    private int maxDepth = 4;
+
+    private int maxObjectWidth = 8;
+
+    private int maxArrayWidth = 8;
+
+    private int keyCardinality = 64;
+
+    private int maxStringLength = 32;
+
+    private boolean comments = false;
+
+    private boolean anchors = false;
+
+    public DocumentGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Minimal size of the document in chars, generation stops after the record that reaches it
+     */
+    public DocumentGenerator size(long size) {
+        this.size = size;
+        return this;
+    }
+
+    /**
+     * Nesting depth of objects and arrays within a record, a record itself is at depth 1
+     */
+    public DocumentGenerator maxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    public DocumentGenerator maxObjectWidth(int maxObjectWidth) {
+        this.maxObjectWidth = maxObjectWidth;
+        return this;
+    }
+
+    public DocumentGenerator maxArrayWidth(int maxArrayWidth) {
+        this.maxArrayWidth = maxArrayWidth;
+        return this;
+    }
+
+    /**
+     * Number of distinct property keys in the whole document
+     */
+    public DocumentGenerator keyCardinality(int keyCardinality) {
+        this.keyCardinality = keyCardinality;
+        return this;
+    }
+
+    public DocumentGenerator maxStringLength(int maxStringLength) {
+        this.maxStringLength = maxStringLength;
+        return this;
+    }
+
+    public DocumentGenerator comments(boolean comments) {
+        this.comments = comments;
+        return this;
+    }
+
+    public DocumentGenerator anchors(boolean anchors) {
+        this.anchors = anchors;
+        return this;
+    }
+
+    public String generate(Format format) {
+        StringWriter writer = new StringWriter((int) Math.min(size + 4096, Integer.MAX_VALUE - 8));
+        try {
+            writeTo(format, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    public void writeTo(Format format, Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writeTo(format, writer);
+        }
+    }
+
+    public void writeTo(Format format, Writer writer) throws IOException {
+        try (Reader reader = reader(format)) {
+            reader.transferTo(writer);
+        }
+    }
+
+    /**
+     * @return reader which generates the document while it is read
+     */
+    public Reader reader(Format format) {
+        return new GeneratingReader(new Emitter(format));
+    }
+
+    private static class GeneratingReader extends Reader {
+        private final Emitter emitter;
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        private int position = 0;
+
+        private GeneratingReader(Emitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+
+            while (position == buffer.length()) {
+                buffer.setLength(0);
+                position = 0;
+                if (!emitter.emitNext(buffer)) {
+                    return -1;
+                }
+            }
+
+            int read = Math.min(length, buffer.length() - position);
+            buffer.getChars(position, position + read, chars, offset);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public void close() {
+            buffer.setLength(0);
+            buffer.trimToSize();
+        }
+    }
+
+    /**
+     * Writes the document in pieces: the start, one record per call and the end
+     */
+    private class Emitter {
+        private enum State { START, RECORDS, END, DONE }
+
+        private final Format format;
+
+        private final Random random = new Random(seed);
+
+        private final String[] keys;
+
+        private final List<String> anchorNames = new ArrayList<>();
+
+        private State state = State.START;
+
+        private long written = 0;
+
+        private int records = 0;
+
+        private int anchorCount = 0;
+
+        private Emitter(Format format) {
+            this.format = format;
+            this.keys = generateKeys();
+        }
+
+        boolean emitNext(StringBuilder sb) {
+            switch (state) {
+                case START -> {
+                    writeStart(sb);
+                    state = State.RECORDS;
+                }
+                case RECORDS -> {
+                    writeRecord(sb);
+                    records++;
+                    if (written + sb.length() >= size) {
+                        state = State.END;
+                    }
+                }
+                case END -> {
+                    writeEnd(sb);
+                    state = State.DONE;
+                }
+                case DONE -> {
+                    return false;
+                }
+            }
+
+            written += sb.length();
+            return true;
+        }
+
+        private String[] generateKeys() {
+            Set<String> unique = new HashSet<>();
+            String[] result = new String[keyCardinality];
+            for (int i = 0; i < keyCardinality; i++) {
+                String key;
+                do {
+                    key = word(2 + random.nextInt(9));
+                } while (RESERVED_WORDS.contains(key) || !unique.add(key));
+                result[i] = key;
+            }
+            return result;
+        }
+
+        private void writeStart(StringBuilder sb) {
+            switch (format) {
+                case JSON -> sb.append("[\n");
+                case YAML, YAML_STREAM -> {
+                    if (comments) {
+                        sb.append("# generated with seed ").append(seed).append('\n');
+                    }
+                }
+            }
+        }
+
+        private void writeEnd(StringBuilder sb) {
+            if (format == Format.JSON) {
+                sb.append("\n]\n");
+            }
+        }
+
+        private void writeRecord(StringBuilder sb) {
+            switch (format) {
+                case JSON -> {
+                    if (records > 0) {
+                        sb.append(",\n");
+                    }
+                    indent(sb, 2);
+                    writeJsonObject(sb, 1, 2);
+                }
+                case YAML -> {
+                    writeYamlComment(sb, 0);
+                    sb.append('-');
+                    writeYamlCollection(sb, true, 1, 2);
+                }
+                case YAML_STREAM -> {
+                    // anchors are scoped to their document
+                    anchorNames.clear();
+
+                    sb.append("---");
+                    if (comments && random.nextInt(4) == 0) {
+                        sb.append(" # document ").append(records);
+                    }
+                    sb.append('\n');
+                    writeYamlEntries(sb, true, 1, 0);
+                }
+            }
+        }
+
+        private void writeJsonValue(StringBuilder sb, int depth, int indent) {
+            switch (nextKind(depth)) {
+                case 0 -> writeJsonObject(sb, depth, indent);
+                case 1 -> writeJsonArray(sb, depth, indent);
+                default -> writeJsonScalar(sb);
+            }
+        }
+
+        private void writeJsonObject(StringBuilder sb, int depth, int indent) {
+            int entries = (depth == 1) ? 1 + random.nextInt(maxObjectWidth) : random.nextInt(maxObjectWidth + 1);
+            if (entries == 0) {
+                sb.append("{}");
+                return;
+            }
+
+            sb.append("{\n");
+            int firstKey = random.nextInt(keys.length);
+            for (int i = 0; i < entries && i < keys.length; i++) {
+                if (i > 0) {
+                    sb.append(",\n");
+                }
+                indent(sb, indent + 2);
+                sb.append('"').append(keys[(firstKey + i) % keys.length]).append("\": ");
+                writeJsonValue(sb, depth + 1, indent + 2);
+            }
+            sb.append('\n');
+            indent(sb, indent);
+            sb.append('}');
+        }
+
+        private void writeJsonArray(StringBuilder sb, int depth, int indent) {
+            int items = random.nextInt(maxArrayWidth + 1);
+            if (items == 0) {
+                sb.append("[]");
+                return;
+            }
+
+            sb.append("[\n");
+            for (int i = 0; i < items; i++) {
+                if (i > 0) {
+                    sb.append(",\n");
+                }
+                indent(sb, indent + 2);
+                writeJsonValue(sb, depth + 1, indent + 2);
+            }
+            sb.append('\n');
+            indent(sb, indent);
+            sb.append(']');
+        }
+
+        private void writeJsonScalar(StringBuilder sb) {
+            switch (random.nextInt(6)) {
+                case 0, 1 -> writeQuoted(sb, string());
+                case 2 -> sb.append(random.nextInt(2_000_000) - 1_000_000);
+                case 3 -> sb.append(random.nextInt(1_000_000) / 100.0);
+                case 4 -> sb.append(random.nextBoolean());
+                default -> sb.append("null");
+            }
+        }
+
+        /**
+         * Writes everything after a "key:" or "-" indicator, up to and including the line break
+         */
+        private void writeYamlValue(StringBuilder sb, int depth, int indent) {
+            if (anchors && !anchorNames.isEmpty() && random.nextInt(20) == 0) {
+                sb.append(" *").append(anchorNames.get(random.nextInt(anchorNames.size()))).append('\n');
+                return;
+            }
+
+            switch (nextKind(depth)) {
+                case 0 -> writeYamlCollection(sb, true, depth, indent);
+                case 1 -> writeYamlCollection(sb, false, depth, indent);
+                default -> {
+                    sb.append(' ');
+                    writeYamlScalar(sb);
+                    if (comments && random.nextInt(10) == 0) {
+                        sb.append(" # ").append(word(4 + random.nextInt(8)));
+                    }
+                    sb.append('\n');
+                }
+            }
+        }
+
+        private void writeYamlCollection(StringBuilder sb, boolean mapping, int depth, int indent) {
+            String anchor = (anchors && random.nextInt(10) == 0) ? "a" + (anchorCount++) : null;
+
+            int start = sb.length();
+            if (anchor != null) {
+                sb.append(" &").append(anchor);
+            }
+            sb.append('\n');
+
+            boolean written = mapping ? writeYamlEntries(sb, depth == 1, depth, indent) : writeYamlItems(sb, depth, indent);
+            if (!written) {
+                sb.setLength(start);
+                sb.append(mapping ? " {}\n" : " []\n");
+                return;
+            }
+
+            // only usable once complete, aliases to an enclosing node would make the document recursive
+            if (anchor != null) {
+                anchorNames.add(anchor);
+                if (anchorNames.size() > MAX_ANCHORS) {
+                    anchorNames.removeFirst();
+                }
+            }
+        }
+
+        /**
+         * Comments are not written before the first entry, snakeyaml fails on a comment line right after an anchor
+         */
+        private boolean writeYamlEntries(StringBuilder sb, boolean nonEmpty, int depth, int indent) {
+            int entries = nonEmpty ? 1 + random.nextInt(maxObjectWidth) : random.nextInt(maxObjectWidth + 1);
+
+            int firstKey = random.nextInt(keys.length);
+            for (int i = 0; i < entries && i < keys.length; i++) {
+                if (i > 0) {
+                    writeYamlComment(sb, indent);
+                }
+                indent(sb, indent);
+                sb.append(keys[(firstKey + i) % keys.length]).append(':');
+                writeYamlValue(sb, depth + 1, indent + 2);
+            }
+            return entries > 0;
+        }
+
+        private boolean writeYamlItems(StringBuilder sb, int depth, int indent) {
+            int items = random.nextInt(maxArrayWidth + 1);
+            for (int i = 0; i < items; i++) {
+                if (i > 0) {
+                    writeYamlComment(sb, indent);
+                }
+                indent(sb, indent);
+                sb.append('-');
+                writeYamlValue(sb, depth + 1, indent + 2);
+            }
+            return items > 0;
+        }
+
+        private void writeYamlComment(StringBuilder sb, int indent) {
+            if (comments && random.nextInt(10) == 0) {
+                indent(sb, indent);
+                sb.append("# ").append(word(4 + random.nextInt(8))).append(' ').append(word(3 + random.nextInt(6))).append('\n');
+            }
+        }
+
+        private void writeYamlScalar(StringBuilder sb) {
+            switch (random.nextInt(6)) {
+                case 0 -> {
+                    String plain = word(3 + random.nextInt(Math.max(1, maxStringLength - 2)));
+                    if (RESERVED_WORDS.contains(plain)) {
+                        writeQuoted(sb, plain);
+                    } else {
+                        sb.append(plain);
+                    }
+                }
+                case 1 -> writeQuoted(sb, string());
+                case 2 -> sb.append(random.nextInt(2_000_000) - 1_000_000);
+                case 3 -> sb.append(random.nextInt(1_000_000) / 100.0);
+                case 4 -> sb.append(random.nextBoolean());
+                default -> sb.append("null");
+            }
+        }
+
+        /**
+         * @return 0 for an object, 1 for an array and 2 for a scalar
+         */
+        private int nextKind(int depth) {
+            if (depth >= maxDepth) {
+                return 2;
+            }
+
+            int r = random.nextInt(10);
+            return (r < 4) ? 0 : (r < 6) ? 1 : 2;
+        }
+
+        /**
+         * String with mostly letters, but also spaces, characters that have to be escaped and non-ASCII characters
+         */
+        private String string() {
+            int length = random.nextInt(maxStringLength + 1);
+            StringBuilder sb = new StringBuilder(length + 2);
+            while (sb.length() < length) {
+                int r = random.nextInt(100);
+                if (r < 80) {
+                    sb.append((char) ('a' + random.nextInt(26)));
+                } else if (r < 92) {
+                    sb.append(' ');
+                } else if (r < 94) {
+                    sb.append('"');
+                } else if (r < 95) {
+                    sb.append('\\');
+                } else if (r < 96) {
+                    sb.append('\n');
+                } else if (r < 98) {
+                    sb.append('é');
+                } else {
+                    sb.appendCodePoint(0x1F600);
+                }
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Double-quoted string, the escapes are the same for JSON and YAML
+         */
+        private void writeQuoted(StringBuilder sb, String value) {
+            sb.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    default -> sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+
+        private String word(int length) {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) ('a' + random.nextInt(26));
+            }
+            return new String(chars);
+        }
+
+        private void indent(StringBuilder sb, int indent) {
+            sb.repeat(' ', indent);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package nl.pallett.jsoneditor.testdata;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import nl.pallett.jsoneditor.ast.parser.YamlParserAdapter;
+import nl.pallett.jsoneditor.testdata.DocumentGenerator.Format;
+import nl.pallett.jsoneditor.util.ObjectMapperUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DocumentGeneratorTest {
+
+    private DocumentGenerator generator(long seed) {
+        return new DocumentGenerator()
+            .seed(seed)
+            .size(64 * 1024)
+            .comments(true)
+            .anchors(true);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    public void sameSeedGeneratesSameDocument(Format format) {
+        String document = generator(1).generate(format);
+
+        assertEquals(document, generator(1).generate(format));
+        assertNotEquals(document, generator(2).generate(format));
+        assertTrue(document.length() >= 64 * 1024);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    public void readerStreamsTheSameDocument(Format format) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[37];
+        try (Reader reader = generator(3).reader(format)) {
+            int read;
+            while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+                sb.append(buffer, 0, read);
+            }
+        }
+
+        assertEquals(generator(3).generate(format), sb.toString());
+    }
+
+    @Test
+    public void generatedJsonIsValid() throws IOException {
+        String json = generator(4).generate(Format.JSON);
+
+        AstNode root = new JsonParserAdapter().parse(json);
+        assertEquals(AstNode.Type.ARRAY, root.getChildren().getFirst().getType());
+
+        JsonNode tree = ObjectMapperUtil.getJsonInstance().readTree(json);
+        assertTrue(tree.isArray());
+        assertTrue(tree.size() > 10);
+    }
+
+    @Test
+    public void generatedYamlIsValid() throws IOException {
+        String yaml = generator(5).generate(Format.YAML);
+        assertTrue(yaml.contains(" &a"));
+        assertTrue(yaml.contains(" *a"));
+        assertTrue(yaml.contains("# "));
+
+        new YamlParserAdapter().parse(yaml);
+
+        JsonNode tree = ObjectMapperUtil.getYamlInstance().readTree(yaml);
+        assertTrue(tree.isArray());
+    }
+
+    @Test
+    public void yamlStreamHasOneDocumentPerRecord() {
+        String yaml = generator(6).generate(Format.YAML_STREAM);
+
+        long markers = yaml.lines().filter(line -> line.startsWith("---")).count();
+        long documents = new YamlParserAdapter().parse(yaml).getChildren().stream()
+            .filter(node -> node.getType() == AstNode.Type.DOCUMENT)
+            .count();
+
+        assertTrue(markers > 10);
+        assertEquals(markers, documents);
+    }
+
+    @Test
+    public void shapeFollowsTheSettings() throws IOException {
+        String json = new DocumentGenerator()
+            .seed(7)
+            .size(256 * 1024)
+            .maxDepth(3)
+            .maxArrayWidth(2)
+            .keyCardinality(5)
+            .maxStringLength(4)
+            .generate(Format.JSON);
+
+        Set<String> keys = new HashSet<>();
+        int depth = collect(ObjectMapperUtil.getJsonInstance().readTree(json), keys, 0);
+
+        assertEquals(5, keys.size());
+        // the records are in the top-level array
+        assertTrue(depth <= 3 + 1, "depth " + depth);
+    }
+
+    /**
+     * @return nesting depth of objects and arrays
+     */
+    private int collect(JsonNode node, Set<String> keys, int depth) {
+        if (node.isTextual()) {
+            assertTrue(node.asText().codePointCount(0, node.asText().length()) <= 4);
+        }
+        if (node.isArray()) {
+            assertTrue(depth == 0 || node.size() <= 2);
+        }
+
+        int deepest = depth;
+        if (node.isContainerNode()) {
+            deepest = depth + 1;
+            for (Iterator<String> names = node.fieldNames(); names.hasNext(); ) {
+                keys.add(names.next());
+            }
+            for (JsonNode child : node) {
+                deepest = Math.max(deepest, collect(child, keys, depth + 1));
+            }
+        }
+        return deepest;
+    }
+}
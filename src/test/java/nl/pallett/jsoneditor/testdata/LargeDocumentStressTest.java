@@ -0,0 +1,91 @@
+package nl.pallett.jsoneditor.testdata;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import nl.pallett.jsoneditor.ast.parser.YamlParserAdapter;
+import nl.pallett.jsoneditor.model.EditorDocument;
+import nl.pallett.jsoneditor.testdata.DocumentGenerator.Format;
+import nl.pallett.jsoneditor.ui.editor.tree.AstTreeModel;
+import nl.pallett.jsoneditor.ui.editor.tree.SortState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Opens generated documents of production size, only runs when the size is given, e.g.:
+ * {@code mvn test -Dtest=LargeDocumentStressTest -Dstress.size=1GB -DargLine=-Xmx32g}
+ */
+@EnabledIfSystemProperty(named = "stress.size", matches = "\\d+[KMG]B")
+public class LargeDocumentStressTest {
+
+    @TempDir
+    Path tempDir;
+
+    private long size() {
+        String size = System.getProperty("stress.size");
+        long amount = Long.parseLong(size.substring(0, size.length() - 2));
+        return switch (size.charAt(size.length() - 2)) {
+            case 'K' -> amount * 1024;
+            case 'M' -> amount * 1024 * 1024;
+            default -> amount * 1024 * 1024 * 1024;
+        };
+    }
+
+    private Path generate(Format format, String fileName) throws Exception {
+        Path path = tempDir.resolve(fileName);
+        new DocumentGenerator().seed(1).size(size()).comments(true).anchors(true).writeTo(format, path);
+        return path;
+    }
+
+    @Test
+    public void jsonIsParsedAndShownAsATree() throws Exception {
+        String json = Files.readString(generate(Format.JSON, "large.json"));
+
+        AstNode root = new JsonParserAdapter().parse(json);
+        AstTreeModel model = new AstTreeModel(root, SortState.NONE);
+        assertFalse(model.isLeaf(model.getRoot()));
+    }
+
+    @Test
+    public void yamlStreamIsParsedAndShownAsATree() throws Exception {
+        String yaml = Files.readString(generate(Format.YAML_STREAM, "large.yaml"));
+
+        AstNode root = new YamlParserAdapter().parse(yaml);
+        AstTreeModel model = new AstTreeModel(root, SortState.NONE);
+        assertFalse(model.isLeaf(model.getRoot()));
+    }
+
+    @Test
+    public void jsonDocumentIsOpened() throws Exception {
+        EditorDocument document = new EditorDocument("large.json", generate(Format.JSON, "large.json"));
+        try {
+            // the parse result is applied on the EDT
+            CountDownLatch parsed = new CountDownLatch(1);
+            SwingUtilities.invokeAndWait(() -> {
+                if (document.isValid()) {
+                    parsed.countDown();
+                } else {
+                    document.addPropertyChangeListener(event -> {
+                        if (event.getPropertyName().equals(EditorDocument.Property.IS_VALID.name())) {
+                            parsed.countDown();
+                        }
+                    });
+                }
+            });
+
+            assertTrue(parsed.await(30, TimeUnit.MINUTES));
+            assertTrue(document.isValid());
+        } finally {
+            document.close();
+        }
+    }
+}
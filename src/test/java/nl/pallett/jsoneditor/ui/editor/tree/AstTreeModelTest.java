@@ -0,0 +1,334 @@
+package nl.pallett.jsoneditor.ui.editor.tree;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.parser.IncrementalJsonParser;
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import nl.pallett.jsoneditor.ast.parser.YamlParserAdapter;
+import nl.pallett.jsoneditor.testdata.DocumentGenerator;
+import nl.pallett.jsoneditor.testdata.DocumentGenerator.Format;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreePath;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static nl.pallett.jsoneditor.ui.editor.tree.AstTreeModel.BUCKET_SIZE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AstTreeModelTest {
+
+    @Test
+    public void propertiesAreMergedWithTheirValue() throws Exception {
+        AstNode root = new JsonParserAdapter().parse("{\"a\": 1, \"b\": {\"c\": [true]}}");
+        AstTreeModel model = new AstTreeModel(root, SortState.NONE);
+
+        AstTreeNode object = model.getChild(model.getRoot(), 0);
+        assertEquals(2, model.getChildCount(object));
+
+        AstTreeNode a = model.getChild(object, 0);
+        assertEquals(AstNode.Type.PROPERTY, a.getNode().getType());
+        assertTrue(model.isLeaf(a));
+        assertEquals("1", AstTreeModel.valueNodeOf(a.getNode()).getValue());
+
+        AstTreeNode b = model.getChild(object, 1);
+        AstTreeNode c = model.getChild(b, 0);
+        assertEquals("c", c.getNode().getKey());
+        assertEquals(1, model.getChildCount(c));
+        assertEquals("true", model.getChild(c, 0).getNode().getValue());
+    }
+
+    @Test
+    public void astIsNotChangedByShowingIt() throws Exception {
+        AstNode root = new JsonParserAdapter().parse("{\"b\": {\"c\": 1}}");
+        AstNode property = root.getChildren().getFirst().getChildren().getFirst();
+        AstNode value = property.getChildren().getFirst();
+
+        AstTreeModel model = new AstTreeModel(root, SortState.NONE);
+        AstNode item = AstTreeModel.toItemNode(model.getChild(model.getChild(model.getRoot(), 0), 0).getNode());
+
+        assertNotSame(value, item);
+        assertSame(property, value.getParent());
+        assertSame(value, value.getChildren().getFirst().getParent());
+        assertTrue(item.getChildren().isEmpty());
+        assertEquals(property.startOffset, item.startOffset);
+        assertEquals(value.endOffset, item.endOffset);
+    }
+
+    @Test
+    public void onlyBlockCommentsAreShown() {
+        AstNode root = new YamlParserAdapter().parse("a: 1 # inline\n\n# block\nb: 2\n");
+        AstTreeModel model = new AstTreeModel(root, SortState.NONE);
+
+        List<String> rows = new ArrayList<>();
+        AstTreeNode object = model.getChild(model.getChild(model.getRoot(), 0), 0);
+        for (int i = 0; i < model.getChildCount(object); i++) {
+            AstNode row = model.getChild(object, i).getNode();
+            rows.add(row.getType() == AstNode.Type.COMMENT ? "#" + row.getValue().trim() : row.getKey());
+        }
+
+        assertEquals(List.of("a", "#block", "b"), rows);
+    }
+
+    @Test
+    public void propertiesAreSortedByKey() throws Exception {
+        AstNode root = new JsonParserAdapter().parse("{\"b\": 1, \"c\": 2, \"a\": 3}");
+
+        assertEquals(List.of("a", "b", "c"), keys(new AstTreeModel(root, SortState.ASCENDING)));
+        assertEquals(List.of("c", "b", "a"), keys(new AstTreeModel(root, SortState.DESCENDING)));
+        assertEquals(List.of("b", "c", "a"), keys(new AstTreeModel(root, SortState.NONE)));
+    }
+
+    @Test
+    public void everyShownNodeHasThePathItIsFoundAt() {
+        String yaml = new DocumentGenerator().seed(3).size(20_000).comments(true).anchors(true)
+            .generate(Format.YAML_STREAM);
+        AstNode root = new YamlParserAdapter().parse(yaml);
+        AstTreeModel model = new AstTreeModel(root, SortState.ASCENDING);
+
+        int rows = assertPaths(model, new TreePath(model.getRoot()));
+        assertEquals(countShown(model, root), rows);
+    }
+
+    @Test
+    public void newParseOnlyReportsTheChangedRows() throws Exception {
+        AstTreeModel model = new AstTreeModel(
+            new JsonParserAdapter().parse("{\"a\": 1, \"b\": {\"c\": 2, \"d\": 3}, \"e\": [1, 2]}"), SortState.NONE);
+        JTree tree = new JTree(model);
+        AstTreeNode object = model.getChild(model.getRoot(), 0);
+        AstTreeNode b = model.getChild(object, 1);
+        TreePath pathOfB = new TreePath(new Object[] {model.getRoot(), object, b});
+        tree.expandPath(pathOfB);
+        tree.setSelectionPath(pathOfB.pathByAddingChild(model.getChild(b, 1)));
+
+        List<String> events = new ArrayList<>();
+        model.addTreeModelListener(new EventRecorder(events));
+
+        model.setAst(new JsonParserAdapter().parse("{\"a\": 1, \"b\": {\"c\": 5, \"x\": 0, \"d\": 3}, \"e\": [1, 2]}"));
+
+        assertEquals(List.of("inserted [1]", "changed [0]"), events);
+        assertSame(object, model.getChild(model.getRoot(), 0));
+        assertSame(b, model.getChild(object, 1));
+        assertTrue(tree.isExpanded(pathOfB));
+        assertEquals("d", ((AstTreeNode) tree.getLastSelectedPathComponent()).getNode().getKey());
+        assertEquals("5", AstTreeModel.valueNodeOf(model.getChild(b, 0).getNode()).getValue());
+    }
+
+    @Test
+    public void updatedTreeMatchesTreeOfTheNewParse() throws Exception {
+        String json = new DocumentGenerator().seed(5).size(20_000).generate(Format.JSON);
+        AstTreeModel model = new AstTreeModel(new JsonParserAdapter().parse(json), SortState.ASCENDING);
+        JTree tree = new JTree(model);
+        expandAll(tree, model, new TreePath(model.getRoot()));
+
+        // drop properties throughout the document, which also shifts the array items after them
+        String[] lines = json.split("\n");
+        StringBuilder edited = new StringBuilder();
+        int dropped = 0;
+        for (int i = 0; i < lines.length; i++) {
+            if (i % 7 != 3 || !lines[i].trim().startsWith("\"") || !lines[i].trim().endsWith(",")) {
+                edited.append(lines[i]).append('\n');
+            } else {
+                dropped++;
+            }
+        }
+        assertTrue(dropped > 0);
+
+        AstNode newAst = new JsonParserAdapter().parse(edited.toString());
+        model.setAst(newAst);
+
+        AstTreeModel expected = new AstTreeModel(newAst, SortState.ASCENDING);
+        assertEquals(describe(expected, expected.getRoot(), ""), describe(model, model.getRoot(), ""));
+        assertPaths(model, new TreePath(model.getRoot()));
+    }
+
+    @Test
+    public void treeFollowsAnAstUpdatedInPlace() throws Exception {
+        String json = "{\"a\": [1, 2, 3], \"b\": {\"c\": true}}";
+        AstNode root = new JsonParserAdapter(true).parse(json);
+        AstTreeModel model = new AstTreeModel(root, SortState.NONE);
+        JTree tree = new JTree(model);
+        expandAll(tree, model, new TreePath(model.getRoot()));
+
+        String edited = "{\"a\": [1, 3], \"b\": {\"c\": true}}";
+        assertTrue(new IncrementalJsonParser().reparse(root, edited, 10, 3, 0));
+        model.setAst(root);
+
+        AstTreeModel expected = new AstTreeModel(new JsonParserAdapter().parse(edited), SortState.NONE);
+        assertEquals(describe(expected, expected.getRoot(), ""), describe(model, model.getRoot(), ""));
+    }
+
+    @Test
+    public void collapsedArrayResizedInPlaceIsReportedAsChanged() throws Exception {
+        AstNode root = new JsonParserAdapter(true).parse("{\"a\": [1, 2, 3], \"b\": 1}");
+        AstTreeModel model = new AstTreeModel(root, SortState.NONE);
+        AstTreeNode object = model.getChild(model.getRoot(), 0);
+        AstTreeNode array = model.getChild(object, 0);
+        model.getChild(object, 1);
+
+        List<String> events = new ArrayList<>();
+        model.addTreeModelListener(new EventRecorder(events));
+
+        assertTrue(new IncrementalJsonParser().reparse(root, "{\"a\": [0, 1, 2, 3], \"b\": 1}", 7, 0, 3));
+        model.setAst(root);
+
+        // the array row shows its size, also when its items were never shown
+        assertEquals(List.of("changed [0]"), events);
+        assertSame(array, model.getChild(object, 0));
+    }
+
+    @Test
+    public void largeArraysAreShownInBuckets() throws Exception {
+        AstNode root = new JsonParserAdapter().parse(array(2500));
+        AstTreeModel model = new AstTreeModel(root, SortState.NONE);
+
+        AstTreeNode array = model.getChild(model.getRoot(), 0);
+        assertEquals(3, model.getChildCount(array));
+        assertEquals("[2000…2499]", model.getChild(array, 2).toString());
+
+        AstTreeNode bucket = model.getChild(array, 1);
+        assertEquals(1000, model.getChildCount(bucket));
+        assertEquals(1000, model.getChild(bucket, 0).getNode().getArrayIndex());
+
+        AstNode item = root.getChildren().getFirst().getChildren().get(1500);
+        TreePath path = model.getTreePath(item);
+        assertEquals(List.of(model.getRoot(), array, bucket, model.getChild(bucket, 500)), List.of(path.getPath()));
+        assertPaths(model, new TreePath(model.getRoot()));
+    }
+
+    @Test
+    public void bucketsAreNestedWhenThereAreTooMany() throws Exception {
+        AstNode root = new JsonParserAdapter().parse(array(1_000_001));
+        AstTreeModel model = new AstTreeModel(root, SortState.NONE);
+
+        AstTreeNode array = model.getChild(model.getRoot(), 0);
+        assertEquals(2, model.getChildCount(array));
+        assertEquals(BUCKET_SIZE, model.getChildCount(model.getChild(array, 0)));
+
+        TreePath path = model.getTreePath(root.getChildren().getFirst().getChildren().get(999_999));
+        assertEquals("[0…999999]", path.getPathComponent(2).toString());
+        assertEquals("[999000…999999]", path.getPathComponent(3).toString());
+        assertEquals(999, model.getIndexOfChild(path.getPathComponent(3), path.getLastPathComponent()));
+    }
+
+    @Test
+    public void bucketsFollowTheSizeOfTheArray() throws Exception {
+        AstTreeModel model = new AstTreeModel(new JsonParserAdapter().parse(array(2500)), SortState.NONE);
+        JTree tree = new JTree(model);
+        AstTreeNode array = model.getChild(model.getRoot(), 0);
+        TreePath pathOfBucket = new TreePath(new Object[] {model.getRoot(), array, model.getChild(array, 2)});
+        tree.expandPath(pathOfBucket);
+
+        List<String> events = new ArrayList<>();
+        model.addTreeModelListener(new EventRecorder(events));
+
+        model.setAst(new JsonParserAdapter().parse(array(3100)));
+        // the array shows its size, a bucket its range
+        assertEquals(List.of("changed [0]", "inserted [3]", "changed [2]"), events.subList(0, 3));
+        assertEquals(4, events.size());
+        assertTrue(events.get(3).startsWith("inserted [500, 501,"));
+        assertTrue(tree.isExpanded(pathOfBucket));
+        assertEquals("[2000…2999]", pathOfBucket.getLastPathComponent().toString());
+
+        model.setAst(new JsonParserAdapter().parse(array(10)));
+        assertEquals(10, model.getChildCount(array));
+        assertPaths(model, new TreePath(model.getRoot()));
+    }
+
+    private String array(int size) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            json.append(i > 0 ? "," : "").append(i);
+        }
+        return json.append("]").toString();
+    }
+
+    private List<String> keys(AstTreeModel model) {
+        AstTreeNode object = model.getChild(model.getRoot(), 0);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < model.getChildCount(object); i++) {
+            keys.add(model.getChild(object, i).getNode().getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * @return number of rows in the subtree of the path
+     */
+    private int assertPaths(AstTreeModel model, TreePath path) {
+        AstTreeNode row = (AstTreeNode) path.getLastPathComponent();
+        assertTrue(model.isShown(row.getNode()));
+        if (!row.isBucket()) {
+            assertEquals(path, model.getTreePath(row.getNode()));
+        }
+
+        int rows = row.isBucket() ? 0 : 1;
+        assertEquals(model.isLeaf(row), model.getChildCount(row) == 0);
+        for (int i = 0; i < model.getChildCount(row); i++) {
+            AstTreeNode child = model.getChild(row, i);
+            assertEquals(i, model.getIndexOfChild(row, child));
+            rows += assertPaths(model, path.pathByAddingChild(child));
+        }
+        return rows;
+    }
+
+    private int countShown(AstTreeModel model, AstNode node) {
+        int count = model.isShown(node) ? 1 : 0;
+        for (AstNode child : node.getChildren()) {
+            count += countShown(model, child);
+        }
+        return count;
+    }
+
+    private void expandAll(JTree tree, AstTreeModel model, TreePath path) {
+        AstTreeNode row = (AstTreeNode) path.getLastPathComponent();
+        tree.expandPath(path);
+        for (int i = 0; i < model.getChildCount(row); i++) {
+            expandAll(tree, model, path.pathByAddingChild(model.getChild(row, i)));
+        }
+    }
+
+    private String describe(AstTreeModel model, AstTreeNode row, String indent) {
+        AstNode node = row.getNode();
+        AstNode item = AstTreeModel.valueNodeOf(node);
+        StringBuilder text = new StringBuilder(indent)
+            .append(node.getArrayIndex()).append(' ')
+            .append(node.getKey()).append(' ')
+            .append(item.getType()).append(' ')
+            .append(item.getArraySize()).append(' ')
+            .append(item.getType() == AstNode.Type.VALUE ? item.getValue() : "")
+            .append('\n');
+        for (int i = 0; i < model.getChildCount(row); i++) {
+            text.append(describe(model, model.getChild(row, i), indent + "  "));
+        }
+        return text.toString();
+    }
+
+    private record EventRecorder(List<String> events) implements TreeModelListener {
+        @Override
+        public void treeNodesChanged(TreeModelEvent e) {
+            events.add("changed " + Arrays.toString(e.getChildIndices()));
+        }
+
+        @Override
+        public void treeNodesInserted(TreeModelEvent e) {
+            events.add("inserted " + Arrays.toString(e.getChildIndices()));
+        }
+
+        @Override
+        public void treeNodesRemoved(TreeModelEvent e) {
+            events.add("removed " + Arrays.toString(e.getChildIndices()));
+        }
+
+        @Override
+        public void treeStructureChanged(TreeModelEvent e) {
+            events.add("structure changed");
+        }
+    }
+}
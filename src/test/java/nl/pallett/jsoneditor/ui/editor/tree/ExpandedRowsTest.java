@@ -0,0 +1,107 @@
+package nl.pallett.jsoneditor.ui.editor.tree;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.CompactAst;
+import nl.pallett.jsoneditor.ast.parser.CompactJsonParser;
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ExpandedRowsTest {
+
+    @Test
+    public void expandedRowsAreRestoredAfterASortChange() throws Exception {
+        String json = "{\"b\": {\"y\": [1, {\"z\": 2}], \"x\": {\"w\": 3}}, \"a\": {\"c\": 1}}";
+        JTree tree = treeOf(new AstTreeModel(new JsonParserAdapter().parse(json), SortState.NONE));
+        expand(tree, Set.of("$", "$.b", "$.b.y", "$.b.y[1]"));
+
+        ExpandedRows expandedRows = ExpandedRows.capture(tree);
+        tree.setModel(new AstTreeModel(new JsonParserAdapter().parse(json), SortState.ASCENDING));
+        expandedRows.restore(tree);
+
+        assertEquals(Set.of("$", "$.b", "$.b.y", "$.b.y[1]"), expandedPaths(tree));
+        // the properties were moved by the sort
+        AstTreeNode object = (AstTreeNode) tree.getModel().getChild(tree.getModel().getRoot(), 0);
+        assertEquals("a", ((AstTreeNode) tree.getModel().getChild(object, 0)).getNode().getKey());
+    }
+
+    @Test
+    public void itemsOfAnExpandedBucketAreRestoredInACompactTree() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < AstTreeModel.BUCKET_SIZE + 500; i++) {
+            json.append(i == 0 ? "" : ", ").append("{\"v\": [").append(i).append("]}");
+        }
+        json.append("]");
+        int item = AstTreeModel.BUCKET_SIZE + 200;
+        JTree tree = treeOf(new AstTreeModel(new JsonParserAdapter().parse(json.toString()), SortState.NONE));
+        expand(tree, Set.of("$", "$[" + item + "]", "$[" + item + "].v"));
+
+        ExpandedRows expandedRows = ExpandedRows.capture(tree);
+        CompactAst ast = new CompactJsonParser().parse(json.toString());
+        tree.setModel(new DefaultTreeModel(new CompactTreeNode(ast, ast.root(), SortState.NONE)));
+        expandedRows.restore(tree);
+
+        assertEquals(Set.of("$", "$[" + item + "]", "$[" + item + "].v"), expandedPaths(tree));
+    }
+
+    private JTree treeOf(TreeModel model) {
+        JTree tree = new JTree(model);
+        tree.setRootVisible(false);
+        return tree;
+    }
+
+    /**
+     * Expands the rows with the paths, and the buckets on the way to them
+     */
+    private void expand(JTree tree, Set<String> jsonPaths) {
+        TreeModel model = tree.getModel();
+        Deque<TreePath> pending = new ArrayDeque<>(List.of(new TreePath(model.getRoot())));
+        while (!pending.isEmpty()) {
+            TreePath path = pending.pop();
+            for (int i = 0; i < model.getChildCount(path.getLastPathComponent()); i++) {
+                Object child = model.getChild(path.getLastPathComponent(), i);
+                TreePath childPath = path.pathByAddingChild(child);
+                if (child instanceof AstTreeNode row && row.isBucket()) {
+                    pending.push(childPath);
+                } else if (jsonPaths.contains(jsonPathOf(child))) {
+                    tree.expandPath(childPath);
+                    pending.push(childPath);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return paths of the expanded rows, without buckets
+     */
+    private Set<String> expandedPaths(JTree tree) {
+        Set<String> paths = new HashSet<>();
+        Enumeration<TreePath> expanded = tree.getExpandedDescendants(new TreePath(tree.getModel().getRoot()));
+        while (expanded.hasMoreElements()) {
+            Object row = expanded.nextElement().getLastPathComponent();
+            if (row != tree.getModel().getRoot() && !(row instanceof AstTreeNode node && node.isBucket())) {
+                paths.add(jsonPathOf(row));
+            }
+        }
+        return paths;
+    }
+
+    private String jsonPathOf(Object row) {
+        AstNode node = (row instanceof AstTreeNode treeNode)
+            ? AstTreeModel.valueNodeOf(treeNode.getNode())
+            : (AstNode) ((CompactTreeNode) row).getUserObject();
+        return node.getPointerAsJsonPath();
+    }
+}
@@ -0,0 +1,65 @@
+package nl.pallett.jsoneditor.ui.editor.tree;
+
+import nl.pallett.jsoneditor.ast.AstNode;
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TreeCellRendererTest {
+
+    @Test
+    public void longValuesAreCutOff() throws Exception {
+        String longValue = "x".repeat(TreeCellRenderer.MAX_TEXT_LENGTH * 10);
+        AstTreeModel model = new AstTreeModel(new JsonParserAdapter().parse(
+            "{\"a\": \"" + longValue + "\", \"b\": \"" + longValue + longValue + "\", \"c\": \"x\"}"), SortState.NONE);
+        JTree tree = new JTree(model);
+        TreeCellRenderer renderer = new TreeCellRenderer();
+        AstTreeNode object = model.getChild(model.getRoot(), 0);
+
+        int widthA = widthOf(renderer, tree, model.getChild(object, 0));
+        int widthB = widthOf(renderer, tree, model.getChild(object, 1));
+        int widthC = widthOf(renderer, tree, model.getChild(object, 2));
+
+        assertEquals(widthA, widthB);
+        assertTrue(widthC < widthA);
+    }
+
+    @Test
+    public void arrayRowFollowsItsSizeWhenUpdatedInPlace() throws Exception {
+        AstNode root = new JsonParserAdapter().parse("[1, 2, 3]");
+        AstTreeModel model = new AstTreeModel(root, SortState.NONE);
+        JTree tree = new JTree(model);
+        TreeCellRenderer renderer = new TreeCellRenderer();
+        AstTreeNode array = model.getChild(model.getRoot(), 0);
+
+        int width = widthOf(renderer, tree, array);
+        assertEquals(width, widthOf(renderer, tree, array));
+
+        array.getNode().setArraySize(1000);
+        assertTrue(widthOf(renderer, tree, array) > width);
+    }
+
+    @Test
+    public void itemRowFollowsItsIndexWhenRenumberedInPlace() throws Exception {
+        AstNode root = new JsonParserAdapter().parse("[1, 2, 3]");
+        AstTreeModel model = new AstTreeModel(root, SortState.NONE);
+        JTree tree = new JTree(model);
+        TreeCellRenderer renderer = new TreeCellRenderer();
+        AstTreeNode item = model.getChild(model.getChild(model.getRoot(), 0), 0);
+
+        int width = widthOf(renderer, tree, item);
+        assertEquals(width, widthOf(renderer, tree, item));
+
+        item.getNode().setArrayIndex(1000);
+        assertTrue(widthOf(renderer, tree, item) > width);
+    }
+
+    private int widthOf(TreeCellRenderer renderer, JTree tree, AstTreeNode row) {
+        return renderer.getTreeCellRendererComponent(tree, row, false, false, true, 0, false)
+            .getPreferredSize().width;
+    }
+}
@@ -0,0 +1,155 @@
+package nl.pallett.jsoneditor.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.pallett.jsoneditor.model.DocumentType;
+import org.junit.jupiter.api.Test;
+import org.snakeyaml.engine.v2.api.DumpSettings;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+import org.snakeyaml.engine.v2.api.lowlevel.Compose;
+import org.snakeyaml.engine.v2.api.lowlevel.Present;
+import org.snakeyaml.engine.v2.api.lowlevel.Serialize;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StringUtilTest {
+
+    @Test
+    public void formattedJsonMatchesTheObjectMapper() throws Exception {
+        String json = "{\"a\":[1,2.5,-3e2,1.10,1e3,{\"b\":null}],\"c\":{\"d\":\"x\\\"y\\u00e9\",\"e\":[]},"
+            + "\"f\":{},\"g\":true,\"h\":12345678901234567890}";
+
+        ObjectMapper objectMapper = ObjectMapperUtil.getJsonInstance();
+        // the same layout, but numbers are written as they are in the document instead of as a double
+        String expected = objectMapper.writerWithDefaultPrettyPrinter()
+            .writeValueAsString(objectMapper.readValue(json, Object.class))
+            .replace("-300.0", "-3e2").replace("1.1,", "1.10,").replace("1000.0", "1e3");
+
+        assertEquals(expected, StringUtil.formatJson(json));
+    }
+
+    @Test
+    public void formattingInvalidJsonFails() {
+        assertThrows(JsonProcessingException.class, () -> StringUtil.formatJson("{\"a\": [1, 2}"));
+    }
+
+    @Test
+    public void formattedYamlMatchesTheComposedDocument() {
+        String yaml = """
+            # settings
+            server:
+                host: "localhost"   # the host
+                ports: [80, 443]
+                paths:
+                    - /a
+                    -   /b
+            client:
+                  name: 'x'
+            """;
+
+        assertEquals(composeAndPresent(yaml), StringUtil.formatYaml(yaml));
+    }
+
+    @Test
+    public void everyDocumentOfAStreamIsFormatted() {
+        String yaml = "a:    1\n---\nb:\n    - 2\n";
+
+        assertEquals("a: 1\n---\nb:\n- 2\n", StringUtil.formatYaml(yaml));
+    }
+
+    @Test
+    public void anchorsKeepTheirNames() {
+        String yaml = "defaults: &defaults\n    retries: 3\nclient:\n    <<: *defaults\n";
+
+        assertEquals("defaults: &defaults\n  retries: 3\nclient:\n  <<: *defaults\n", StringUtil.formatYaml(yaml));
+    }
+
+    @Test
+    public void jsonStringsAreDecodedFromTheirOpeningQuote() {
+        String text = "[\"plain\", \"a\\\"b\\\\c\\/d\", \"\\n\\r\\t\\b\\f\", \"\\u00e9\\u20AC\", \"\\ud83d\\ude00!\", \"\"]";
+
+        assertEquals("plain", StringUtil.decodeJsonString(text, text.indexOf("\"plain")));
+        assertEquals("a\"b\\c/d", StringUtil.decodeJsonString(text, text.indexOf("\"a")));
+        assertEquals("\n\r\t\b\f", StringUtil.decodeJsonString(text, text.indexOf("\"\\n")));
+        assertEquals("é€", StringUtil.decodeJsonString(text, text.indexOf("\"\\u00e9")));
+        assertEquals("😀!", StringUtil.decodeJsonString(text, text.indexOf("\"\\ud83d")));
+        assertEquals("", StringUtil.decodeJsonString(text, text.lastIndexOf("\"\"")));
+    }
+
+    @Test
+    public void minifiedJsonHasNoWhitespace() throws Exception {
+        String json = "{\n  \"a\" : [ 1, 2.50 ],\n  \"b\" : { \"c\" : \"x y\" }\n}";
+
+        assertEquals("{\"a\":[1,2.50],\"b\":{\"c\":\"x y\"}}", StringUtil.minifyCode(DocumentType.JSON, json));
+    }
+
+    @Test
+    public void minifiedJsonLinesHaveARecordPerLine() throws Exception {
+        String jsonLines = "{ \"a\" : 1 }\n\n[ 1, 2 ]\n";
+
+        assertEquals("{\"a\":1}\n[1,2]\n", StringUtil.minifyCode(DocumentType.JSON_LINES, jsonLines));
+    }
+
+    @Test
+    public void numbersKeepTheirText() throws Exception {
+        String json = "{\"a\": 1.10, \"b\": 1e3, \"c\": 1e400, \"d\": -0}";
+        String compact = "{\"a\":1.10,\"b\":1e3,\"c\":1e400,\"d\":-0}";
+        String records = compact + "\n" + compact + "\n";
+
+        assertEquals(records, StringUtil.formatJsonLines(json + "\n" + json));
+        assertEquals(records, StringUtil.minifyCode(DocumentType.JSON_LINES, json + "\n" + json));
+        assertEquals(compact, StringUtil.minifyCode(DocumentType.JSON, json));
+    }
+
+    @Test
+    public void minifiedYamlIsInFlowStyle() throws Exception {
+        String yaml = """
+            # comment
+            a: &x
+              b: 1
+              c:
+                - "d"
+                - |
+                  two
+                  lines
+            e: *x
+            """;
+
+        assertEquals("{a: &x {b: 1, c: [\"d\", \"two\\nlines\\n\"]}, e: *x}\n",
+            StringUtil.minifyCode(DocumentType.YAML, yaml));
+    }
+
+    @Test
+    public void minifyingJsonWithContentAfterTheValueFails() {
+        assertThrows(JsonProcessingException.class,
+            () -> StringUtil.minifyCode(DocumentType.JSON, "{\"a\": 1} {\"b\": 2}"));
+    }
+
+    @Test
+    public void minifyingLeavesTheWriterOpen() throws Exception {
+        StringWriter writer = new StringWriter() {
+            @Override
+            public void close() {
+                throw new AssertionError("closed");
+            }
+        };
+
+        StringUtil.minifyCode(DocumentType.JSON, "[1, 2]", writer);
+        writer.write('.');
+
+        assertEquals("[1,2].", writer.toString());
+    }
+
+    private String composeAndPresent(String yaml) {
+        LoadSettings loadSettings = LoadSettings.builder().setParseComments(true).build();
+        DumpSettings dumpSettings = DumpSettings.builder().setDumpComments(true).setIndent(2).build();
+
+        var node = new Compose(loadSettings).composeReader(new StringReader(yaml)).orElseThrow();
+        var events = new Serialize(dumpSettings).serializeOne(node);
+        return new Present(dumpSettings).emitToString(events.iterator());
+    }
+}
@@ -0,0 +1,88 @@
+package nl.pallett.jsoneditor.util;
+
+import nl.pallett.jsoneditor.ast.parser.JsonParserAdapter;
+import nl.pallett.jsoneditor.ui.editor.tree.AstTreeModel;
+import nl.pallett.jsoneditor.ui.editor.tree.SortState;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TreeUtilTest {
+
+    private static final String JSON = "{\"a\": {\"b\": [1, {\"c\": 2}]}, \"d\": [[3], [4]], \"e\": 5}";
+
+    @Test
+    public void expandAllExpandsEveryRowWithChildren() throws Exception {
+        JTree tree = treeOf(JSON);
+        TreePath root = new TreePath(tree.getModel().getRoot());
+
+        TreeUtil.expandAll(tree, root);
+
+        assertEquals(0, countRows(tree, root, false));
+        assertEquals(12, tree.getRowCount());
+    }
+
+    @Test
+    public void expandAllResumesFromThePendingPaths() throws Exception {
+        JTree tree = treeOf(JSON);
+        TreePath root = new TreePath(tree.getModel().getRoot());
+        Deque<TreePath> pending = new ArrayDeque<>();
+        pending.push(root);
+
+        int slices = 0;
+        while (!pending.isEmpty()) {
+            assertNotNull(TreeUtil.expandAll(tree, pending, 2));
+            slices++;
+        }
+
+        assertTrue(slices > 1);
+        assertEquals(0, countRows(tree, root, false));
+    }
+
+    @Test
+    public void collapseAllCollapsesTheExpandedRows() throws Exception {
+        JTree tree = treeOf(JSON);
+        TreeModel model = tree.getModel();
+        TreePath root = new TreePath(model.getRoot());
+        TreePath object = root.pathByAddingChild(model.getChild(model.getRoot(), 0));
+        TreeUtil.expandAll(tree, root);
+
+        TreeUtil.collapseAll(tree, object);
+
+        assertFalse(tree.isExpanded(object));
+        tree.expandPath(object);
+        assertEquals(6, countRows(tree, object, false));
+    }
+
+    private JTree treeOf(String json) throws Exception {
+        JTree tree = new JTree(new AstTreeModel(new JsonParserAdapter().parse(json), SortState.NONE));
+        tree.setRootVisible(false);
+        return tree;
+    }
+
+    /**
+     * @return number of rows with children below the path, including the path, that are expanded or not
+     */
+    private int countRows(JTree tree, TreePath path, boolean expanded) {
+        TreeModel model = tree.getModel();
+        Object node = path.getLastPathComponent();
+        if (model.isLeaf(node)) {
+            return 0;
+        }
+
+        int count = (tree.isExpanded(path) == expanded) ? 1 : 0;
+        for (int i = 0; i < model.getChildCount(node); i++) {
+            count += countRows(tree, path.pathByAddingChild(model.getChild(node, i)), expanded);
+        }
+        return count;
+    }
+}